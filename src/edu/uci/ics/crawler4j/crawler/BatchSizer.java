@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.crawler;
+
+/**
+ * Chooses how many URLs a crawler takes from the frontier at once.
+ *
+ * A batch is limited to the crawler's share of the queue, so a short queue
+ * is spread over all crawlers instead of being taken by one of them, and to
+ * the number of pages the crawler processes within
+ * {@link CrawlConfig#getTargetBatchDuration()} at its recent speed, so slow
+ * crawlers do not hold back URLs that others could process. With a deep
+ * queue and fast crawlers batches grow up to
+ * {@link CrawlConfig#getMaxBatchSize()} and the frontier lock is taken less
+ * often.
+ *
+ * Each crawler has its own instance, so it is not thread-safe.
+ */
+// 根据队列长度、爬虫数量和最近的页面处理时间决定每次从frontier获取多少个url
+public class BatchSizer extends Configurable {
+
+  /**
+   * Batch size used when adaptive batch sizing is disabled.
+   */
+  public static final int FIXED_BATCH_SIZE = 50;
+
+  // 页面处理时间指数移动平均的权重
+  private static final double LATENCY_WEIGHT = 0.2;
+
+  // 最近的平均页面处理时间（ms），负数表示还没有处理过页面
+  private double pageLatency = -1;
+
+  public BatchSizer(CrawlConfig config) {
+    super(config);
+  }
+
+  /**
+   * @param queueLength number of URLs waiting in the frontier
+   * @param numberOfCrawlers number of crawlers sharing the queue
+   * @return number of URLs to ask the frontier for, at least 1
+   */
+  public int nextBatchSize(long queueLength, int numberOfCrawlers) {
+    if (!config.isAdaptiveBatchSizing()) {
+      return FIXED_BATCH_SIZE;
+    }
+    long crawlers = Math.max(1, numberOfCrawlers);
+    long size = Math.min(config.getMaxBatchSize(), (queueLength + crawlers - 1) / crawlers);
+    if (pageLatency > 0) {
+      size = Math.min(size, (long) (config.getTargetBatchDuration() / pageLatency));
+    }
+    return (int) Math.max(1, size);
+  }
+
+  /**
+   * Records the time the crawler needed for one page.
+   */
+  public void pageProcessed(double millis) {
+    if (pageLatency < 0) {
+      pageLatency = millis;
+    } else {
+      pageLatency += LATENCY_WEIGHT * (millis - pageLatency);
+    }
+  }
+
+  /**
+   * @return recent average time in milliseconds to process a page, or -1 if no page was processed yet
+   */
+  public double getPageLatency() {
+    return pageLatency;
+  }
+}
@@ -6,7 +6,7 @@ package edu.uci.ics.crawler4j.crawler;
  *
  * @author Yasser Ganjisaffar [lastname at gmail dot com]
  */
-// õĳ࣬һЩҪʹõЩ
+// 爬虫配置的抽象类，其他的一些类需要使用到这些配置
 public abstract class Configurable {
 
   protected CrawlConfig config;
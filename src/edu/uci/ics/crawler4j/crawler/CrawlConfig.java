@@ -28,111 +28,111 @@ public class CrawlConfig {
    * The folder which will be used by crawler for storing the intermediate
    * crawl data. The content of this folder should not be modified manually.
    */
-	// ڴмϢļĿ¼òҪΪ
+	// 用于存放爬虫中间信息的文件目录，里面的内容最好不要认为更改
   private String crawlStorageFolder;
 
   /**
    * If this feature is enabled, you would be able to resume a previously
    * stopped/crashed crawl. However, it makes crawling slightly slower
    */
-  // Ƿָ֮ǰֹͣ߱档ʹЧ΢
+  // 是否允许恢复之前停止或者崩溃的爬虫。这会使得爬虫效率略微降低
   private boolean resumableCrawling = false;
 
   /**
    * Maximum depth of crawling For unlimited depth this parameter should be
    * set to -1
    */
-  // ȡȡ-1ʾȡ
+  // 爬虫的最大爬取深度。-1表示爬取深度无限制
   private int maxDepthOfCrawling = -1;
 
   /**
    * Maximum number of pages to fetch For unlimited number of pages, this
    * parameter should be set to -1
    */
-  // ȡҳ-1ʾȡҳ
+  // 最大爬取的页面数，-1表示爬取页面数无限制
   private int maxPagesToFetch = -1;
 
   /**
    * user-agent string that is used for representing your crawler to web
    * servers. See http://en.wikipedia.org/wiki/User_agent for more details
    */
-  // user-agent
+  // 爬虫的user-agent
   private String userAgentString = "crawler4j (http://code.google.com/p/crawler4j/)";
 
   /**
    * Politeness delay in milliseconds (delay between sending two requests to
    * the same host).
    */
-  // ͬһhostrequest֮ļʱ䣨msȡ
+  // 对同一个host的两次request之间的间隔时间（ms），避免过快爬取
   private int politenessDelay = 200;
 
   /**
    * Should we also crawl https pages?
    */
-  // Ƿȡhttpsҳ
+  // 是否爬取https页面
   private boolean includeHttpsPages = true;
 
   /**
    * Should we fetch binary content such as images, audio, ...?
    */
-  // Ƿȡݵҳ棬image,audio
+  // 是否爬取二进制数据的页面，例如image,audio
   private boolean includeBinaryContentInCrawling = false;
 
   /**
    * Maximum Connections per host
    */
-  // һhostͬʱ
+  // 对于一个host的最大同时连接
   private int maxConnectionsPerHost = 100;
 
   /**
    * Maximum total connections
    */
-  // ܵ
+  // 总的最大连接数
   private int maxTotalConnections = 100;
 
   /**
    * Socket timeout in milliseconds
    */
-  // socketʱʱ䣨ms
+  // socket超时时间（ms）
   private int socketTimeout = 20000;
 
   /**
    * Connection timeout in milliseconds
    */
-  // ӳʱʱ(ms)
+  // 连接超时时间(ms)
   private int connectionTimeout = 30000;
 
   /**
    * Max number of outgoing links which are processed from a page
    */
-  // һҳദٸ
+  // 一个页面最多处理多少个外链
   private int maxOutgoingLinksToFollow = 5000;
 
   /**
    * Max allowed size of a page. Pages larger than this size will not be
    * fetched.
    */
-  // ҳССҳһɶ
+  // 访问页面的最大大小，超过这个大小的页面一律丢弃
   private int maxDownloadSize = 1048576; // 128 x 1024 x 8 = 128KB
 
   /**
    * Should we follow redirects?
    */
-  // Ƿҳض
+  // 是否跟踪网页重定向
   private boolean followRedirects = true;
 
   /**
    * If crawler should run behind a proxy, this parameter can be used for
    * specifying the proxy host.
    */
-  // 
+  // 代理主机
   private String proxyHost = null;
 
   /**
    * If crawler should run behind a proxy, this parameter can be used for
    * specifying the proxy port.
    */
-  // ˿
+  // 代理端口
   private int proxyPort = 80;
 
   /**
@@ -140,7 +140,7 @@ public class CrawlConfig {
    * authentication in proxy, this parameter can be used for specifying the
    * username.
    */
-  // û
+  // 代理用户名
   private String proxyUsername = null;
 
   /**
@@ -148,15 +148,278 @@ public class CrawlConfig {
    * authentication in proxy, this parameter can be used for specifying the
    * password.
    */
-  // 
+  // 代理密码
   private String proxyPassword = null;
 
   /**
   * List of possible authentications needed by crawler
   */
-  // Ҫ֤Ϣ
+  // 爬虫需要的认证信息集合
   private List<AuthInfo> authInfos;
 
+  /**
+   * If this feature is enabled, crawler threads only fetch pages and hand
+   * them to a pool of parser threads. A pool of link resolver threads then
+   * resolves the outgoing links and calls visit(), and the links are
+   * written to the frontier in batches.
+   */
+  // 是否将下载、解析、外链调度拆分为流水线的不同阶段
+  private boolean pipelinedCrawling = false;
+
+  /**
+   * Number of parser threads used when pipelined crawling is enabled
+   */
+  // 流水线模式下解析线程的数目，默认为CPU核数
+  private int numberOfParserThreads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Number of threads which look up the docids and robots.txt rules of the
+   * outgoing links of parsed pages when pipelined crawling is enabled. They
+   * mostly wait for the database and for robots.txt downloads, so there are
+   * more of them than parser threads.
+   */
+  // 流水线模式下解析外链（查找docid、robots.txt）的线程数目，默认为CPU核数的2倍
+  private int numberOfLinkResolverThreads = 2 * Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Maximum number of fetched pages waiting to be parsed when pipelined
+   * crawling is enabled. Crawler threads block when this queue is full.
+   */
+  // 流水线模式下等待解析的页面队列的最大长度
+  private int parseQueueSize = 100;
+
+  /**
+   * Maximum number of parsed pages whose outgoing links are written to the
+   * frontier together when pipelined crawling is enabled
+   */
+  // 流水线模式下一次批量写入frontier的页面数
+  private int linkBatchSize = 50;
+
+  /**
+   * Maximum time in milliseconds for parsing one binary document. Parsing
+   * is cancelled after this time. The time a document waits for a free
+   * binary parser thread is not counted.
+   */
+  // 解析一个二进制文档的最长时间（ms），超时则取消解析
+  private int binaryParseTimeout = 30000;
+
+  /**
+   * Maximum number of characters of html produced from one binary document.
+   * Parsing stops once this limit is reached.
+   */
+  // 从一个二进制文档中得到的html的最大字符数
+  private int maxBinaryParseOutputSize = 1048576;
+
+  /**
+   * Number of threads used for parsing binary content
+   */
+  // 解析二进制数据的线程数
+  private int numberOfBinaryParserThreads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * If this feature is enabled, URLs are written to the frontier in a
+   * compact binary form: the parent URL is referenced by its docid, the
+   * host is replaced by a dictionary id and the path is stored as the
+   * difference to the parent's path. Frontiers written in either form can
+   * always be read.
+   */
+  // 是否以紧凑的二进制格式把url写入frontier
+  private boolean compactFrontierEncoding = true;
+
+  /**
+   * Interval in milliseconds at which counters are written to disk when
+   * crawling is resumable. After a crash the counter updates of at most
+   * this interval are lost.
+   */
+  // 可恢复模式下计数器写入磁盘的时间间隔（ms）
+  private int countersCheckpointInterval = 1000;
+
+  /**
+   * If this feature is enabled, the pages that are being processed are kept
+   * in memory and written to disk in batches instead of one transaction per
+   * page. Only used when crawling is resumable.
+   */
+  // 是否在内存中记录正在处理的页面，并批量写入磁盘
+  private boolean checkpointInProcessPages = false;
+
+  /**
+   * Interval in milliseconds at which processed pages are written to disk
+   * when checkpointInProcessPages is enabled. After a crash, the pages
+   * processed during this interval are crawled again.
+   */
+  // 已处理页面批量写入磁盘的时间间隔（ms）
+  private int inProcessPagesCheckpointInterval = 1000;
+
+  /**
+   * Time in milliseconds after which the URLs handed out to a crawler are
+   * put back into the queue if the crawler has not started on any of them
+   * in the meantime. 0 disables leases.
+   */
+  // 分配给爬虫的url的租约时长（ms），超时未处理的url会被重新放回队列，0表示不使用租约
+  private int leaseTimeout = 300000;
+
+  /**
+   * Whether crawlers size the batches of URLs they take from the frontier
+   * according to the queue length, the number of crawlers and their recent
+   * page latency. If false, crawlers always ask for 50 URLs.
+   */
+  // 是否根据队列长度、爬虫数量和最近的页面处理时间调整每次从frontier获取的url数量
+  private boolean adaptiveBatchSizing = true;
+
+  /**
+   * Maximum number of URLs a crawler takes from the frontier at once when
+   * adaptive batch sizing is enabled.
+   */
+  // 自适应批量大小时，每次从frontier获取的url的最大数量
+  private int maxBatchSize = 200;
+
+  /**
+   * Time in milliseconds a crawler should need to process one batch when
+   * adaptive batch sizing is enabled. Slower crawlers take smaller batches.
+   */
+  // 自适应批量大小时，期望处理一批url所需的时间（ms）
+  private int targetBatchDuration = 30000;
+
+  /**
+   * Whether every crawler keeps a local queue of URLs which it refills from
+   * the frontier in batches, and steals from other crawlers when the
+   * frontier is empty. The ordering this gives is described in
+   * WorkStealingQueues.
+   */
+  // 是否使用工作窃取模式：每个爬虫线程有自己的本地队列，空闲时从其他线程窃取url
+  private boolean workStealing = false;
+
+  /**
+   * Number of discovered URLs a crawler buffers before it schedules them in
+   * the frontier when work stealing is enabled.
+   */
+  // 工作窃取模式下，本地缓存这么多外链后再批量写入frontier
+  private int localFlushSize = 500;
+
+  /**
+   * Number of groups the hosts are split into. The URLs of a group are
+   * handed out to the crawlers whose id modulo this number is the group, as
+   * long as they have URLs to take, so connections to a host are reused by
+   * few crawlers. Should not be larger than the number of crawlers. 0
+   * disables host affinity. Must not be changed when resuming a crawl.
+   */
+  // 把host分成多少组，每组的url优先分配给固定的几个爬虫以便复用连接，0表示不使用host亲和
+  private int hostAffinityGroups = 0;
+
+  /**
+   * Maximum number of hosts the page fetcher keeps statistics for. Hosts seen
+   * after that many are only counted in the totals.
+   */
+  // 最多统计多少个host的请求数、流量、延迟等，超过的host只计入总数
+  private int maxTrackedHosts = 10000;
+
+  /**
+   * Whether the crawlers record latency histograms of the stages of
+   * processing a page. Recording costs a few System.nanoTime calls per page.
+   */
+  // 是否记录处理页面各个阶段（抓取、下载、解析、visit等）的耗时分布
+  private boolean stageLatencyHistograms = true;
+
+  /**
+   * Whether the metrics of the crawl are registered as an MBean named
+   * edu.uci.ics.crawler4j:type=CrawlMetrics,name="crawl storage folder".
+   */
+  // 是否通过JMX暴露爬取指标
+  private boolean jmxMetrics = false;
+
+  /**
+   * Port on which the metrics of the crawl are served at /metrics in the
+   * Prometheus text format. 0 disables the endpoint.
+   */
+  // 以Prometheus文本格式提供指标的HTTP端口，0表示不启用
+  private int metricsPort = 0;
+
+  /**
+   * Address the metrics endpoint listens on. The default only accepts
+   * connections from the local machine; use 0.0.0.0 to listen on all
+   * interfaces.
+   */
+  // 指标HTTP服务监听的地址，默认只监听本机
+  private String metricsHost = "127.0.0.1";
+
+  /**
+   * Whether fetches, parses, frontier operations and robots.txt fetches are
+   * reported as JDK Flight Recorder events. Events are only created while a
+   * recording is running, and only on JVMs which have Flight Recorder.
+   */
+  // 是否把抓取、解析、frontier操作等记录为JFR事件，只在有录制进行时生效
+  private boolean jfrEvents = true;
+
+  /**
+   * Folder where the request and response of every downloaded page are
+   * written as WARC records. Each crawler thread writes its own files.
+   * Null disables the archive.
+   */
+  // 保存WARC归档文件的目录，为null时不写归档
+  private String warcFolder = null;
+
+  /**
+   * Size in bytes after which a WARC file is closed and the next one is
+   * started.
+   */
+  // WARC文件达到这个大小后开始写新文件
+  private long warcMaxFileSize = 1000L * 1000 * 1000;
+
+  /**
+   * Deflate level of the WARC records, from 1 (fastest) to 9 (smallest), or
+   * -1 for the zlib default. Records are compressed on the crawler threads.
+   */
+  // WARC记录的压缩级别，压缩在爬虫线程中进行
+  private int warcCompressionLevel = -1;
+
+  /**
+   * Whether WARC records are written to disk by a background thread of each
+   * crawler. The crawler thread only compresses the records; it blocks when
+   * the background thread falls behind by warcWriteQueueSize records.
+   */
+  // 是否由后台线程写WARC文件，爬虫线程只负责压缩
+  private boolean warcAsyncWrite = false;
+
+  /**
+   * Maximum number of compressed WARC records waiting for the background
+   * thread of a crawler.
+   */
+  // 等待后台线程写入的WARC记录数上限
+  private int warcWriteQueueSize = 256;
+
+  /**
+   * Whether pages whose content is byte for byte the same as the content of
+   * a page downloaded before are skipped: they are neither parsed nor
+   * visited and their links are not followed. WebCrawler.onDuplicateContent
+   * is called for them instead.
+   */
+  // 是否跳过内容与之前下载的页面完全相同的页面，不解析也不调用visit
+  private boolean detectDuplicateContent = false;
+
+  /**
+   * Whether html pages whose text is nearly the same as the text of a page
+   * crawled before, for example the same template with another timestamp,
+   * are detected by their SimHash. Such pages are not passed to visit, and
+   * WebCrawler.onNearDuplicateContent is called for them instead.
+   */
+  // 是否用SimHash检测文本与之前的页面几乎相同的html页面
+  private boolean detectNearDuplicates = false;
+
+  /**
+   * Maximum number of differing bits of the 64-bit SimHash of two pages which
+   * are near duplicates. Every additional bit adds a table to the index.
+   */
+  // 两个页面的SimHash最多相差几位时认为是近似重复
+  private int nearDuplicateDistance = 3;
+
+  /**
+   * Fraction of near duplicate pages among the html pages of a host above
+   * which URLs of the host found from then on are scheduled with a lower priority,
+   * behind the URLs of other hosts.
+   */
+  // host的近似重复页面比例超过这个值后，新发现的url降低优先级
+  private double nearDuplicateHostRatio = 0.5;
+
   public CrawlConfig() {
   }
 
@@ -165,7 +428,7 @@ public class CrawlConfig {
    *
    * @throws Exception on Validation fail
    */
-  // ϢЧ֤
+  // 配置信息有效性验证
   public void validate() throws Exception {
     if (crawlStorageFolder == null) {
       throw new Exception("Crawl storage folder is not set in the CrawlConfig.");
@@ -179,6 +442,75 @@ public class CrawlConfig {
     if (maxDepthOfCrawling > Short.MAX_VALUE) {
       throw new Exception("Maximum value for crawl depth is " + Short.MAX_VALUE);
     }
+    if (binaryParseTimeout <= 0) {
+      throw new Exception("Invalid value for binary parse timeout: " + binaryParseTimeout);
+    }
+    if (maxBinaryParseOutputSize <= 0) {
+      throw new Exception("Invalid value for max binary parse output size: " + maxBinaryParseOutputSize);
+    }
+    if (numberOfBinaryParserThreads < 1) {
+      throw new Exception("Invalid value for number of binary parser threads: " + numberOfBinaryParserThreads);
+    }
+    if (countersCheckpointInterval <= 0) {
+      throw new Exception("Invalid value for counters checkpoint interval: " + countersCheckpointInterval);
+    }
+    if (inProcessPagesCheckpointInterval <= 0) {
+      throw new Exception("Invalid value for in-process pages checkpoint interval: "
+          + inProcessPagesCheckpointInterval);
+    }
+    if (leaseTimeout < 0) {
+      throw new Exception("Invalid value for lease timeout: " + leaseTimeout);
+    }
+    if (maxBatchSize < 1) {
+      throw new Exception("Invalid value for max batch size: " + maxBatchSize);
+    }
+    if (targetBatchDuration <= 0) {
+      throw new Exception("Invalid value for target batch duration: " + targetBatchDuration);
+    }
+    if (localFlushSize < 1) {
+      throw new Exception("Invalid value for local flush size: " + localFlushSize);
+    }
+    if (hostAffinityGroups < 0 || hostAffinityGroups > 256) {
+      throw new Exception("Invalid value for host affinity groups: " + hostAffinityGroups);
+    }
+    if (maxTrackedHosts < 0) {
+      throw new Exception("Invalid value for max tracked hosts: " + maxTrackedHosts);
+    }
+    if (metricsPort < 0 || metricsPort > 65535) {
+      throw new Exception("Invalid value for metrics port: " + metricsPort);
+    }
+    if (metricsHost == null || metricsHost.isEmpty()) {
+      throw new Exception("Invalid value for metrics host: " + metricsHost);
+    }
+    if (warcMaxFileSize <= 0) {
+      throw new Exception("Invalid value for max WARC file size: " + warcMaxFileSize);
+    }
+    if (warcCompressionLevel < -1 || warcCompressionLevel > 9) {
+      throw new Exception("Invalid value for WARC compression level: " + warcCompressionLevel);
+    }
+    if (nearDuplicateDistance < 0 || nearDuplicateDistance > 7) {
+      throw new Exception("Invalid value for near duplicate distance: " + nearDuplicateDistance);
+    }
+    if (nearDuplicateHostRatio < 0 || nearDuplicateHostRatio > 1) {
+      throw new Exception("Invalid value for near duplicate host ratio: " + nearDuplicateHostRatio);
+    }
+    if (warcWriteQueueSize < 1) {
+      throw new Exception("Invalid value for WARC write queue size: " + warcWriteQueueSize);
+    }
+    if (pipelinedCrawling) {
+      if (numberOfParserThreads < 1) {
+        throw new Exception("Invalid value for number of parser threads: " + numberOfParserThreads);
+      }
+      if (numberOfLinkResolverThreads < 1) {
+        throw new Exception("Invalid value for number of link resolver threads: " + numberOfLinkResolverThreads);
+      }
+      if (parseQueueSize < 1) {
+        throw new Exception("Invalid value for parse queue size: " + parseQueueSize);
+      }
+      if (linkBatchSize < 1) {
+        throw new Exception("Invalid value for link batch size: " + linkBatchSize);
+      }
+    }
   }
 
   public String getCrawlStorageFolder() {
@@ -439,6 +771,389 @@ public class CrawlConfig {
     this.authInfos = authInfos;
   }
 
+  public boolean isPipelinedCrawling() {
+    return pipelinedCrawling;
+  }
+
+  /**
+   * If this feature is enabled, crawler threads only fetch pages and hand
+   * them to pools of parser and link resolver threads, which parse them and
+   * call visit().
+   *
+   * @param pipelinedCrawling Should fetching and parsing run on separate threads ?
+   */
+  public void setPipelinedCrawling(boolean pipelinedCrawling) {
+    this.pipelinedCrawling = pipelinedCrawling;
+  }
+
+  public int getNumberOfParserThreads() {
+    return numberOfParserThreads;
+  }
+
+  /**
+   * @param numberOfParserThreads Number of parser threads used when pipelined crawling is enabled
+   */
+  public void setNumberOfParserThreads(int numberOfParserThreads) {
+    this.numberOfParserThreads = numberOfParserThreads;
+  }
+
+  public int getNumberOfLinkResolverThreads() {
+    return numberOfLinkResolverThreads;
+  }
+
+  /**
+   * @param numberOfLinkResolverThreads Number of threads resolving outgoing links when pipelined crawling is enabled
+   */
+  public void setNumberOfLinkResolverThreads(int numberOfLinkResolverThreads) {
+    this.numberOfLinkResolverThreads = numberOfLinkResolverThreads;
+  }
+
+  public int getParseQueueSize() {
+    return parseQueueSize;
+  }
+
+  /**
+   * @param parseQueueSize Maximum number of fetched pages waiting to be parsed
+   */
+  public void setParseQueueSize(int parseQueueSize) {
+    this.parseQueueSize = parseQueueSize;
+  }
+
+  public int getLinkBatchSize() {
+    return linkBatchSize;
+  }
+
+  /**
+   * @param linkBatchSize Maximum number of parsed pages whose links are written to the frontier together
+   */
+  public void setLinkBatchSize(int linkBatchSize) {
+    this.linkBatchSize = linkBatchSize;
+  }
+
+  public int getBinaryParseTimeout() {
+    return binaryParseTimeout;
+  }
+
+  /**
+   * @param binaryParseTimeout Maximum time in milliseconds for parsing one binary document
+   */
+  public void setBinaryParseTimeout(int binaryParseTimeout) {
+    this.binaryParseTimeout = binaryParseTimeout;
+  }
+
+  public int getMaxBinaryParseOutputSize() {
+    return maxBinaryParseOutputSize;
+  }
+
+  /**
+   * @param maxBinaryParseOutputSize Maximum number of characters of html produced from one binary document
+   */
+  public void setMaxBinaryParseOutputSize(int maxBinaryParseOutputSize) {
+    this.maxBinaryParseOutputSize = maxBinaryParseOutputSize;
+  }
+
+  public int getNumberOfBinaryParserThreads() {
+    return numberOfBinaryParserThreads;
+  }
+
+  /**
+   * @param numberOfBinaryParserThreads Number of threads used for parsing binary content
+   */
+  public void setNumberOfBinaryParserThreads(int numberOfBinaryParserThreads) {
+    this.numberOfBinaryParserThreads = numberOfBinaryParserThreads;
+  }
+
+  public boolean isCompactFrontierEncoding() {
+    return compactFrontierEncoding;
+  }
+
+  /**
+   * @param compactFrontierEncoding Should URLs be written to the frontier in the compact binary form?
+   */
+  public void setCompactFrontierEncoding(boolean compactFrontierEncoding) {
+    this.compactFrontierEncoding = compactFrontierEncoding;
+  }
+
+  public int getCountersCheckpointInterval() {
+    return countersCheckpointInterval;
+  }
+
+  /**
+   * @param countersCheckpointInterval Interval in milliseconds at which counters are written to disk
+   */
+  public void setCountersCheckpointInterval(int countersCheckpointInterval) {
+    this.countersCheckpointInterval = countersCheckpointInterval;
+  }
+
+  public boolean isCheckpointInProcessPages() {
+    return checkpointInProcessPages;
+  }
+
+  /**
+   * @param checkpointInProcessPages Should the pages being processed be kept in memory and written to disk in batches?
+   */
+  public void setCheckpointInProcessPages(boolean checkpointInProcessPages) {
+    this.checkpointInProcessPages = checkpointInProcessPages;
+  }
+
+  public int getInProcessPagesCheckpointInterval() {
+    return inProcessPagesCheckpointInterval;
+  }
+
+  /**
+   * @param inProcessPagesCheckpointInterval Interval in milliseconds at which processed pages are written to disk
+   */
+  public void setInProcessPagesCheckpointInterval(int inProcessPagesCheckpointInterval) {
+    this.inProcessPagesCheckpointInterval = inProcessPagesCheckpointInterval;
+  }
+
+  public int getLeaseTimeout() {
+    return leaseTimeout;
+  }
+
+  /**
+   * @param leaseTimeout Time in milliseconds after which URLs of a crawler that makes no progress are put back
+   *                     into the queue, 0 to disable leases
+   */
+  public void setLeaseTimeout(int leaseTimeout) {
+    this.leaseTimeout = leaseTimeout;
+  }
+
+  public boolean isAdaptiveBatchSizing() {
+    return adaptiveBatchSizing;
+  }
+
+  /**
+   * @param adaptiveBatchSizing Should crawlers adapt the number of URLs they take from the frontier at once?
+   */
+  public void setAdaptiveBatchSizing(boolean adaptiveBatchSizing) {
+    this.adaptiveBatchSizing = adaptiveBatchSizing;
+  }
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * @param maxBatchSize Maximum number of URLs a crawler takes from the frontier at once
+   */
+  public void setMaxBatchSize(int maxBatchSize) {
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public int getTargetBatchDuration() {
+    return targetBatchDuration;
+  }
+
+  /**
+   * @param targetBatchDuration Time in milliseconds a crawler should need to process one batch
+   */
+  public void setTargetBatchDuration(int targetBatchDuration) {
+    this.targetBatchDuration = targetBatchDuration;
+  }
+
+  public boolean isWorkStealing() {
+    return workStealing;
+  }
+
+  /**
+   * @param workStealing Should every crawler keep a local queue and steal URLs from other crawlers when idle?
+   */
+  public void setWorkStealing(boolean workStealing) {
+    this.workStealing = workStealing;
+  }
+
+  public int getLocalFlushSize() {
+    return localFlushSize;
+  }
+
+  /**
+   * @param localFlushSize Number of discovered URLs a crawler buffers before scheduling them in the frontier
+   */
+  public void setLocalFlushSize(int localFlushSize) {
+    this.localFlushSize = localFlushSize;
+  }
+
+  public int getHostAffinityGroups() {
+    return hostAffinityGroups;
+  }
+
+  /**
+   * @param hostAffinityGroups Number of groups of hosts which are served by fixed crawlers, at most 256,
+   *                           0 to disable host affinity
+   */
+  public void setHostAffinityGroups(int hostAffinityGroups) {
+    this.hostAffinityGroups = hostAffinityGroups;
+  }
+
+  public int getMaxTrackedHosts() {
+    return maxTrackedHosts;
+  }
+
+  /**
+   * @param maxTrackedHosts Maximum number of hosts with their own statistics, 0 to keep only totals
+   */
+  public void setMaxTrackedHosts(int maxTrackedHosts) {
+    this.maxTrackedHosts = maxTrackedHosts;
+  }
+
+  public boolean isStageLatencyHistograms() {
+    return stageLatencyHistograms;
+  }
+
+  /**
+   * @param stageLatencyHistograms Should the crawlers record how long each stage of processing a page takes?
+   */
+  public void setStageLatencyHistograms(boolean stageLatencyHistograms) {
+    this.stageLatencyHistograms = stageLatencyHistograms;
+  }
+
+  public boolean isJmxMetrics() {
+    return jmxMetrics;
+  }
+
+  /**
+   * @param jmxMetrics Should the metrics of the crawl be registered as an MBean?
+   */
+  public void setJmxMetrics(boolean jmxMetrics) {
+    this.jmxMetrics = jmxMetrics;
+  }
+
+  public int getMetricsPort() {
+    return metricsPort;
+  }
+
+  /**
+   * @param metricsPort Port of the HTTP endpoint serving the metrics in the Prometheus text format,
+   *                    0 to disable it
+   */
+  public void setMetricsPort(int metricsPort) {
+    this.metricsPort = metricsPort;
+  }
+
+  public String getMetricsHost() {
+    return metricsHost;
+  }
+
+  /**
+   * @param metricsHost Address the metrics endpoint listens on, 127.0.0.1 by default
+   */
+  public void setMetricsHost(String metricsHost) {
+    this.metricsHost = metricsHost;
+  }
+
+  public boolean isJfrEvents() {
+    return jfrEvents;
+  }
+
+  /**
+   * @param jfrEvents Should crawl operations be reported as Flight Recorder events while a recording runs?
+   */
+  public void setJfrEvents(boolean jfrEvents) {
+    this.jfrEvents = jfrEvents;
+  }
+
+  public String getWarcFolder() {
+    return warcFolder;
+  }
+
+  /**
+   * @param warcFolder Folder to write the WARC archive of the downloaded pages to, null to disable it
+   */
+  public void setWarcFolder(String warcFolder) {
+    this.warcFolder = warcFolder;
+  }
+
+  public long getWarcMaxFileSize() {
+    return warcMaxFileSize;
+  }
+
+  /**
+   * @param warcMaxFileSize Size in bytes after which the next WARC file is started
+   */
+  public void setWarcMaxFileSize(long warcMaxFileSize) {
+    this.warcMaxFileSize = warcMaxFileSize;
+  }
+
+  public int getWarcCompressionLevel() {
+    return warcCompressionLevel;
+  }
+
+  /**
+   * @param warcCompressionLevel Deflate level of the WARC records from 1 to 9, -1 for the default
+   */
+  public void setWarcCompressionLevel(int warcCompressionLevel) {
+    this.warcCompressionLevel = warcCompressionLevel;
+  }
+
+  public boolean isWarcAsyncWrite() {
+    return warcAsyncWrite;
+  }
+
+  /**
+   * @param warcAsyncWrite Should WARC files be written by a background thread of each crawler?
+   */
+  public void setWarcAsyncWrite(boolean warcAsyncWrite) {
+    this.warcAsyncWrite = warcAsyncWrite;
+  }
+
+  public boolean isDetectDuplicateContent() {
+    return detectDuplicateContent;
+  }
+
+  /**
+   * @param detectDuplicateContent Should pages whose content was already downloaded under another URL be skipped?
+   */
+  public void setDetectDuplicateContent(boolean detectDuplicateContent) {
+    this.detectDuplicateContent = detectDuplicateContent;
+  }
+
+  public boolean isDetectNearDuplicates() {
+    return detectNearDuplicates;
+  }
+
+  /**
+   * @param detectNearDuplicates Should html pages whose text is nearly the same as of a page crawled before be
+   *                             detected?
+   */
+  public void setDetectNearDuplicates(boolean detectNearDuplicates) {
+    this.detectNearDuplicates = detectNearDuplicates;
+  }
+
+  public int getNearDuplicateDistance() {
+    return nearDuplicateDistance;
+  }
+
+  /**
+   * @param nearDuplicateDistance Maximum number of differing SimHash bits of near duplicates, from 0 to 7
+   */
+  public void setNearDuplicateDistance(int nearDuplicateDistance) {
+    this.nearDuplicateDistance = nearDuplicateDistance;
+  }
+
+  public double getNearDuplicateHostRatio() {
+    return nearDuplicateHostRatio;
+  }
+
+  /**
+   * @param nearDuplicateHostRatio Fraction of near duplicates among the html pages of a host above which its
+   *                               new URLs get a lower priority
+   */
+  public void setNearDuplicateHostRatio(double nearDuplicateHostRatio) {
+    this.nearDuplicateHostRatio = nearDuplicateHostRatio;
+  }
+
+  public int getWarcWriteQueueSize() {
+    return warcWriteQueueSize;
+  }
+
+  /**
+   * @param warcWriteQueueSize Maximum number of WARC records waiting to be written by the background thread
+   */
+  public void setWarcWriteQueueSize(int warcWriteQueueSize) {
+    this.warcWriteQueueSize = warcWriteQueueSize;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
@@ -460,6 +1175,40 @@ public class CrawlConfig {
     sb.append("Proxy port: " + getProxyPort() + "\n");
     sb.append("Proxy username: " + getProxyUsername() + "\n");
     sb.append("Proxy password: " + getProxyPassword() + "\n");
+    sb.append("Binary parse timeout: " + getBinaryParseTimeout() + "\n");
+    sb.append("Max binary parse output size: " + getMaxBinaryParseOutputSize() + "\n");
+    sb.append("Number of binary parser threads: " + getNumberOfBinaryParserThreads() + "\n");
+    sb.append("Pipelined crawling: " + isPipelinedCrawling() + "\n");
+    sb.append("Number of parser threads: " + getNumberOfParserThreads() + "\n");
+    sb.append("Number of link resolver threads: " + getNumberOfLinkResolverThreads() + "\n");
+    sb.append("Parse queue size: " + getParseQueueSize() + "\n");
+    sb.append("Link batch size: " + getLinkBatchSize() + "\n");
+    sb.append("Compact frontier encoding: " + isCompactFrontierEncoding() + "\n");
+    sb.append("Counters checkpoint interval: " + getCountersCheckpointInterval() + "\n");
+    sb.append("Checkpoint in-process pages: " + isCheckpointInProcessPages() + "\n");
+    sb.append("In-process pages checkpoint interval: " + getInProcessPagesCheckpointInterval() + "\n");
+    sb.append("Lease timeout: " + getLeaseTimeout() + "\n");
+    sb.append("Adaptive batch sizing: " + isAdaptiveBatchSizing() + "\n");
+    sb.append("Max batch size: " + getMaxBatchSize() + "\n");
+    sb.append("Target batch duration: " + getTargetBatchDuration() + "\n");
+    sb.append("Work stealing: " + isWorkStealing() + "\n");
+    sb.append("Local flush size: " + getLocalFlushSize() + "\n");
+    sb.append("Host affinity groups: " + getHostAffinityGroups() + "\n");
+    sb.append("Max tracked hosts: " + getMaxTrackedHosts() + "\n");
+    sb.append("Stage latency histograms: " + isStageLatencyHistograms() + "\n");
+    sb.append("JMX metrics: " + isJmxMetrics() + "\n");
+    sb.append("Metrics port: " + getMetricsPort() + "\n");
+    sb.append("Metrics host: " + getMetricsHost() + "\n");
+    sb.append("JFR events: " + isJfrEvents() + "\n");
+    sb.append("WARC folder: " + getWarcFolder() + "\n");
+    sb.append("Max WARC file size: " + getWarcMaxFileSize() + "\n");
+    sb.append("WARC compression level: " + getWarcCompressionLevel() + "\n");
+    sb.append("Asynchronous WARC writes: " + isWarcAsyncWrite() + "\n");
+    sb.append("WARC write queue size: " + getWarcWriteQueueSize() + "\n");
+    sb.append("Detect duplicate content: " + isDetectDuplicateContent() + "\n");
+    sb.append("Detect near duplicates: " + isDetectNearDuplicates() + "\n");
+    sb.append("Near duplicate distance: " + getNearDuplicateDistance() + "\n");
+    sb.append("Near duplicate host ratio: " + getNearDuplicateHostRatio() + "\n");
     return sb.toString();
   }
 }
\ No newline at end of file
@@ -19,9 +19,20 @@ package edu.uci.ics.crawler4j.crawler;
 
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
+import com.sleepycat.je.StatsConfig;
+import edu.uci.ics.crawler4j.dedup.ContentHashStore;
+import edu.uci.ics.crawler4j.dedup.SimHashIndex;
 import edu.uci.ics.crawler4j.fetcher.PageFetcher;
+import edu.uci.ics.crawler4j.frontier.Counters.ReservedCounterNames;
 import edu.uci.ics.crawler4j.frontier.DocIDServer;
 import edu.uci.ics.crawler4j.frontier.Frontier;
+import edu.uci.ics.crawler4j.frontier.WorkStealingQueues;
+import edu.uci.ics.crawler4j.metrics.JfrCrawlEventListener;
+import edu.uci.ics.crawler4j.metrics.MetricsHttpServer;
+import edu.uci.ics.crawler4j.metrics.MetricsMBean;
+import edu.uci.ics.crawler4j.metrics.MetricsRegistry;
+import edu.uci.ics.crawler4j.metrics.MetricsRegistry.Type;
+import edu.uci.ics.crawler4j.parser.BinaryParseExecutor;
 import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer;
 import edu.uci.ics.crawler4j.url.URLCanonicalizer;
 import edu.uci.ics.crawler4j.url.WebURL;
@@ -29,9 +40,16 @@ import edu.uci.ics.crawler4j.util.IO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The controller that manages a crawling session. This class creates the
@@ -66,10 +84,42 @@ public class CrawlController extends Configurable {
    */
   protected boolean shuttingDown;
 
+  /**
+   * Number of crawler threads started for this crawling session.
+   */
+  protected int numberOfCrawlers;
+
   protected PageFetcher pageFetcher;
   protected RobotstxtServer robotstxtServer;
   protected Frontier frontier;
   protected DocIDServer docIdServer;
+  protected CrawlPipeline pipeline;
+  protected WorkStealingQueues workStealingQueues;
+  protected BinaryParseExecutor binaryParseExecutor;
+  protected ContentHashStore contentHashes;
+  protected SimHashIndex nearDuplicates;
+
+  /**
+   * The stage latency histograms of each crawler id. A crawler which is
+   * recreated after its thread died keeps recording into the same timings.
+   */
+  protected final Map<Integer, StageTimings> stageTimings = new ConcurrentHashMap<>();
+
+  /**
+   * The running crawler of each crawler id, used to count the crawlers which
+   * are waiting for URLs.
+   */
+  protected final Map<Integer, WebCrawler> crawlersById = new ConcurrentHashMap<>();
+
+  /**
+   * The metrics of this crawl, which are exposed by JMX and the metrics
+   * endpoint when they are enabled.
+   */
+  protected final MetricsRegistry metrics = new MetricsRegistry();
+  protected ObjectName metricsMBeanName;
+  protected MetricsHttpServer metricsHttpServer;
+  // registerMetrics()只在第一次开始爬取时调用
+  private boolean metricsRegistered = false;
 
   protected final Object waitingLock = new Object();
   protected final Environment env;
@@ -78,7 +128,7 @@ public class CrawlController extends Configurable {
     super(config);
 
     config.validate();
-    // 洢мļļĿ¼
+    // 创建存储中间文件的文件目录
     File folder = new File(config.getCrawlStorageFolder());
     if (!folder.exists()) {
       if (!folder.mkdirs()) {
@@ -95,7 +145,7 @@ public class CrawlController extends Configurable {
     envConfig.setTransactional(resumable);
     envConfig.setLocking(resumable);
 
-    // envļ·
+    // env文件存放路径
     File envHome = new File(config.getCrawlStorageFolder() + "/frontier");
     if (!envHome.exists()) {
       if (!envHome.mkdir()) {
@@ -105,7 +155,7 @@ public class CrawlController extends Configurable {
       }
     }
 
-    // envHome滷Ĵ洢resumableǷ񱣴Ŀ¼µļ
+    // envHome是爬虫环境变量的存储，resumable决定是否保存目录下的文件内容
     if (!resumable) {	
       IO.deleteFolderContents(envHome);
       logger.info("Deleted contents of: " + envHome + " ( as you have configured resumable crawling to false )");
@@ -114,14 +164,162 @@ public class CrawlController extends Configurable {
     env = new Environment(envHome, envConfig);
     docIdServer = new DocIDServer(env, config);
     frontier = new Frontier(env, config);
+    binaryParseExecutor = new BinaryParseExecutor(config);
+    if (config.isDetectDuplicateContent()) {
+      contentHashes = new ContentHashStore(config);
+    }
+    if (config.isDetectNearDuplicates()) {
+      nearDuplicates = new SimHashIndex(config);
+    }
 
     this.pageFetcher = pageFetcher;
     this.robotstxtServer = robotstxtServer;
+    frontier.setHostStats(pageFetcher.getHostStats());
 
     finished = false;
     shuttingDown = false;
   }
 
+  /**
+   * Registers the metrics of the crawl. It is called once when the crawl is
+   * first started, not from the constructor, so subclasses can override it
+   * to add their own metrics and use their own fields. Metrics can also be
+   * added to getMetrics() before the crawl starts.
+   */
+  // 注册爬取过程中的各项指标，只有在被读取时才会计算
+  protected void registerMetrics() {
+    metrics.register("pages_processed_total", Type.COUNTER, "Pages processed by the crawlers",
+        () -> frontier.getNumberOfProcessedPages());
+    metrics.registerRate("pages_per_second", "Pages processed per second",
+        () -> frontier.getNumberOfProcessedPages());
+    metrics.register("fetched_bytes_total", Type.COUNTER, "Bytes of page content downloaded",
+        () -> frontier.getCounters().getValue(ReservedCounterNames.FETCHED_BYTES));
+    metrics.registerRate("fetched_bytes_per_second", "Bytes of page content downloaded per second",
+        () -> frontier.getCounters().getValue(ReservedCounterNames.FETCHED_BYTES));
+    metrics.register("duplicate_pages_total", Type.COUNTER, "Pages skipped because their content was seen before",
+        () -> frontier.getCounters().getValue(ReservedCounterNames.DUPLICATE_PAGES));
+    metrics.register("near_duplicate_pages_total", Type.COUNTER, "Html pages whose text was nearly the same as of "
+        + "a page crawled before", () -> frontier.getCounters().getValue(ReservedCounterNames.NEAR_DUPLICATE_PAGES));
+    metrics.registerLabelled("responses_total", Type.COUNTER, "HTTP responses received per status code", "code",
+        () -> {
+          Map<String, Long> counts = new LinkedHashMap<>();
+          for (Map.Entry<Integer, Long> entry : pageFetcher.getStatusCodeCounts().entrySet()) {
+            counts.put(String.valueOf(entry.getKey()), entry.getValue());
+          }
+          return counts;
+        });
+
+    metrics.register("frontier_queue_length", Type.GAUGE, "URLs waiting in the frontier",
+        () -> frontier.getQueueLength());
+    metrics.register("frontier_in_process_pages", Type.GAUGE, "URLs handed out to crawlers and not yet processed",
+        () -> frontier.getNumberOfAssignedPages());
+    metrics.register("frontier_leased_pages", Type.GAUGE, "URLs whose lease has neither been released nor expired",
+        () -> frontier.getNumberOfLeasedPages());
+    metrics.register("parse_queue_length", Type.GAUGE, "Fetched pages waiting for a parser thread",
+        () -> pipeline == null ? 0 : pipeline.getParseQueueDepth());
+    metrics.register("resolve_queue_length", Type.GAUGE, "Parsed pages waiting for a link resolver thread",
+        () -> pipeline == null ? 0 : pipeline.getResolveQueueDepth());
+    metrics.register("schedule_queue_length", Type.GAUGE, "Parsed pages whose links wait to be scheduled",
+        () -> pipeline == null ? 0 : pipeline.getScheduleQueueDepth());
+    metrics.register("local_queue_length", Type.GAUGE, "URLs in the local queues of the crawlers",
+        () -> workStealingQueues == null ? 0 : workStealingQueues.getLocalLength());
+
+    metrics.register("crawlers", Type.GAUGE, "Crawler threads of the crawl", () -> numberOfCrawlers);
+    metrics.register("crawlers_waiting", Type.GAUGE, "Crawler threads waiting for URLs", () -> {
+      int waiting = 0;
+      for (WebCrawler crawler : crawlersById.values()) {
+        if (!crawler.isNotWaitingForNewURLs()) {
+          waiting++;
+        }
+      }
+      return waiting;
+    });
+    metrics.register("crawlers_active", Type.GAUGE, "Crawler threads processing pages", () -> {
+      int active = 0;
+      for (WebCrawler crawler : crawlersById.values()) {
+        if (crawler.isNotWaitingForNewURLs() && crawler.getThread() != null && crawler.getThread().isAlive()) {
+          active++;
+        }
+      }
+      return active;
+    });
+
+    final StatsConfig fastStats = new StatsConfig().setFast(true);
+    metrics.register("bdb_cache_bytes", Type.GAUGE, "Bytes used by the BDB cache",
+        () -> env.getStats(fastStats).getCacheTotalBytes());
+    metrics.register("bdb_cache_limit_bytes", Type.GAUGE, "Size of the BDB cache",
+        () -> env.getConfig().getCacheSize());
+    metrics.register("bdb_cache_misses_total", Type.COUNTER, "BDB cache misses",
+        () -> env.getStats(fastStats).getNCacheMiss());
+    metrics.register("bdb_nodes_evicted_total", Type.COUNTER, "BDB tree nodes evicted from the cache",
+        () -> env.getStats(fastStats).getNNodesEvicted());
+
+    metrics.register("connections_leased", Type.GAUGE, "Pooled HTTP connections in use",
+        () -> pageFetcher.getConnectionPoolStats().getLeased());
+    metrics.register("connections_available", Type.GAUGE, "Idle pooled HTTP connections",
+        () -> pageFetcher.getConnectionPoolStats().getAvailable());
+    metrics.register("connections_pending", Type.GAUGE, "Requests waiting for a pooled HTTP connection",
+        () -> pageFetcher.getConnectionPoolStats().getPending());
+    metrics.register("connections_max", Type.GAUGE, "Maximum number of pooled HTTP connections",
+        () -> pageFetcher.getConnectionPoolStats().getMax());
+
+    metrics.register("robots_cache_hits_total", Type.COUNTER, "Robots checks answered from the cache",
+        () -> robotstxtServer.getCacheHits());
+    metrics.register("robots_cache_misses_total", Type.COUNTER, "Robots checks which fetched robots.txt",
+        () -> robotstxtServer.getCacheMisses());
+    metrics.register("robots_cache_hit_ratio", Type.GAUGE, "Fraction of robots checks answered from the cache", () -> {
+      long hits = robotstxtServer.getCacheHits();
+      long total = hits + robotstxtServer.getCacheMisses();
+      return total == 0 ? 0.0 : (double) hits / total;
+    });
+  }
+
+  // 根据配置注册JMX MBean、启动指标的HTTP服务并监听JFR录制
+  private synchronized void startMetrics() {
+    if (!metricsRegistered) {
+      registerMetrics();
+      metricsRegistered = true;
+    }
+    if (config.isJmxMetrics()) {
+      try {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("edu.uci.ics.crawler4j:type=CrawlMetrics,name="
+            + ObjectName.quote(config.getCrawlStorageFolder()));
+        server.registerMBean(new MetricsMBean(metrics), name);
+        metricsMBeanName = name;
+      } catch (Exception e) {
+        logger.warn("Could not register the metrics MBean: {}", e.getMessage());
+      }
+    }
+    if (config.getMetricsPort() > 0) {
+      try {
+        metricsHttpServer = new MetricsHttpServer(metrics, config.getMetricsHost(), config.getMetricsPort());
+      } catch (Exception e) {
+        logger.warn("Could not start the metrics endpoint on {}:{}: {}", config.getMetricsHost(),
+            config.getMetricsPort(), e.getMessage());
+      }
+    }
+    if (config.isJfrEvents()) {
+      JfrCrawlEventListener.install();
+    }
+  }
+
+  // 指标的HTTP服务的线程不是守护线程，爬取以任何方式结束时都要调用
+  private synchronized void stopMetrics() {
+    if (metricsMBeanName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsMBeanName);
+      } catch (Exception e) {
+        logger.debug("Could not unregister the metrics MBean: {}", e.getMessage());
+      }
+      metricsMBeanName = null;
+    }
+    if (metricsHttpServer != null) {
+      metricsHttpServer.stop();
+      metricsHttpServer = null;
+    }
+  }
+
   /**
    * Start the crawling session and wait for it to finish.
    *
@@ -153,15 +351,30 @@ public class CrawlController extends Configurable {
   protected <T extends WebCrawler> void start(final Class<T> _c, final int numberOfCrawlers, boolean isBlocking) {
     try {
       finished = false;
+      this.numberOfCrawlers = numberOfCrawlers;
       crawlersLocalData.clear();
+      stageTimings.clear();
+      crawlersById.clear();
       final List<Thread> threads = new ArrayList<>();
       final List<T> crawlers = new ArrayList<>();
 
+      if (config.isPipelinedCrawling()) {
+        pipeline = new CrawlPipeline(config, frontier, binaryParseExecutor);
+        pipeline.start();
+      }
+
+      if (config.isWorkStealing()) {
+        workStealingQueues = new WorkStealingQueues(config, frontier);
+      }
+
+      startMetrics();
+
       for (int i = 1; i <= numberOfCrawlers; i++) {
         T crawler = _c.newInstance();
         Thread thread = new Thread(crawler, "Crawler " + i);
         crawler.setThread(thread);
         crawler.init(i, this);
+        crawlersById.put(i, crawler);
         thread.start();
         crawlers.add(crawler);
         threads.add(thread);
@@ -191,6 +404,7 @@ public class CrawlController extends Configurable {
                       threads.add(i, thread);
                       crawler.setThread(thread);
                       crawler.init(i + 1, controller);
+                      crawlersById.put(i + 1, crawler);
                       thread.start();
                       crawlers.remove(i);
                       crawlers.add(i, crawler);
@@ -199,6 +413,13 @@ public class CrawlController extends Configurable {
                     someoneIsWorking = true;
                   }
                 }
+                if (pipeline != null && !pipeline.isIdle()) {
+                  someoneIsWorking = true;
+                }
+                // Leased URLs of a dead crawler are put back into the queue once their lease expires
+                if (!shuttingDown && frontier.getNumberOfLeasedPages() > 0) {
+                  someoneIsWorking = true;
+                }
                 if (!someoneIsWorking) {
                   // Make sure again that none of the threads are alive.
                   logger.info("It looks like no thread is working, waiting for 10 seconds to make sure...");
@@ -211,6 +432,12 @@ public class CrawlController extends Configurable {
                       someoneIsWorking = true;
                     }
                   }
+                  if (pipeline != null && !pipeline.isIdle()) {
+                    someoneIsWorking = true;
+                  }
+                  if (!shuttingDown && frontier.getNumberOfLeasedPages() > 0) {
+                    someoneIsWorking = true;
+                  }
                   if (!someoneIsWorking) {
                     if (!shuttingDown) {
                       long queueLength = frontier.getQueueLength();
@@ -236,9 +463,14 @@ public class CrawlController extends Configurable {
                     logger.info("Waiting for 10 seconds before final clean up...");
                     sleep(10);
 
+                    if (pipeline != null) {
+                      pipeline.finish();
+                    }
                     frontier.close();
                     docIdServer.close();
                     pageFetcher.shutDown();
+                    binaryParseExecutor.shutdown();
+                    stopMetrics();
 
                     finished = true;
                     waitingLock.notifyAll();
@@ -251,6 +483,8 @@ public class CrawlController extends Configurable {
             }
           } catch (Exception e) {
             logger.error("Unexpected Error", e);
+          } finally {
+            stopMetrics();
           }
         }
       });
@@ -263,6 +497,7 @@ public class CrawlController extends Configurable {
 
     } catch (Exception e) {
       logger.error("Error happened", e);
+      stopMetrics();
     }
   }
 
@@ -393,6 +628,49 @@ public class CrawlController extends Configurable {
     }
   }
 
+  /**
+   * @return number of crawler threads started for this crawling session
+   */
+  public int getNumberOfCrawlers() {
+    return numberOfCrawlers;
+  }
+
+  /**
+   * @return the timings which the crawler with the given id records into
+   */
+  StageTimings getStageTimingsOf(int crawlerId) {
+    return stageTimings.computeIfAbsent(crawlerId, id -> new StageTimings(config));
+  }
+
+  /**
+   * @return a snapshot of the stage latency histograms of each crawler, by crawler id
+   */
+  public Map<Integer, StageTimings> getCrawlerStageTimings() {
+    Map<Integer, StageTimings> snapshot = new TreeMap<>();
+    for (Map.Entry<Integer, StageTimings> entry : stageTimings.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().copy());
+    }
+    return snapshot;
+  }
+
+  /**
+   * @return a snapshot of the stage latency histograms of all crawlers together
+   */
+  public StageTimings getStageTimings() {
+    StageTimings total = new StageTimings(config);
+    for (StageTimings timings : stageTimings.values()) {
+      total.add(timings);
+    }
+    return total;
+  }
+
+  /**
+   * @return the metrics of this crawl
+   */
+  public MetricsRegistry getMetrics() {
+    return metrics;
+  }
+
   public PageFetcher getPageFetcher() {
     return pageFetcher;
   }
@@ -417,6 +695,38 @@ public class CrawlController extends Configurable {
     this.frontier = frontier;
   }
 
+  /**
+   * @return the pipeline that parses fetched pages, or null if pipelined crawling is disabled
+   */
+  public CrawlPipeline getPipeline() {
+    return pipeline;
+  }
+
+  /**
+   * @return the local queues of the crawler threads, or null if work stealing is disabled
+   */
+  public WorkStealingQueues getWorkStealingQueues() {
+    return workStealingQueues;
+  }
+
+  public BinaryParseExecutor getBinaryParseExecutor() {
+    return binaryParseExecutor;
+  }
+
+  /**
+   * @return the hashes of the downloaded contents, or null if duplicate content is not detected
+   */
+  public ContentHashStore getContentHashes() {
+    return contentHashes;
+  }
+
+  /**
+   * @return the SimHash index of the crawled html pages, or null if near duplicates are not detected
+   */
+  public SimHashIndex getNearDuplicates() {
+    return nearDuplicates;
+  }
+
   public DocIDServer getDocIdServer() {
     return docIdServer;
   }
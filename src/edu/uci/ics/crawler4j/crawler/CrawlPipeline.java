@@ -0,0 +1,340 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.crawler;
+
+import edu.uci.ics.crawler4j.crawler.exceptions.ParseException;
+import edu.uci.ics.crawler4j.frontier.Frontier;
+import edu.uci.ics.crawler4j.parser.BinaryParseExecutor;
+import edu.uci.ics.crawler4j.parser.NotAllowedContentException;
+import edu.uci.ics.crawler4j.parser.Parser;
+import edu.uci.ics.crawler4j.url.WebURL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits the processing of pages into four stages which run on their own
+ * threads: the crawler threads fetch pages and push them into a bounded
+ * queue, a pool of parser threads parses them, a pool of link resolver
+ * threads looks up the docids and robots.txt rules of the outgoing links and
+ * calls visit(), and a single scheduler thread writes the outgoing links to
+ * the frontier in batches. This way CPU heavy parsing does not hold a
+ * network slot, and neither slow hosts nor robots.txt fetches hold a CPU
+ * slot.
+ *
+ * The visit(), shouldVisit() and onParseError() methods of a crawler
+ * instance are never called concurrently, but they may be called from a
+ * pipeline thread instead of the crawler's own thread.
+ */
+public class CrawlPipeline extends Configurable {
+
+  protected static final Logger logger = LoggerFactory.getLogger(CrawlPipeline.class);
+
+  private static final FetchedPage POISON = new FetchedPage(null, null, null);
+
+  // 已下载、等待解析的页面
+  private static class FetchedPage {
+    final WebCrawler crawler;
+    final WebURL url;
+    final Page page;
+
+    FetchedPage(WebCrawler crawler, WebURL url, Page page) {
+      this.crawler = crawler;
+      this.url = url;
+      this.page = page;
+    }
+  }
+
+  // 已解析、外链等待写入frontier的页面
+  private static class ParsedPage {
+    final WebURL url;
+    final List<WebURL> outgoingUrls;
+
+    ParsedPage(WebURL url, List<WebURL> outgoingUrls) {
+      this.url = url;
+      this.outgoingUrls = outgoingUrls;
+    }
+  }
+
+  protected final Frontier frontier;
+  protected final BinaryParseExecutor binaryParseExecutor;
+
+  private final BlockingQueue<FetchedPage> parseQueue;
+  private final BlockingQueue<ParsedPage> scheduleQueue = new LinkedBlockingQueue<>();
+
+  private final List<Thread> parserThreads = new ArrayList<>();
+  private ThreadPoolExecutor linkResolver;
+  private Thread schedulerThread;
+
+  // 已经进入pipeline但还没有被标记为processed的页面数
+  private final AtomicInteger pagesInFlight = new AtomicInteger();
+
+  private volatile boolean finished = false;
+
+  public CrawlPipeline(CrawlConfig config, Frontier frontier, BinaryParseExecutor binaryParseExecutor) {
+    super(config);
+    this.frontier = frontier;
+    this.binaryParseExecutor = binaryParseExecutor;
+    this.parseQueue = new ArrayBlockingQueue<>(config.getParseQueueSize());
+  }
+
+  public void start() {
+    for (int i = 1; i <= config.getNumberOfParserThreads(); i++) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          parseLoop();
+        }
+      }, "Parser " + i);
+      thread.setDaemon(true);
+      thread.start();
+      parserThreads.add(thread);
+    }
+
+    // 队列满时解析线程等待，使解析不会远远领先于外链解析
+    final AtomicInteger resolverCount = new AtomicInteger();
+    int resolverThreads = config.getNumberOfLinkResolverThreads();
+    linkResolver = new ThreadPoolExecutor(resolverThreads, resolverThreads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(config.getParseQueueSize()), new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Link resolver " + resolverCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        }, new RejectedExecutionHandler() {
+          @Override
+          public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            try {
+              executor.getQueue().put(task);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              task.run();
+            }
+          }
+        });
+
+    schedulerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        scheduleLoop();
+      }
+    }, "Link scheduler");
+    schedulerThread.setDaemon(true);
+    schedulerThread.start();
+    logger.info("Pipeline started with {} parser threads and {} link resolver threads", parserThreads.size(),
+        resolverThreads);
+  }
+
+  /**
+   * Hands a fetched page over to the parser threads. Blocks while the parse
+   * queue is full, so fetching can never run far ahead of parsing.
+   */
+  void submit(WebCrawler crawler, WebURL url, Page page) throws InterruptedException {
+    pagesInFlight.incrementAndGet();
+    try {
+      parseQueue.put(new FetchedPage(crawler, url, page));
+    } catch (InterruptedException e) {
+      pagesInFlight.decrementAndGet();
+      throw e;
+    }
+  }
+
+  private void parseLoop() {
+    Parser parser = new Parser(config, binaryParseExecutor);
+    while (true) {
+      FetchedPage fetched;
+      try {
+        fetched = parseQueue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (fetched == POISON) {
+        return;
+      }
+
+      final FetchedPage parsed = fetched;
+      try {
+        long start = System.nanoTime();
+        try {
+          parser.parse(fetched.page, fetched.url.getURL());
+        } finally {
+          fetched.crawler.getTimings().lap(StageTimings.Stage.PARSE, start);
+        }
+        linkResolver.execute(new Runnable() {
+          @Override
+          public void run() {
+            resolveLinks(parsed);
+          }
+        });
+        continue;
+      } catch (ParseException pe) {
+        synchronized (fetched.crawler) {
+          fetched.crawler.onParseError(fetched.url);
+        }
+      } catch (NotAllowedContentException nace) {
+        logger.debug("Skipping: {} as it contains binary content which you configured not to crawl",
+            fetched.url.getURL());
+      } catch (Exception e) {
+        logger.error("{}, while processing: {}", e.getMessage(), fetched.url.getURL());
+        logger.debug("Stacktrace", e);
+      }
+      scheduleQueue.add(new ParsedPage(fetched.url, Collections.<WebURL>emptyList()));
+    }
+  }
+
+  // 查找外链的docid和robots.txt规则并调用visit()，在外链解析线程中运行
+  private void resolveLinks(FetchedPage fetched) {
+    List<WebURL> outgoingUrls = Collections.emptyList();
+    try {
+      outgoingUrls = fetched.crawler.visitParsedPage(fetched.url, fetched.page);
+    } catch (Exception e) {
+      logger.error("{}, while processing: {}", e.getMessage(), fetched.url.getURL());
+      logger.debug("Stacktrace", e);
+    } finally {
+      scheduleQueue.add(new ParsedPage(fetched.url, outgoingUrls));
+    }
+  }
+
+  private void scheduleLoop() {
+    int batchSize = config.getLinkBatchSize();
+    List<ParsedPage> batch = new ArrayList<>(batchSize);
+    List<WebURL> toSchedule = new ArrayList<>();
+    while (true) {
+      try {
+        batch.add(scheduleQueue.take());
+      } catch (InterruptedException e) {
+        return;
+      }
+      scheduleQueue.drainTo(batch, batchSize - 1);
+
+      for (ParsedPage parsed : batch) {
+        toSchedule.addAll(parsed.outgoingUrls);
+      }
+      try {
+        if (!toSchedule.isEmpty()) {
+          frontier.scheduleAll(toSchedule);
+        }
+      } catch (Exception e) {
+        logger.error("Error while scheduling outgoing urls", e);
+      } finally {
+        // Pages are marked as processed only after their links are in the frontier,
+        // and even if scheduling failed, so that they do not stay in process forever
+        for (ParsedPage parsed : batch) {
+          try {
+            frontier.setProcessed(parsed.url);
+          } catch (Exception e) {
+            logger.error("Error while marking {} as processed", parsed.url.getURL(), e);
+          }
+        }
+        pagesInFlight.addAndGet(-batch.size());
+        batch.clear();
+        toSchedule.clear();
+      }
+    }
+  }
+
+  /**
+   * @return true if no fetched page is waiting to be parsed or to have its links scheduled
+   */
+  public boolean isIdle() {
+    return pagesInFlight.get() == 0;
+  }
+
+  /**
+   * @return number of pages waiting in the frontier to be fetched
+   */
+  public long getFetchQueueDepth() {
+    return frontier.getQueueLength();
+  }
+
+  /**
+   * @return number of fetched pages waiting to be parsed
+   */
+  public int getParseQueueDepth() {
+    return parseQueue.size();
+  }
+
+  /**
+   * @return number of parsed pages waiting for a link resolver thread
+   */
+  public int getResolveQueueDepth() {
+    return linkResolver == null ? 0 : linkResolver.getQueue().size();
+  }
+
+  /**
+   * @return number of parsed pages whose links are waiting to be written to the frontier
+   */
+  public int getScheduleQueueDepth() {
+    return scheduleQueue.size();
+  }
+
+  /**
+   * Stops the parser, link resolver and scheduler threads once the pages
+   * already in the pipeline are done.
+   */
+  public void finish() {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    for (int i = 0; i < parserThreads.size(); i++) {
+      try {
+        parseQueue.put(POISON);
+      } catch (InterruptedException e) {
+        logger.error("Error occurred", e);
+      }
+    }
+    for (Thread thread : parserThreads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        logger.error("Error occurred", e);
+      }
+    }
+    if (linkResolver != null) {
+      linkResolver.shutdown();
+      try {
+        linkResolver.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        logger.error("Error occurred", e);
+      }
+    }
+    while (!isIdle()) {
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        break;
+      }
+    }
+    if (schedulerThread != null) {
+      schedulerThread.interrupt();
+    }
+  }
+}
@@ -7,6 +7,7 @@ import org.apache.http.HttpEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.util.EntityUtils;
 
+import edu.uci.ics.crawler4j.parser.HtmlParseData;
 import edu.uci.ics.crawler4j.parser.ParseData;
 import edu.uci.ics.crawler4j.url.WebURL;
 
@@ -15,76 +16,76 @@ import edu.uci.ics.crawler4j.url.WebURL;
  *
  * @author Yasser Ganjisaffar [lastname at gmail dot com]
  */
-// webҳ
+// 用来描述web页面的类
 public class Page {
 
   /**
    * The URL of this page.
    */
-  // ǰҳurl
+  // 当前页面的url
   protected WebURL url;
 
   /**
   * Redirection flag
   */
-  // ǰҳǷض
+  // 当前页面是否重定向
   protected boolean redirect;
 
   /**
    * The URL to which this page will be redirected to
    */
-  // ضurl
+  // 重定向的url
   protected String redirectedToUrl;
 
   /**
   * Status of the page
   */
-  // ǰҳ״̬
+  // 当前页面的状态码
   protected int statusCode;
 
   /**
    * The content of this page in binary format.
    */
-  // Ƹʽҳ
+  // 二进制格式的页面内容
   protected byte[] contentData;
 
   /**
    * The ContentType of this page.
    * For example: "text/html; charset=UTF-8"
    */
-  // ǰҳcontentType
+  // 当前页面的contentType
   protected String contentType;
 
   /**
    * The encoding of the content.
    * For example: "gzip"
    */
-  // ǰҳı뷽ʽ
+  // 当前页面的编码方式
   protected String contentEncoding;
 
   /**
    * The charset of the content.
    * For example: "UTF-8"
    */
-  // ҳݵַ
+  // 页面内容的字符集
   protected String contentCharset;
 
   /**
   * Language of the Content.
   */
-  // ҳݵlanguage
+  // 页面内容的language
   private String language;
 
   /**
    * Headers which were present in the response of the fetch request
    */
-  // ǰҳresponseеheader
+  // 当前页面response中的header集合
   protected Header[] fetchResponseHeaders;
 
   /**
    * The parsed data populated by parsers
    */
-  // ʹparserҳ
+  // 使用parser翻译过后的页面
   protected ParseData parseData;
 
 
@@ -98,7 +99,7 @@ public class Page {
    * @param entity HttpEntity
    * @throws Exception when load fails
    */
-  // ͨhttpclientյentity
+  // 解析通过httpclient包收到的entity
   public void load(HttpEntity entity) throws Exception {
 
     contentType = null;
@@ -225,9 +226,13 @@ public class Page {
   }
 
   /**
-   * @return Language
+   * @return Language. For html pages it is identified from the body text
+   * the first time it is asked for.
    */
   public String getLanguage() {
+    if (language == null && parseData instanceof HtmlParseData) {
+      language = ((HtmlParseData) parseData).getLanguage();
+    }
     return language;
   }
 
@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.crawler;
+
+import edu.uci.ics.crawler4j.util.LatencyHistogram;
+
+/**
+ * Latency histograms of the stages a page goes through in a crawler, one
+ * value per page and stage. Stages which run several times for one page,
+ * like the docid lookups and robots checks of its outgoing links, are
+ * summed up per page.
+ *
+ * When pipelined crawling is enabled, parse is recorded by the parser
+ * threads, and docid, robots, shouldVisit and visit by the link resolver
+ * threads, all into the timings of the crawler which fetched the page; the
+ * frontier writes of the pipeline are batched over the pages of many
+ * crawlers and are not recorded.
+ */
+// 每个爬虫线程处理页面时各个阶段的耗时分布
+public class StageTimings extends Configurable {
+
+  /**
+   * The stages of processing a page.
+   */
+  public enum Stage {
+    /** Waiting for the politeness delay before the request. */
+    POLITENESS_WAIT,
+    /** Sending the request and receiving the status line and headers. */
+    FETCH,
+    /** Downloading the body. */
+    DOWNLOAD,
+    /** Writing the request and response to the WARC archive. */
+    ARCHIVE,
+    /** Looking up the hash of the content among the contents seen before. */
+    DUPLICATE_CHECK,
+    /** Parsing the body. */
+    PARSE,
+    /** Computing the SimHash of the text and looking for near duplicates. */
+    NEAR_DUPLICATE_CHECK,
+    /** Looking up and assigning docids. */
+    DOCID,
+    /** Checking robots.txt, including fetching it for new hosts. */
+    ROBOTS,
+    /** The user's shouldVisit. */
+    SHOULD_VISIT,
+    /** The user's visit. */
+    VISIT,
+    /** Writing the outgoing links to the frontier or the local queue. */
+    SCHEDULE,
+    /** The whole of processing a page in the crawler thread. */
+    TOTAL
+  }
+
+  private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+
+  public StageTimings(CrawlConfig config) {
+    super(config);
+    for (int i = 0; i < histograms.length; i++) {
+      histograms[i] = new LatencyHistogram();
+    }
+  }
+
+  /**
+   * @return true if stage latencies are recorded
+   */
+  public boolean isEnabled() {
+    return config.isStageLatencyHistograms();
+  }
+
+  /**
+   * Records the time from start until now as one value of the stage.
+   *
+   * @param start the System.nanoTime() at which the stage started
+   * @return now, which can be passed as start of the next stage
+   */
+  public long lap(Stage stage, long start) {
+    if (!config.isStageLatencyHistograms()) {
+      return start;
+    }
+    long now = System.nanoTime();
+    histograms[stage.ordinal()].record(now - start);
+    return now;
+  }
+
+  /**
+   * Records one value of the stage.
+   */
+  public void record(Stage stage, long nanos) {
+    if (config.isStageLatencyHistograms()) {
+      histograms[stage.ordinal()].record(nanos);
+    }
+  }
+
+  /**
+   * @return the histogram of the stage
+   */
+  public LatencyHistogram get(Stage stage) {
+    return histograms[stage.ordinal()];
+  }
+
+  /**
+   * Adds the values of other timings to these.
+   */
+  public void add(StageTimings other) {
+    for (int i = 0; i < histograms.length; i++) {
+      histograms[i].add(other.histograms[i]);
+    }
+  }
+
+  /**
+   * @return a copy of these timings which is not changed by later records
+   */
+  public StageTimings copy() {
+    StageTimings copy = new StageTimings(config);
+    copy.add(this);
+    return copy;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (Stage stage : Stage.values()) {
+      sb.append(String.format("%-22s", stage)).append(get(stage)).append('\n');
+    }
+    return sb.toString();
+  }
+}
@@ -17,19 +17,29 @@
 
 package edu.uci.ics.crawler4j.crawler;
 
+import edu.uci.ics.crawler4j.crawler.StageTimings.Stage;
 import edu.uci.ics.crawler4j.crawler.exceptions.ContentFetchException;
 import edu.uci.ics.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
 import edu.uci.ics.crawler4j.crawler.exceptions.ParseException;
 import edu.uci.ics.crawler4j.crawler.exceptions.RedirectException;
+import edu.uci.ics.crawler4j.dedup.ContentHashStore;
+import edu.uci.ics.crawler4j.dedup.SimHash;
+import edu.uci.ics.crawler4j.dedup.SimHashIndex;
+import edu.uci.ics.crawler4j.fetcher.HostStatsTable;
 import edu.uci.ics.crawler4j.fetcher.PageFetchResult;
 import edu.uci.ics.crawler4j.fetcher.PageFetcher;
+import edu.uci.ics.crawler4j.frontier.Counters;
+import edu.uci.ics.crawler4j.frontier.Counters.ReservedCounterNames;
 import edu.uci.ics.crawler4j.frontier.DocIDServer;
 import edu.uci.ics.crawler4j.frontier.Frontier;
+import edu.uci.ics.crawler4j.frontier.WorkStealingQueues;
+import edu.uci.ics.crawler4j.parser.HtmlParseData;
 import edu.uci.ics.crawler4j.parser.NotAllowedContentException;
 import edu.uci.ics.crawler4j.parser.ParseData;
 import edu.uci.ics.crawler4j.parser.Parser;
 import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer;
 import edu.uci.ics.crawler4j.url.WebURL;
+import edu.uci.ics.crawler4j.warc.WarcWriter;
 
 import org.apache.http.HttpStatus;
 
@@ -42,6 +52,7 @@ import uk.org.lidalia.slf4jext.Logger;
 import uk.org.lidalia.slf4jext.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
@@ -54,6 +65,11 @@ public class WebCrawler implements Runnable {
 
   protected static final Logger logger = LoggerFactory.getLogger(WebCrawler.class);
 
+  /**
+   * Number of html pages of a host checked before its share of near duplicates can lower the priority of its URLs.
+   */
+  private static final int MIN_NEAR_DUPLICATE_SAMPLES = 20;
+
   /**
    * The id associated to the crawler thread running this instance
    */
@@ -103,7 +119,49 @@ public class WebCrawler implements Runnable {
    * instances are waiting for new URLs and therefore there is no more work
    * and crawling can be stopped.
    */
-  private boolean isWaitingForNewURLs;
+  private volatile boolean isWaitingForNewURLs;
+
+  /**
+   * The pipeline that parses fetched pages when pipelined crawling is
+   * enabled, or null when this crawler processes its pages by itself.
+   */
+  private CrawlPipeline pipeline;
+
+  /**
+   * Chooses how many URLs this crawler takes from the frontier at once.
+   */
+  private BatchSizer batchSizer;
+
+  /**
+   * The local queue of this crawler when work stealing is enabled, or null.
+   */
+  private WorkStealingQueues.Worker worker;
+  private WorkStealingQueues workStealingQueues;
+
+  /**
+   * The latency histograms of the stages of processing a page.
+   */
+  private StageTimings timings;
+
+  /**
+   * The per host statistics of the page fetcher.
+   */
+  private HostStatsTable hostStats;
+
+  /**
+   * The writer of the WARC files of this crawler, or null if no archive is written.
+   */
+  private WarcWriter warcWriter;
+
+  /**
+   * The hashes of the contents downloaded so far, or null if duplicate content is not detected.
+   */
+  private ContentHashStore contentHashes;
+
+  /**
+   * The SimHash index of the crawled html pages, or null if near duplicates are not detected.
+   */
+  private SimHashIndex nearDuplicates;
 
   /**
    * Initializes the current instance of the crawler
@@ -119,8 +177,21 @@ public class WebCrawler implements Runnable {
     this.robotstxtServer = crawlController.getRobotstxtServer();
     this.docIdServer = crawlController.getDocIdServer();
     this.frontier = crawlController.getFrontier();
-    this.parser = new Parser(crawlController.getConfig());
+    this.parser = new Parser(crawlController.getConfig(), crawlController.getBinaryParseExecutor());
     this.myController = crawlController;
+    this.pipeline = crawlController.getPipeline();
+    this.batchSizer = new BatchSizer(crawlController.getConfig());
+    this.timings = crawlController.getStageTimingsOf(id);
+    this.hostStats = pageFetcher.getHostStats();
+    this.contentHashes = crawlController.getContentHashes();
+    this.nearDuplicates = crawlController.getNearDuplicates();
+    if (crawlController.getConfig().getWarcFolder() != null) {
+      this.warcWriter = new WarcWriter(crawlController.getConfig(), "crawler" + id);
+    }
+    this.workStealingQueues = crawlController.getWorkStealingQueues();
+    if (workStealingQueues != null) {
+      this.worker = workStealingQueues.register(id);
+    }
     this.isWaitingForNewURLs = false;
   }
 
@@ -217,6 +288,35 @@ public class WebCrawler implements Runnable {
     // Sub-classed can override this to add their custom functionality
   }
 
+  /**
+   * This function is called instead of parsing and visiting a page when
+   * duplicate content detection is enabled and the same content was already
+   * downloaded under another URL. The links of the page are not followed.
+   *
+   * @param page the downloaded page, which is not parsed
+   * @param originalDocid docid of the first page that had this content
+   */
+  protected void onDuplicateContent(Page page, int originalDocid) {
+    logger.debug("Skipping: {} as its content is the same as of docid {}", page.getWebURL().getURL(), originalDocid);
+    // Do nothing by default (except basic logging)
+    // Sub-classed can override this to add their custom functionality
+  }
+
+  /**
+   * This function is called instead of visit when near duplicate detection is
+   * enabled and the text of an html page is nearly the same as the text of a
+   * page crawled before. The links of the page are still followed.
+   *
+   * @param page the parsed page
+   * @param originalDocid docid of the page crawled before
+   * @param distance number of bits in which the SimHashes of the two pages differ
+   */
+  protected void onNearDuplicateContent(Page page, int originalDocid, int distance) {
+    logger.debug("Not visiting: {} as it is a near duplicate of docid {}", page.getWebURL().getURL(), originalDocid);
+    // Do nothing by default (except basic logging)
+    // Sub-classed can override this to add their custom functionality
+  }
+
   /**
    * This function is called if there has been an error in parsing the content.
    *
@@ -243,26 +343,54 @@ public class WebCrawler implements Runnable {
 
   public void run() {
     onStart();
+    try {
+      if (worker != null) {
+        try {
+          runWithWorkStealing();
+        } finally {
+          workStealingQueues.unregister(worker);
+        }
+      } else {
+        runWithFrontier();
+      }
+    } finally {
+      if (warcWriter != null) {
+        warcWriter.close();
+      }
+    }
+  }
+
+  // 每次从frontier批量获取url并逐个处理
+  private void runWithFrontier() {
+    Counters counters = frontier.getCounters();
     while (true) {
-      List<WebURL> assignedURLs = new ArrayList<>(50);
+      int batchSize = batchSizer.nextBatchSize(frontier.getQueueLength(), myController.getNumberOfCrawlers());
+      List<WebURL> assignedURLs = new ArrayList<>(batchSize);
+      long idleStart = System.currentTimeMillis();
       isWaitingForNewURLs = true;
-      frontier.getNextURLs(50, assignedURLs);
+      frontier.getNextURLs(batchSize, assignedURLs, -1, myId);
       isWaitingForNewURLs = false;
+      counters.increment(ReservedCounterNames.CRAWLER_IDLE_MILLIS, System.currentTimeMillis() - idleStart);
+      // getNextURLs blocks until URLs are available, so nothing is returned only when the crawl is finished
       if (assignedURLs.size() == 0) {
         if (frontier.isFinished()) {
           return;
         }
-        try {
-          Thread.sleep(3000);
-        } catch (InterruptedException e) {
-          logger.error("Error occurred", e);
-        }
       } else {
+        counters.increment(ReservedCounterNames.URL_BATCHES);
+        counters.increment(ReservedCounterNames.BATCHED_URLS, assignedURLs.size());
         for (WebURL curURL : assignedURLs) {
           if (curURL != null) {
+            if (!frontier.renewLease(curURL)) {
+              logger.debug("Skipping: {} as its lease expired and it was put back into the queue", curURL.getURL());
+              continue;
+            }
+            long start = System.nanoTime();
             curURL = handleUrlBeforeProcess(curURL);
-            processPage(curURL);
-            frontier.setProcessed(curURL);
+            if (processPage(curURL)) {
+              frontier.setProcessed(curURL);
+            }
+            batchSizer.pageProcessed((System.nanoTime() - start) / 1e6);
           }
           if (myController.isShuttingDown()) {
             logger.info("Exiting because of controller shutdown.");
@@ -273,6 +401,39 @@ public class WebCrawler implements Runnable {
     }
   }
 
+  // 工作窃取模式：优先处理本地队列中的url，本地队列为空时再批量获取或窃取
+  private void runWithWorkStealing() {
+    Counters counters = frontier.getCounters();
+    while (true) {
+      WebURL curURL = workStealingQueues.poll(worker);
+      if (curURL == null) {
+        int batchSize = batchSizer.nextBatchSize(frontier.getQueueLength(), myController.getNumberOfCrawlers());
+        long idleStart = System.currentTimeMillis();
+        isWaitingForNewURLs = true;
+        curURL = workStealingQueues.take(worker, batchSize);
+        isWaitingForNewURLs = false;
+        counters.increment(ReservedCounterNames.CRAWLER_IDLE_MILLIS, System.currentTimeMillis() - idleStart);
+        if (curURL == null) {
+          return;
+        }
+      }
+      if (!frontier.renewLease(curURL)) {
+        logger.debug("Skipping: {} as its lease expired and it was put back into the queue", curURL.getURL());
+        continue;
+      }
+      long start = System.nanoTime();
+      curURL = handleUrlBeforeProcess(curURL);
+      if (processPage(curURL)) {
+        frontier.setProcessed(curURL);
+      }
+      batchSizer.pageProcessed((System.nanoTime() - start) / 1e6);
+      if (myController.isShuttingDown()) {
+        logger.info("Exiting because of controller shutdown.");
+        return;
+      }
+    }
+  }
+
   /**
   * Classes that extends WebCrawler should overwrite this function to tell the
   * crawler whether the given url should be crawled or not. The following
@@ -302,14 +463,27 @@ public class WebCrawler implements Runnable {
     // Sub-classed should override this to add their custom functionality
   }
 
-  private void processPage(WebURL curURL) {
+  /**
+   * Fetches the page and, unless it is handed to the pipeline, parses and visits it.
+   *
+   * @return false if the page was handed to the pipeline, which then marks it as processed
+   */
+  private boolean processPage(WebURL curURL) {
     PageFetchResult fetchResult = null;
+    long pageStart = System.nanoTime();
     try {
       if (curURL == null) {
         throw new Exception("Failed processing a NULL url !?");
       }
 
-      fetchResult = pageFetcher.fetchPage(curURL);
+      try {
+        fetchResult = pageFetcher.fetchPage(curURL);
+      } finally {
+        // A failed fetch is recorded as a whole, including its politeness wait
+        long wait = fetchResult == null ? 0 : fetchResult.getPolitenessWaitNanos();
+        timings.record(Stage.POLITENESS_WAIT, wait);
+        timings.record(Stage.FETCH, System.nanoTime() - pageStart - wait);
+      }
       int statusCode = fetchResult.getStatusCode();
       handlePageStatusCode(curURL, statusCode, EnglishReasonPhraseCatalog.INSTANCE.getReason(statusCode, Locale.ENGLISH)); // Finds the status reason for all known statuses
 
@@ -329,8 +503,11 @@ public class WebCrawler implements Runnable {
             }
             page.setRedirectedToUrl(movedToUrl);
 
+            long start = System.nanoTime();
             int newDocId = docIdServer.getDocId(movedToUrl);
+            long docIdNanos = System.nanoTime() - start;
             if (newDocId > 0) {
+              timings.record(Stage.DOCID, docIdNanos);
               throw new RedirectException(Level.DEBUG, "Redirect page: " + curURL + " is already seen");
             }
 
@@ -341,16 +518,33 @@ public class WebCrawler implements Runnable {
             webURL.setDepth(curURL.getDepth());
             webURL.setDocid(-1);
             webURL.setAnchor(curURL.getAnchor());
-            if (shouldVisit(page, webURL)) {
-              if (robotstxtServer.allows(webURL)) {
+            start = System.nanoTime();
+            boolean shouldVisit;
+            synchronized (this) {
+              shouldVisit = shouldVisit(page, webURL);
+            }
+            start = timings.lap(Stage.SHOULD_VISIT, start);
+            if (shouldVisit) {
+              boolean allowed = robotstxtServer.allows(webURL);
+              start = timings.lap(Stage.ROBOTS, start);
+              if (allowed) {
                 webURL.setDocid(docIdServer.getNewDocID(movedToUrl));
-                frontier.schedule(webURL);
+                long now = System.nanoTime();
+                docIdNanos += now - start;
+                start = now;
+                if (worker != null) {
+                  workStealingQueues.schedule(worker, Collections.singletonList(webURL));
+                } else {
+                  frontier.schedule(webURL);
+                }
+                timings.lap(Stage.SCHEDULE, start);
               } else {
                 logger.debug("Not visiting: {} as per the server's \"robots.txt\" policy", webURL.getURL());
               }
             } else {
               logger.debug("Not visiting: {} as per your \"shouldVisit\" policy", webURL.getURL());
             }
+            timings.record(Stage.DOCID, docIdNanos);
           }
         } else { // All other http codes other than 3xx & 200
           String description = EnglishReasonPhraseCatalog.INSTANCE.getReason(fetchResult.getStatusCode(), Locale.ENGLISH); // Finds the status reason for all known statuses
@@ -360,50 +554,64 @@ public class WebCrawler implements Runnable {
 
       } else { // if status code is 200
         if (!curURL.getURL().equals(fetchResult.getFetchedUrl())) {
-          if (docIdServer.isSeenBefore(fetchResult.getFetchedUrl())) {
+          long start = System.nanoTime();
+          boolean seenBefore = docIdServer.isSeenBefore(fetchResult.getFetchedUrl());
+          if (!seenBefore) {
+            curURL.setURL(fetchResult.getFetchedUrl());
+            curURL.setDocid(docIdServer.getNewDocID(fetchResult.getFetchedUrl()));
+          }
+          timings.lap(Stage.DOCID, start);
+          if (seenBefore) {
             throw new RedirectException(Level.DEBUG, "Redirect page: " + curURL + " has already been seen");
           }
-          curURL.setURL(fetchResult.getFetchedUrl());
-          curURL.setDocid(docIdServer.getNewDocID(fetchResult.getFetchedUrl()));
         }
 
-        if (!fetchResult.fetchContent(page)) {
+        long start = System.nanoTime();
+        boolean fetched = fetchResult.fetchContent(page);
+        timings.lap(Stage.DOWNLOAD, start);
+        if (!fetched) {
+          hostStats.recordError(curURL.getHost());
           throw new ContentFetchException();
         }
-
-        parser.parse(page, curURL.getURL());
-
-        ParseData parseData = page.getParseData();
-        List<WebURL> toSchedule = new ArrayList<>();
-        int maxCrawlDepth = myController.getConfig().getMaxDepthOfCrawling();
-        for (WebURL webURL : parseData.getOutgoingUrls()) {
-          webURL.setParentDocid(curURL.getDocid());
-          webURL.setParentUrl(curURL.getURL());
-          int newdocid = docIdServer.getDocId(webURL.getURL());
-          if (newdocid > 0) {
-            // This is not the first time that this Url is visited. So, we set the depth to a negative number.
-            webURL.setDepth((short) -1);
-            webURL.setDocid(newdocid);
-          } else {
-            webURL.setDocid(-1);
-            webURL.setDepth((short) (curURL.getDepth() + 1));
-            if (maxCrawlDepth == -1 || curURL.getDepth() < maxCrawlDepth) {
-              if (shouldVisit(page, webURL)) {
-                if (robotstxtServer.allows(webURL)) {
-                  webURL.setDocid(docIdServer.getNewDocID(webURL.getURL()));
-                  toSchedule.add(webURL);
-                } else {
-                  logger.debug("Not visiting: {} as per the server's \"robots.txt\" policy", webURL.getURL());
-                }
-              } else {
-                logger.debug("Not visiting: {} as per your \"shouldVisit\" policy", webURL.getURL());
-              }
-            }
+        if (page.getContentData() != null) {
+          frontier.getCounters().increment(ReservedCounterNames.FETCHED_BYTES, page.getContentData().length);
+          hostStats.recordBytes(curURL.getHost(), page.getContentData().length);
+        }
+        if (warcWriter != null) {
+          start = System.nanoTime();
+          warcWriter.write(page, fetchResult);
+          timings.lap(Stage.ARCHIVE, start);
+        }
+        if (contentHashes != null && page.getContentData() != null && page.getContentData().length > 0) {
+          start = System.nanoTime();
+          int originalDocid = contentHashes.putIfAbsent(page.getContentData(), curURL.getDocid());
+          timings.lap(Stage.DUPLICATE_CHECK, start);
+          if (originalDocid >= 0 && originalDocid != curURL.getDocid()) {
+            frontier.getCounters().increment(ReservedCounterNames.DUPLICATE_PAGES);
+            onDuplicateContent(page, originalDocid);
+            return true;
           }
         }
-        frontier.scheduleAll(toSchedule);
 
-        visit(page);
+        if (pipeline != null) {
+          pipeline.submit(this, curURL, page);
+          return false;
+        }
+
+        start = System.nanoTime();
+        try {
+          parser.parse(page, curURL.getURL());
+        } finally {
+          timings.lap(Stage.PARSE, start);
+        }
+        List<WebURL> outgoingUrls = visitParsedPage(curURL, page);
+        start = System.nanoTime();
+        if (worker != null) {
+          workStealingQueues.schedule(worker, outgoingUrls);
+        } else {
+          frontier.scheduleAll(outgoingUrls);
+        }
+        timings.lap(Stage.SCHEDULE, start);
       }
     } catch (PageBiggerThanMaxSizeException e) {
       onPageBiggerThanMaxSize(curURL.getURL(), e.getPageSize());
@@ -423,7 +631,143 @@ public class WebCrawler implements Runnable {
       if (fetchResult != null) {
         fetchResult.discardContentIfNotConsumed();
       }
+      timings.lap(Stage.TOTAL, pageStart);
+    }
+    return true;
+  }
+
+  /**
+   * Resolves the outgoing urls of a parsed page and passes the page to visit().
+   * The callbacks of the crawler are called while holding its lock, as the
+   * pipeline may resolve several pages of one crawler at the same time.
+   *
+   * @param curURL the url of the page
+   * @param page the fetched and parsed page
+   * @return the outgoing urls which should be scheduled in the frontier
+   */
+  List<WebURL> visitParsedPage(WebURL curURL, Page page) {
+    ParseData parseData = page.getParseData();
+    boolean nearDuplicate = checkNearDuplicate(curURL, page);
+    List<WebURL> toSchedule = new ArrayList<>();
+    int maxCrawlDepth = myController.getConfig().getMaxDepthOfCrawling();
+    // 每个阶段的耗时按页面累加，每个页面只记录一次
+    long docIdNanos = 0;
+    long shouldVisitNanos = 0;
+    long robotsNanos = 0;
+    for (WebURL webURL : parseData.getOutgoingUrls()) {
+      webURL.setParentDocid(curURL.getDocid());
+      webURL.setParentUrl(curURL.getURL());
+      long start = System.nanoTime();
+      int newdocid = docIdServer.getDocId(webURL.getURL());
+      long now = System.nanoTime();
+      docIdNanos += now - start;
+      if (newdocid > 0) {
+        // This is not the first time that this Url is visited. So, we set the depth to a negative number.
+        webURL.setDepth((short) -1);
+        webURL.setDocid(newdocid);
+      } else {
+        webURL.setDocid(-1);
+        webURL.setDepth((short) (curURL.getDepth() + 1));
+        if (maxCrawlDepth == -1 || curURL.getDepth() < maxCrawlDepth) {
+          start = now;
+          boolean shouldVisit;
+          synchronized (this) {
+            shouldVisit = shouldVisit(page, webURL);
+          }
+          now = System.nanoTime();
+          shouldVisitNanos += now - start;
+          if (shouldVisit) {
+            start = now;
+            boolean allowed = robotstxtServer.allows(webURL);
+            now = System.nanoTime();
+            robotsNanos += now - start;
+            if (allowed) {
+              webURL.setDocid(docIdServer.getNewDocID(webURL.getURL()));
+              docIdNanos += System.nanoTime() - now;
+              if (nearDuplicates != null) {
+                lowerPriorityOfNearDuplicateHost(webURL);
+              }
+              toSchedule.add(webURL);
+            } else {
+              logger.debug("Not visiting: {} as per the server's \"robots.txt\" policy", webURL.getURL());
+            }
+          } else {
+            logger.debug("Not visiting: {} as per your \"shouldVisit\" policy", webURL.getURL());
+          }
+        }
+      }
     }
+
+    timings.record(Stage.DOCID, docIdNanos);
+    timings.record(Stage.SHOULD_VISIT, shouldVisitNanos);
+    timings.record(Stage.ROBOTS, robotsNanos);
+
+    if (!nearDuplicate) {
+      long start = System.nanoTime();
+      try {
+        synchronized (this) {
+          visit(page);
+        }
+      } finally {
+        timings.lap(Stage.VISIT, start);
+      }
+    }
+    return toSchedule;
+  }
+
+  /**
+   * Looks up the SimHash of the text of an html page among the pages crawled
+   * before, and calls onNearDuplicateContent if it is a near duplicate.
+   *
+   * @return true if the page is a near duplicate
+   */
+  private boolean checkNearDuplicate(WebURL curURL, Page page) {
+    if (nearDuplicates == null || !(page.getParseData() instanceof HtmlParseData)) {
+      return false;
+    }
+    long start = System.nanoTime();
+    long fingerprint;
+    SimHashIndex.Match match = null;
+    try {
+      String text = ((HtmlParseData) page.getParseData()).getText();
+      fingerprint = text == null ? 0 : SimHash.compute(text);
+      if (fingerprint != 0) {
+        match = nearDuplicates.findOrAdd(fingerprint, curURL.getDocid());
+      }
+    } finally {
+      timings.lap(Stage.NEAR_DUPLICATE_CHECK, start);
+    }
+    if (fingerprint == 0) {
+      return false;
+    }
+    // 同一个页面被重新抓取时会找到自己
+    boolean nearDuplicate = match != null && match.getDocid() != curURL.getDocid();
+    hostStats.recordNearDuplicateCheck(curURL.getHost(), nearDuplicate);
+    if (!nearDuplicate) {
+      return false;
+    }
+    frontier.getCounters().increment(ReservedCounterNames.NEAR_DUPLICATE_PAGES);
+    synchronized (this) {
+      onNearDuplicateContent(page, match.getDocid(), match.getDistance());
+    }
+    return true;
+  }
+
+  // 近似重复页面比例高的host，新发现的url排在其它host的url之后
+  private void lowerPriorityOfNearDuplicateHost(WebURL webURL) {
+    HostStatsTable.HostStats stats = hostStats.getHost(webURL.getHost());
+    if (stats != null && stats.getNearDuplicateChecks() >= MIN_NEAR_DUPLICATE_SAMPLES
+        && stats.getNearDuplicateRatio() >= myController.getConfig().getNearDuplicateHostRatio()
+        && webURL.getPriority() < Byte.MAX_VALUE) {
+      webURL.setPriority((byte) (webURL.getPriority() + 1));
+    }
+  }
+
+  /**
+   * @return the latency histograms which this crawler records into
+   */
+  StageTimings getTimings() {
+    return timings;
   }
 
   public Thread getThread() {
@@ -12,18 +12,18 @@ import java.net.URL;
  * <br>
  * This class contains all of the mutual authentication data for all authentication types
  */
-// ڵ¼֤ĳ࣬Ҫformbaseauthentication
+// 用于登录验证的抽象类，主要包括form和base的authentication。
 public abstract class AuthInfo {
   public enum AuthenticationType {
     BASIC_AUTHENTICATION, FORM_AUTHENTICATION
   }
 
-  protected AuthenticationType authenticationType;	//֤
-  protected MethodType httpMethod;	// MethodType.GETMethodType.Post	
-  protected String protocol;		// Э
-  protected String host;			// 
+  protected AuthenticationType authenticationType;	//验证类型
+  protected MethodType httpMethod;	// 包括MethodType.GET和MethodType.Post	
+  protected String protocol;		// 协议
+  protected String host;			// 主机域名
   protected String loginTarget;		// path
-  protected int port;				// ˿
+  protected int port;				// 端口
   protected String username;
   protected String password;
 
@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.dedup;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.crawler.Configurable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Remembers the 128-bit MurmurHash3 of the content of every downloaded page
+ * together with the docid of the first page which had it, to detect pages
+ * whose content was already seen under another URL.
+ *
+ * Hashes are kept in memory in open addressing tables of primitive arrays,
+ * 27 to 53 bytes per page depending on the load of the tables, split into
+ * segments with a lock each so that crawlers rarely wait for each other.
+ * The store is not persisted, so a resumed crawl does not know the contents
+ * of the pages of the previous run.
+ */
+// 记录已下载页面内容的128位哈希，用于发现不同url下内容完全相同的页面
+public class ContentHashStore extends Configurable {
+
+  private static final int SEGMENTS = 64;
+  private static final int SEGMENT_BITS = 6;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final HashFunction HASH = Hashing.murmur3_128();
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+
+  public ContentHashStore(CrawlConfig config) {
+    super(config);
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment();
+    }
+  }
+
+  /**
+   * Records the content of a page unless it was seen before.
+   *
+   * @param content the downloaded content of the page
+   * @param docid the docid of the page
+   * @return the docid of the first page with the same content, or -1 if the content is new
+   */
+  public int putIfAbsent(byte[] content, int docid) {
+    ByteBuffer hash = ByteBuffer.wrap(HASH.hashBytes(content).asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+    return putIfAbsent(hash.getLong(0), hash.getLong(8), docid);
+  }
+
+  /**
+   * @return the docid of the first page with the same hash, or -1 if the hash is new
+   */
+  public int putIfAbsent(long hash1, long hash2, int docid) {
+    if (hash1 == 0 && hash2 == 0) {
+      // 全0表示空槽位
+      hash2 = 1;
+    }
+    Segment segment = segments[(int) (hash1 >>> (64 - SEGMENT_BITS))];
+    synchronized (segment) {
+      return segment.putIfAbsent(hash1, hash2, docid);
+    }
+  }
+
+  /**
+   * @return number of distinct contents recorded
+   */
+  public long size() {
+    long size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size;
+      }
+    }
+    return size;
+  }
+
+  private static class Segment {
+    // 每个槽位占hashes中的两个long
+    long[] hashes = new long[INITIAL_CAPACITY * 2];
+    int[] docids = new int[INITIAL_CAPACITY];
+    int size;
+
+    int putIfAbsent(long hash1, long hash2, int docid) {
+      int mask = docids.length - 1;
+      int slot = (int) hash2 & mask;
+      while (true) {
+        long h1 = hashes[slot * 2];
+        long h2 = hashes[slot * 2 + 1];
+        if (h1 == 0 && h2 == 0) {
+          break;
+        }
+        if (h1 == hash1 && h2 == hash2) {
+          return docids[slot];
+        }
+        slot = (slot + 1) & mask;
+      }
+      hashes[slot * 2] = hash1;
+      hashes[slot * 2 + 1] = hash2;
+      docids[slot] = docid;
+      size++;
+      if (size * 4 > docids.length * 3) {
+        grow();
+      }
+      return -1;
+    }
+
+    private void grow() {
+      long[] oldHashes = hashes;
+      int[] oldDocids = docids;
+      hashes = new long[oldHashes.length * 2];
+      docids = new int[oldDocids.length * 2];
+      int mask = docids.length - 1;
+      for (int i = 0; i < oldDocids.length; i++) {
+        long h1 = oldHashes[i * 2];
+        long h2 = oldHashes[i * 2 + 1];
+        if (h1 != 0 || h2 != 0) {
+          int slot = (int) h2 & mask;
+          while (hashes[slot * 2] != 0 || hashes[slot * 2 + 1] != 0) {
+            slot = (slot + 1) & mask;
+          }
+          hashes[slot * 2] = h1;
+          hashes[slot * 2 + 1] = h2;
+          docids[slot] = oldDocids[i];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.dedup;
+
+/**
+ * Computes 64-bit SimHash fingerprints of texts. The features of a text are
+ * its shingles of three consecutive words, lower cased; every feature adds
+ * one to the bits which are set in its hash and subtracts one from the
+ * others, and the fingerprint has the bits whose sum is positive. Texts
+ * which differ in a few words, like a timestamp or a session token, get
+ * fingerprints which differ in a few bits.
+ */
+// 计算文本的64位SimHash指纹，相似文本的指纹只有少数几位不同
+public final class SimHash {
+
+  /**
+   * Texts with fewer shingles than this get no fingerprint, as a few words
+   * are not enough to tell pages apart.
+   */
+  public static final int MIN_SHINGLES = 16;
+
+  private static final int SHINGLE_SIZE = 3;
+
+  private SimHash() {
+  }
+
+  /**
+   * @return the fingerprint of the text, or 0 if the text has fewer than {@link #MIN_SHINGLES} shingles
+   */
+  public static long compute(String text) {
+    int[] counts = new int[64];
+    long[] window = new long[SHINGLE_SIZE];
+    int words = 0;
+    int length = text.length();
+    int i = 0;
+    while (i < length) {
+      // 跳过非字母数字的字符，取出下一个词的哈希
+      while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+        i++;
+      }
+      if (i == length) {
+        break;
+      }
+      long hash = 0xcbf29ce484222325L;
+      while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+        hash ^= Character.toLowerCase(text.charAt(i));
+        hash *= 0x100000001b3L;
+        i++;
+      }
+      window[words % SHINGLE_SIZE] = hash;
+      words++;
+      if (words >= SHINGLE_SIZE) {
+        long shingle = 0;
+        for (int j = words - SHINGLE_SIZE; j < words; j++) {
+          shingle = shingle * 31 + window[j % SHINGLE_SIZE];
+        }
+        addFeature(counts, mix(shingle));
+      }
+    }
+    if (words - SHINGLE_SIZE + 1 < MIN_SHINGLES) {
+      return 0;
+    }
+    long fingerprint = 0;
+    for (int bit = 0; bit < 64; bit++) {
+      if (counts[bit] > 0) {
+        fingerprint |= 1L << bit;
+      }
+    }
+    return fingerprint;
+  }
+
+  /**
+   * @return the number of bits in which the two fingerprints differ
+   */
+  public static int distance(long fingerprint1, long fingerprint2) {
+    return Long.bitCount(fingerprint1 ^ fingerprint2);
+  }
+
+  private static void addFeature(int[] counts, long hash) {
+    for (int bit = 0; bit < 64; bit++) {
+      counts[bit] += ((hash >>> bit) & 1) == 0 ? -1 : 1;
+    }
+  }
+
+  // 让哈希的每一位都均匀分布
+  private static long mix(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb93fe53e87ecL;
+    k ^= k >>> 33;
+    return k;
+  }
+}
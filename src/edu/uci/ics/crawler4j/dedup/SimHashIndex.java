@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.dedup;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.crawler.Configurable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds SimHash fingerprints within a Hamming distance of k of a given
+ * fingerprint. The 64 bits are split into k + 1 bands and every fingerprint
+ * is put into one table per band, keyed by the bits of that band. Two
+ * fingerprints which differ in at most k bits agree on all bits of at least
+ * one band, so looking at the k + 1 buckets of a fingerprint finds every
+ * near duplicate.
+ *
+ * Only fingerprints without a near duplicate are added, so a template
+ * served many times keeps a single entry. The lookup and the insertion are
+ * done together on each bucket, so of two near duplicates added at the same
+ * time only one is kept. Buckets hold at most
+ * {@link #MAX_BUCKET_SIZE} fingerprints, after which a band stops taking new
+ * ones. The index is kept in memory and is not persisted.
+ */
+// SimHash指纹的分段索引，用于查找汉明距离不超过k的指纹
+public class SimHashIndex extends Configurable {
+
+  public static final int MAX_BUCKET_SIZE = 1024;
+
+  /**
+   * A near duplicate found in the index.
+   */
+  public static class Match {
+    private final int docid;
+    private final int distance;
+
+    Match(int docid, int distance) {
+      this.docid = docid;
+      this.distance = distance;
+    }
+
+    /**
+     * @return the docid of the page which had the matching fingerprint
+     */
+    public int getDocid() {
+      return docid;
+    }
+
+    /**
+     * @return the number of bits in which the fingerprints differ
+     */
+    public int getDistance() {
+      return distance;
+    }
+  }
+
+  private final int maxDistance;
+  private final int[] bandShifts;
+  private final long[] bandMasks;
+  // 每个桶中依次存放指纹和docid
+  private final List<ConcurrentHashMap<Long, long[]>> tables;
+
+  public SimHashIndex(CrawlConfig config) {
+    super(config);
+    maxDistance = config.getNearDuplicateDistance();
+    int bands = maxDistance + 1;
+    bandShifts = new int[bands];
+    bandMasks = new long[bands];
+    tables = new ArrayList<>(bands);
+    int shift = 0;
+    for (int i = 0; i < bands; i++) {
+      // 不能整除时前面的段多分一位
+      int width = 64 / bands + (i < 64 % bands ? 1 : 0);
+      bandShifts[i] = shift;
+      bandMasks[i] = width == 64 ? -1L : (1L << width) - 1;
+      tables.add(new ConcurrentHashMap<Long, long[]>());
+      shift += width;
+    }
+  }
+
+  /**
+   * Looks for a fingerprint within the maximum distance, and adds the
+   * fingerprint if there is none.
+   *
+   * @return the closest near duplicate, or null if the fingerprint was added
+   */
+  public Match findOrAdd(long fingerprint, int docid) {
+    // 在每个桶上原子地查找并加入；两个近似重复的指纹至少共用一个桶，后加入的一方一定能在这个桶中找到先加入的一方
+    Match[] found = new Match[1];
+    int searched = 0;
+    for (; searched < tables.size() && found[0] == null; searched++) {
+      tables.get(searched).compute(band(fingerprint, searched), (key, bucket) -> {
+        found[0] = closest(bucket, fingerprint, null);
+        if (found[0] != null) {
+          return bucket;
+        }
+        if (bucket == null) {
+          return new long[] {fingerprint, docid};
+        }
+        if (bucket.length >= MAX_BUCKET_SIZE * 2) {
+          return bucket;
+        }
+        long[] grown = Arrays.copyOf(bucket, bucket.length + 2);
+        grown[bucket.length] = fingerprint;
+        grown[bucket.length + 1] = docid;
+        return grown;
+      });
+    }
+    if (found[0] == null) {
+      return null;
+    }
+    Match match = found[0];
+    for (int i = searched; i < tables.size(); i++) {
+      match = closest(tables.get(i).get(band(fingerprint, i)), fingerprint, match);
+    }
+    // 撤销在找到近似重复之前已经加入的段
+    for (int i = 0; i < searched - 1; i++) {
+      tables.get(i).computeIfPresent(band(fingerprint, i), (key, bucket) -> remove(bucket, fingerprint, docid));
+    }
+    return match;
+  }
+
+  /**
+   * @return the closest fingerprint within the maximum distance, or null if there is none
+   */
+  public Match find(long fingerprint) {
+    Match match = null;
+    for (int i = 0; i < tables.size(); i++) {
+      match = closest(tables.get(i).get(band(fingerprint, i)), fingerprint, match);
+    }
+    return match;
+  }
+
+  // 返回桶中比best更近且不超过最大距离的指纹，没有时返回best
+  private Match closest(long[] bucket, long fingerprint, Match best) {
+    if (bucket == null) {
+      return best;
+    }
+    int bestDocid = best == null ? -1 : best.docid;
+    int bestDistance = best == null ? maxDistance + 1 : best.distance;
+    for (int j = 0; j < bucket.length; j += 2) {
+      int distance = SimHash.distance(fingerprint, bucket[j]);
+      if (distance < bestDistance) {
+        bestDistance = distance;
+        bestDocid = (int) bucket[j + 1];
+      }
+    }
+    return bestDocid < 0 ? null : new Match(bestDocid, bestDistance);
+  }
+
+  // 从桶中删除一个指纹，桶为空时返回null
+  private static long[] remove(long[] bucket, long fingerprint, int docid) {
+    for (int j = 0; j < bucket.length; j += 2) {
+      if (bucket[j] == fingerprint && bucket[j + 1] == docid) {
+        if (bucket.length == 2) {
+          return null;
+        }
+        long[] shrunk = new long[bucket.length - 2];
+        System.arraycopy(bucket, 0, shrunk, 0, j);
+        System.arraycopy(bucket, j + 2, shrunk, j, bucket.length - j - 2);
+        return shrunk;
+      }
+    }
+    return bucket;
+  }
+
+  private long band(long fingerprint, int band) {
+    return (fingerprint >>> bandShifts[band]) & bandMasks[band];
+  }
+}
@@ -0,0 +1,378 @@
+package edu.uci.ics.crawler4j.fetcher;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Crawl statistics per host: requests, reused connections, bytes, errors,
+ * the mix of status codes, latency, politeness wait, near duplicate pages
+ * and the number of URLs of the host waiting in the queue. Updates only touch striped counters of
+ * the host and of the totals, so many crawler threads can update the table
+ * at the same time.
+ *
+ * At most maxHosts hosts are tracked; updates for hosts seen after the table
+ * is full are only counted in the totals.
+ */
+// 按host统计请求数、流量、错误、状态码分布、延迟、礼貌等待和队列长度，可以按任意一列取前N个host
+public class HostStatsTable {
+
+  /**
+   * The columns by which hosts can be ranked.
+   */
+  public enum Column {
+    REQUESTS,
+    REUSED_CONNECTIONS,
+    BYTES,
+    ERRORS,
+    STATUS_2XX,
+    STATUS_3XX,
+    STATUS_4XX,
+    STATUS_5XX,
+    AVERAGE_LATENCY,
+    AVERAGE_POLITENESS_WAIT,
+    NEAR_DUPLICATES,
+    QUEUE_DEPTH
+  }
+
+  /**
+   * Counters of one host.
+   */
+  public static class HostStats {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder reusedConnections = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    // 下标为状态码除以100，0表示不在100到599之间的状态码
+    private final LongAdder[] statusClasses = new LongAdder[6];
+    // 记录了耗时的请求数，包括失败的请求
+    private final LongAdder timedRequests = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder politenessWaitNanos = new LongAdder();
+    // 检查过是否近似重复的html页面数
+    private final LongAdder nearDuplicateChecks = new LongAdder();
+    private final LongAdder nearDuplicates = new LongAdder();
+    private final LongAdder queueDepth = new LongAdder();
+
+    HostStats() {
+      for (int i = 0; i < statusClasses.length; i++) {
+        statusClasses[i] = new LongAdder();
+      }
+    }
+
+    /**
+     * @return number of requests which got a response
+     */
+    public long getRequests() {
+      return requests.sum();
+    }
+
+    public long getReusedConnections() {
+      return reusedConnections.sum();
+    }
+
+    /**
+     * @return fraction of the requests which reused a pooled connection
+     */
+    public double getReuseRatio() {
+      long total = getRequests();
+      return total == 0 ? 0 : (double) getReusedConnections() / total;
+    }
+
+    /**
+     * @return bytes of content downloaded
+     */
+    public long getBytes() {
+      return bytes.sum();
+    }
+
+    /**
+     * @return number of requests which failed without a response, and of
+     *         responses whose content could not be downloaded or read
+     */
+    public long getErrors() {
+      return errors.sum();
+    }
+
+    /**
+     * @param statusClass the first digit of the status codes, from 1 to 5
+     * @return number of responses with a status code of that class
+     */
+    public long getStatusCount(int statusClass) {
+      return statusClasses[statusClass].sum();
+    }
+
+    /**
+     * @return mean time in milliseconds from sending a request until its headers were received
+     */
+    public double getAverageLatency() {
+      long total = timedRequests.sum();
+      return total == 0 ? 0 : latencyNanos.sum() / 1e6 / total;
+    }
+
+    /**
+     * @return mean time in milliseconds a request waited for the politeness delay
+     */
+    public double getAveragePolitenessWait() {
+      long total = timedRequests.sum();
+      return total == 0 ? 0 : politenessWaitNanos.sum() / 1e6 / total;
+    }
+
+    /**
+     * @return number of html pages whose text was checked for near duplicates
+     */
+    public long getNearDuplicateChecks() {
+      return nearDuplicateChecks.sum();
+    }
+
+    /**
+     * @return number of pages whose text was a near duplicate of a page crawled before
+     */
+    public long getNearDuplicates() {
+      return nearDuplicates.sum();
+    }
+
+    /**
+     * @return fraction of the checked html pages which were near duplicates
+     */
+    public double getNearDuplicateRatio() {
+      long total = getNearDuplicateChecks();
+      return total == 0 ? 0 : (double) getNearDuplicates() / total;
+    }
+
+    /**
+     * @return number of URLs of the host which are in the queue of the
+     *         frontier and not yet handed out to a crawler
+     */
+    public long getQueueDepth() {
+      return queueDepth.sum();
+    }
+
+    /**
+     * @return the value of the column
+     */
+    public double get(Column column) {
+      switch (column) {
+        case REQUESTS:
+          return getRequests();
+        case REUSED_CONNECTIONS:
+          return getReusedConnections();
+        case BYTES:
+          return getBytes();
+        case ERRORS:
+          return getErrors();
+        case STATUS_2XX:
+          return getStatusCount(2);
+        case STATUS_3XX:
+          return getStatusCount(3);
+        case STATUS_4XX:
+          return getStatusCount(4);
+        case STATUS_5XX:
+          return getStatusCount(5);
+        case AVERAGE_LATENCY:
+          return getAverageLatency();
+        case AVERAGE_POLITENESS_WAIT:
+          return getAveragePolitenessWait();
+        case NEAR_DUPLICATES:
+          return getNearDuplicates();
+        case QUEUE_DEPTH:
+          return getQueueDepth();
+        default:
+          throw new IllegalArgumentException("Unknown column: " + column);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return String.format("requests=%d reused=%d bytes=%d errors=%d 2xx=%d 3xx=%d 4xx=%d 5xx=%d latency=%.1fms "
+          + "politeness=%.1fms nearDuplicates=%d queue=%d", getRequests(), getReusedConnections(), getBytes(),
+          getErrors(), getStatusCount(2), getStatusCount(3), getStatusCount(4), getStatusCount(5),
+          getAverageLatency(), getAveragePolitenessWait(), getNearDuplicates(), getQueueDepth());
+    }
+  }
+
+  private final int maxHosts;
+  private final Map<String, HostStats> hosts = new ConcurrentHashMap<>();
+  private final HostStats total = new HostStats();
+
+  /**
+   * @param maxHosts the maximum number of hosts to keep counters for
+   */
+  public HostStatsTable(int maxHosts) {
+    this.maxHosts = maxHosts;
+  }
+
+  // 表满了以后新的host不再单独统计，只计入总数
+  private HostStats stats(String host) {
+    HostStats stats = hosts.get(host);
+    if (stats == null && host != null && hosts.size() < maxHosts) {
+      stats = hosts.computeIfAbsent(host, h -> new HostStats());
+    }
+    return stats;
+  }
+
+  /**
+   * Records a request which got a response.
+   *
+   * @param latencyNanos time from sending the request until the headers were received
+   * @param politenessWaitNanos time the request waited for the politeness delay
+   */
+  public void recordResponse(String host, int statusCode, boolean reusedConnection, long latencyNanos,
+      long politenessWaitNanos) {
+    int statusClass = statusCode >= 100 && statusCode < 600 ? statusCode / 100 : 0;
+    HostStats stats = stats(host);
+    if (stats != null) {
+      recordResponse(stats, statusClass, reusedConnection, latencyNanos, politenessWaitNanos);
+    }
+    recordResponse(total, statusClass, reusedConnection, latencyNanos, politenessWaitNanos);
+  }
+
+  private static void recordResponse(HostStats s, int statusClass, boolean reusedConnection, long latencyNanos,
+      long politenessWaitNanos) {
+    s.requests.increment();
+    if (reusedConnection) {
+      s.reusedConnections.increment();
+    }
+    s.statusClasses[statusClass].increment();
+    s.timedRequests.increment();
+    s.latencyNanos.add(latencyNanos);
+    s.politenessWaitNanos.add(politenessWaitNanos);
+  }
+
+  /**
+   * Records a request which failed without a response.
+   *
+   * @param latencyNanos time spent on the request until it failed
+   * @param politenessWaitNanos time the request waited for the politeness delay
+   */
+  public void recordFailedRequest(String host, long latencyNanos, long politenessWaitNanos) {
+    HostStats stats = stats(host);
+    if (stats != null) {
+      recordFailedRequest(stats, latencyNanos, politenessWaitNanos);
+    }
+    recordFailedRequest(total, latencyNanos, politenessWaitNanos);
+  }
+
+  private static void recordFailedRequest(HostStats s, long latencyNanos, long politenessWaitNanos) {
+    s.errors.increment();
+    s.timedRequests.increment();
+    s.latencyNanos.add(latencyNanos);
+    s.politenessWaitNanos.add(politenessWaitNanos);
+  }
+
+  /**
+   * Records a response whose content could not be downloaded or read.
+   */
+  public void recordError(String host) {
+    HostStats stats = stats(host);
+    if (stats != null) {
+      stats.errors.increment();
+    }
+    total.errors.increment();
+  }
+
+  /**
+   * Records downloaded content.
+   */
+  public void recordBytes(String host, long bytes) {
+    HostStats stats = stats(host);
+    if (stats != null) {
+      stats.bytes.add(bytes);
+    }
+    total.bytes.add(bytes);
+  }
+
+  /**
+   * Records an html page whose text was checked for near duplicates.
+   *
+   * @param nearDuplicate whether the text was a near duplicate of a page crawled before
+   */
+  public void recordNearDuplicateCheck(String host, boolean nearDuplicate) {
+    HostStats stats = stats(host);
+    if (stats != null) {
+      stats.nearDuplicateChecks.increment();
+      if (nearDuplicate) {
+        stats.nearDuplicates.increment();
+      }
+    }
+    total.nearDuplicateChecks.increment();
+    if (nearDuplicate) {
+      total.nearDuplicates.increment();
+    }
+  }
+
+  /**
+   * Changes the number of queued URLs of the host: positive when URLs are
+   * put into the queue, negative when they are handed out to a crawler.
+   */
+  public void recordQueued(String host, int count) {
+    HostStats stats = stats(host);
+    if (stats != null) {
+      stats.queueDepth.add(count);
+    }
+    total.queueDepth.add(count);
+  }
+
+  /**
+   * @return the counters of each tracked host
+   */
+  public Map<String, HostStats> getHosts() {
+    return Collections.unmodifiableMap(hosts);
+  }
+
+  /**
+   * @return the counters of the host, or null if it is not tracked
+   */
+  public HostStats getHost(String host) {
+    return hosts.get(host);
+  }
+
+  /**
+   * @return the counters of all hosts together
+   */
+  public HostStats getTotal() {
+    return total;
+  }
+
+  /**
+   * @return the n hosts with the largest values of the column, largest first
+   */
+  public List<Map.Entry<String, HostStats>> top(Column column, int n) {
+    if (n <= 0) {
+      return Collections.emptyList();
+    }
+    // 每个host的值只读取一次，避免排序过程中值发生变化
+    PriorityQueue<Ranked> heap = new PriorityQueue<>(n + 1, Comparator.comparingDouble(r -> r.value));
+    for (Map.Entry<String, HostStats> entry : hosts.entrySet()) {
+      heap.add(new Ranked(entry.getKey(), entry.getValue(), entry.getValue().get(column)));
+      if (heap.size() > n) {
+        heap.poll();
+      }
+    }
+    List<Map.Entry<String, HostStats>> top = new ArrayList<>(heap.size());
+    while (!heap.isEmpty()) {
+      Ranked ranked = heap.poll();
+      top.add(new SimpleImmutableEntry<>(ranked.host, ranked.stats));
+    }
+    Collections.reverse(top);
+    return top;
+  }
+
+  private static class Ranked {
+    final String host;
+    final HostStats stats;
+    final double value;
+
+    Ranked(String host, HostStats stats, double value) {
+      this.host = host;
+      this.stats = stats;
+      this.value = value;
+    }
+  }
+}
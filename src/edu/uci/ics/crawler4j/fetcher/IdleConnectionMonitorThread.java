@@ -4,7 +4,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
-// http connectionĿ߳
+// 监控http connection的空闲线程
 public class IdleConnectionMonitorThread extends Thread {
 
   // PoolingHttpClientConnectionManager is a more complex implementation that manages a pool
@@ -23,7 +23,7 @@ public class IdleConnectionMonitorThread extends Thread {
       while (!shutdown) {
         synchronized (this) {
           wait(5000);
-          // Close expired connectionsֹͣڵ
+          // Close expired connections，停止过期的连接
           connMgr.closeExpiredConnections();
           // Optionally, close connections that have been idle longer than 30 sec
           connMgr.closeIdleConnections(30, TimeUnit.SECONDS);
@@ -37,7 +37,7 @@ public class IdleConnectionMonitorThread extends Thread {
   public void shutdown() {
     shutdown = true;
     synchronized (this) {
-      notifyAll(); // runwait
+      notifyAll(); // 让run方法不再wait
     }
   }
 }
\ No newline at end of file
@@ -5,6 +5,8 @@ import java.io.IOException;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequest;
+import org.apache.http.StatusLine;
 import org.apache.http.util.EntityUtils;
 
 import edu.uci.ics.crawler4j.crawler.Page;
@@ -14,16 +16,20 @@ import org.slf4j.LoggerFactory;
 /**
  * @author Yasser Ganjisaffar [lastname at gmail dot com]
  */
-// ʹhttpclientfetch page֮洢Ľ
+// 使用httpclient包fetch page之后存储的结果
 public class PageFetchResult {
 
   protected static final Logger logger = LoggerFactory.getLogger(PageFetchResult.class);
 
-  protected int statusCode;		// ״̬
-  protected HttpEntity entity = null;	// httpEntity
-  protected Header[] responseHeaders = null;	// ӦϢͷ
-  protected String fetchedUrl = null;	// url
+  protected int statusCode;		// 状态码
+  protected HttpEntity entity = null;	// httpEntity对象
+  protected Header[] responseHeaders = null;	// 响应消息头
+  protected String fetchedUrl = null;	// url链接
   protected String movedToUrl = null;
+  protected long politenessWaitNanos = 0;	// 为遵守抓取间隔而等待的时间
+  protected HttpRequest request = null;	// 实际发送的请求，包括请求头
+  protected StatusLine statusLine = null;	// 响应的状态行
+  protected long fetchTimeMillis = 0;	// 收到响应的时间
 
   public int getStatusCode() {
     return statusCode;
@@ -59,7 +65,7 @@ public class PageFetchResult {
 
   public boolean fetchContent(Page page) {
     try {
-      // fetchĽתpage	
+      // 将fetch后的结果解析转换成page对象	
       page.load(entity);
       page.setFetchResponseHeaders(responseHeaders);
       return true;
@@ -69,7 +75,7 @@ public class PageFetchResult {
     return false;
   }
 
-  // contentд
+  // 忽略content，不进行处理
   public void discardContentIfNotConsumed() {
     try {
       if (entity != null) {
@@ -90,4 +96,45 @@ public class PageFetchResult {
   public void setMovedToUrl(String movedToUrl) {
     this.movedToUrl = movedToUrl;
   }
-}
\ No newline at end of file
+
+  /**
+   * @return how long fetchPage waited for the politeness delay, in nanoseconds
+   */
+  public long getPolitenessWaitNanos() {
+    return politenessWaitNanos;
+  }
+
+  public void setPolitenessWaitNanos(long politenessWaitNanos) {
+    this.politenessWaitNanos = politenessWaitNanos;
+  }
+
+  /**
+   * @return the request as it was sent, with the headers added by the http client
+   */
+  public HttpRequest getRequest() {
+    return request;
+  }
+
+  public void setRequest(HttpRequest request) {
+    this.request = request;
+  }
+
+  public StatusLine getStatusLine() {
+    return statusLine;
+  }
+
+  public void setStatusLine(StatusLine statusLine) {
+    this.statusLine = statusLine;
+  }
+
+  /**
+   * @return when the response headers were received, in milliseconds since the epoch
+   */
+  public long getFetchTimeMillis() {
+    return fetchTimeMillis;
+  }
+
+  public void setFetchTimeMillis(long fetchTimeMillis) {
+    this.fetchTimeMillis = fetchTimeMillis;
+  }
+}
@@ -6,6 +6,9 @@ import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import javax.net.ssl.SSLContext;
 
@@ -16,6 +19,8 @@ import edu.uci.ics.crawler4j.crawler.authentication.AuthInfo;
 import edu.uci.ics.crawler4j.crawler.authentication.BasicAuthInfo;
 import edu.uci.ics.crawler4j.crawler.authentication.FormAuthInfo;
 import edu.uci.ics.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
+import edu.uci.ics.crawler4j.metrics.CrawlEventListener;
+import edu.uci.ics.crawler4j.metrics.CrawlEvents;
 import org.apache.http.*;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
@@ -26,6 +31,7 @@ import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
@@ -36,6 +42,7 @@ import org.apache.http.conn.ssl.TrustStrategy;
 import org.apache.http.impl.client.*;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.pool.PoolStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,23 +56,28 @@ public class PageFetcher extends Configurable {
 
   protected static final Logger logger = LoggerFactory.getLogger(PageFetcher.class);
 
-  // HttpClientӳ
+  // HttpClient连接池
   protected PoolingHttpClientConnectionManager connectionManager;
-  // httpClient
+  // httpClient对象
   protected CloseableHttpClient httpClient;
   protected final Object mutex = new Object();
   protected long lastFetchTime = 0;
   protected IdleConnectionMonitorThread connectionMonitorThread = null;
+  // 每个host的请求、流量、错误、延迟等统计
+  protected final HostStatsTable hostStats;
+  // 每个状态码的响应数
+  protected final AtomicLongArray statusCodeCounts = new AtomicLongArray(600);
 
   public PageFetcher(CrawlConfig config) {
     super(config);
+    hostStats = new HostStatsTable(config.getMaxTrackedHosts());
 
     RequestConfig requestConfig = RequestConfig.custom()
         .setExpectContinueEnabled(false)
         .setCookieSpec(CookieSpecs.BROWSER_COMPATIBILITY)
-        .setRedirectsEnabled(false)		// redirect
-        .setSocketTimeout(config.getSocketTimeout())	// socketʱ
-        .setConnectTimeout(config.getConnectionTimeout())	// connectionʱ
+        .setRedirectsEnabled(false)		// 不允许redirect
+        .setSocketTimeout(config.getSocketTimeout())	// socket超时
+        .setConnectTimeout(config.getConnectionTimeout())	// connection超时
         .build();
 
     RegistryBuilder<ConnectionSocketFactory> connRegistryBuilder = RegistryBuilder.create();
@@ -91,15 +103,15 @@ public class PageFetcher extends Configurable {
 
     Registry<ConnectionSocketFactory> connRegistry = connRegistryBuilder.build();
     connectionManager = new PoolingHttpClientConnectionManager(connRegistry);
-    connectionManager.setMaxTotal(config.getMaxTotalConnections()); // 
-    connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerHost()); // ÿroute
+    connectionManager.setMaxTotal(config.getMaxTotalConnections()); // 最大连接数
+    connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerHost()); // 每个route的最大连接
 
     HttpClientBuilder clientBuilder = HttpClientBuilder.create();
     clientBuilder.setDefaultRequestConfig(requestConfig);
     clientBuilder.setConnectionManager(connectionManager);
     clientBuilder.setUserAgent(config.getUserAgentString());
 
-    // ô
+    // 设置代理
     if (config.getProxyHost() != null) {
       if (config.getProxyUsername() != null) {
         BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
@@ -185,6 +197,9 @@ public class PageFetcher extends Configurable {
     try {
       get = new HttpGet(toFetchURL);
       // Applying Politeness delay
+      CrawlEventListener events = CrawlEvents.getListener();
+      Object started = events == null ? null : events.begin(CrawlEventListener.Operation.PAGE_FETCH);
+      long waitStart = System.nanoTime();
       synchronized (mutex) {
         long now = (new Date()).getTime();
         if (now - lastFetchTime < config.getPolitenessDelay()) {
@@ -192,13 +207,41 @@ public class PageFetcher extends Configurable {
         }
         lastFetchTime = (new Date()).getTime();
       }
+      fetchResult.setPolitenessWaitNanos(System.nanoTime() - waitStart);
 
-      HttpResponse response = httpClient.execute(get);
+      HttpClientContext context = HttpClientContext.create();
+      long requestStart = System.nanoTime();
+      HttpResponse response;
+      try {
+        response = httpClient.execute(get, context);
+      } catch (IOException | RuntimeException e) {
+        long latency = System.nanoTime() - requestStart;
+        hostStats.recordFailedRequest(webUrl.getHost(), latency, fetchResult.getPolitenessWaitNanos());
+        if (events != null) {
+          events.pageFetched(started, toFetchURL, webUrl.getHost(), 0, -1, fetchResult.getPolitenessWaitNanos(),
+              latency);
+        }
+        throw e;
+      }
+      long latency = System.nanoTime() - requestStart;
       fetchResult.setEntity(response.getEntity());
       fetchResult.setResponseHeaders(response.getAllHeaders());
+      fetchResult.setRequest(context.getRequest() == null ? get : context.getRequest());
+      fetchResult.setStatusLine(response.getStatusLine());
+      fetchResult.setFetchTimeMillis(System.currentTimeMillis());
 
       // Setting HttpStatus
       int statusCode = response.getStatusLine().getStatusCode();
+      if (statusCode >= 0 && statusCode < statusCodeCounts.length()) {
+        statusCodeCounts.incrementAndGet(statusCode);
+      }
+      hostStats.recordResponse(webUrl.getHost(), statusCode, isConnectionReused(webUrl, context), latency,
+          fetchResult.getPolitenessWaitNanos());
+      if (events != null) {
+        long contentLength = fetchResult.getEntity() == null ? -1 : fetchResult.getEntity().getContentLength();
+        events.pageFetched(started, toFetchURL, webUrl.getHost(), statusCode, contentLength,
+            fetchResult.getPolitenessWaitNanos(), latency);
+      }
 
       // If Redirect ( 3xx )
       if (statusCode == HttpStatus.SC_MOVED_PERMANENTLY || statusCode == HttpStatus.SC_MOVED_TEMPORARILY
@@ -238,6 +281,49 @@ public class PageFetcher extends Configurable {
     }
   }
 
+  // 连接上发送过的请求数大于1，说明这次请求复用了连接池中的连接
+  private boolean isConnectionReused(WebURL webUrl, HttpClientContext context) {
+    HttpConnection connection = context.getConnection();
+    if (connection == null) {
+      return false;
+    }
+    try {
+      return connection.getMetrics().getRequestCount() > 1;
+    } catch (RuntimeException e) {
+      // The connection is already released if the response has no entity
+      logger.debug("Could not read the metrics of the connection to: {}", webUrl.getHost());
+      return false;
+    }
+  }
+
+  /**
+   * @return per host statistics of the requests of this fetcher
+   */
+  public HostStatsTable getHostStats() {
+    return hostStats;
+  }
+
+  /**
+   * @return number of responses received per status code, robots.txt requests included
+   */
+  public Map<Integer, Long> getStatusCodeCounts() {
+    Map<Integer, Long> counts = new TreeMap<>();
+    for (int i = 0; i < statusCodeCounts.length(); i++) {
+      long count = statusCodeCounts.get(i);
+      if (count > 0) {
+        counts.put(i, count);
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * @return leased, pending, available and maximum connections of the connection pool
+   */
+  public PoolStats getConnectionPoolStats() {
+    return connectionManager.getTotalStats();
+  }
+
   public synchronized void shutDown() {
     if (connectionMonitorThread != null) {
       connectionManager.shutdown();
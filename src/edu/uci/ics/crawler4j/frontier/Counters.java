@@ -26,8 +26,21 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * Named counters of the crawl. Besides the reserved counters used by the
+ * frontier, any name can be used for user metrics.
+ *
+ * Updates only touch a {@link LongAdder} in memory. When crawling is
+ * resumable the values are written to the statistics database by a
+ * background thread every {@link CrawlConfig#getCountersCheckpointInterval()}
+ * milliseconds and when the counters are closed, so after a crash at most
+ * the updates of the last interval are lost.
+ *
  * @author Yasser Ganjisaffar [lastname at gmail dot com]
  */
 public class Counters extends Configurable {
@@ -36,6 +49,14 @@ public class Counters extends Configurable {
   public class ReservedCounterNames {
     public final static String SCHEDULED_PAGES = "Scheduled-Pages";
     public final static String PROCESSED_PAGES = "Processed-Pages";
+    public final static String REQUEUED_PAGES = "Requeued-Pages";
+    public final static String URL_BATCHES = "URL-Batches";
+    public final static String BATCHED_URLS = "Batched-URLs";
+    public final static String CRAWLER_IDLE_MILLIS = "Crawler-Idle-Millis";
+    public final static String STOLEN_URLS = "Stolen-URLs";
+    public final static String FETCHED_BYTES = "Fetched-Bytes";
+    public final static String DUPLICATE_PAGES = "Duplicate-Pages";
+    public final static String NEAR_DUPLICATE_PAGES = "Near-Duplicate-Pages";
   }
 
   protected Database statisticsDB = null;
@@ -43,13 +64,19 @@ public class Counters extends Configurable {
 
   protected final Object mutex = new Object();
 
-  protected Map<String, Long> counterValues;
+  protected ConcurrentMap<String, LongAdder> counterValues;
+
+  // 上一次写入数据库的值，只有变化过的计数器才会被再次写入
+  private final Map<String, Long> checkpointedValues = new HashMap<>();
+
+  private Thread checkpointThread;
+  private volatile boolean closed = false;
 
   public Counters(Environment env, CrawlConfig config) throws DatabaseException {
     super(config);
 
     this.env = env;
-    this.counterValues = new HashMap<>();
+    this.counterValues = new ConcurrentHashMap<>();
 
     /*
      * When crawling is set to be resumable, we have to keep the statistics
@@ -68,43 +95,57 @@ public class Counters extends Configurable {
       DatabaseEntry value = new DatabaseEntry();
       Transaction tnx = env.beginTransaction(null, null);
       Cursor cursor = statisticsDB.openCursor(tnx, null);
-      // ΪգӦλȡݿеѾڵֵ
+      // 设置为空，应该是依次获取数据库中的所有已经存在的值
       result = cursor.getFirst(key, value, null);
 
       while (result == OperationStatus.SUCCESS) {
         if (value.getData().length > 0) {
           String name = new String(key.getData());
           long counterValue = Util.byteArray2Long(value.getData());
-          counterValues.put(name, counterValue);
+          getAdder(name).add(counterValue);
+          checkpointedValues.put(name, counterValue);
         }
         result = cursor.getNext(key, value, null);
       }
       cursor.close();
       tnx.commit();
+
+      checkpointThread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          checkpointLoop();
+        }
+      }, "Counters checkpoint");
+      checkpointThread.setDaemon(true);
+      checkpointThread.start();
     }
   }
 
-  public long getValue(String name) {
-    synchronized (mutex) {
-      return counterValues.get(name) == null ? 0 : counterValues.get(name);
+  private LongAdder getAdder(String name) {
+    LongAdder adder = counterValues.get(name);
+    if (adder == null) {
+      LongAdder newAdder = new LongAdder();
+      adder = counterValues.putIfAbsent(name, newAdder);
+      if (adder == null) {
+        adder = newAdder;
+      }
     }
+    return adder;
+  }
+
+  public long getValue(String name) {
+    LongAdder adder = counterValues.get(name);
+    return adder == null ? 0 : adder.sum();
   }
 
+  /**
+   * Sets the value of a counter. Increments of the same counter that happen
+   * concurrently may be lost.
+   */
   public void setValue(String name, long value) {
-    synchronized (mutex) {
-      try {
-        counterValues.put(name, value);
-        if (statisticsDB != null) {
-        	//ύݿȥ
-          Transaction txn = env.beginTransaction(null, null);
-          statisticsDB.put(txn, new DatabaseEntry(name.getBytes()),
-              new DatabaseEntry(Util.long2ByteArray(value)));
-          txn.commit();
-        }
-      } catch (Exception e) {
-        logger.error("Exception setting value", e);
-      }
-    }
+    LongAdder adder = getAdder(name);
+    adder.reset();
+    adder.add(value);
   }
 
   public void increment(String name) {
@@ -112,19 +153,92 @@ public class Counters extends Configurable {
   }
 
   public void increment(String name, long addition) {
+    getAdder(name).add(addition);
+  }
+
+  /**
+   * @return the current values of all counters, sorted by name
+   */
+  public Map<String, Long> getValues() {
+    Map<String, Long> values = new TreeMap<>();
+    for (Map.Entry<String, LongAdder> entry : counterValues.entrySet()) {
+      values.put(entry.getKey(), entry.getValue().sum());
+    }
+    return values;
+  }
+
+  private void checkpointLoop() {
+    while (!closed) {
+      try {
+        synchronized (this) {
+          wait(config.getCountersCheckpointInterval());
+        }
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (!closed) {
+        checkpoint();
+      }
+    }
+  }
+
+  /**
+   * Writes the counters that changed since the last checkpoint to the
+   * statistics database in one transaction. Does nothing if crawling is not
+   * resumable.
+   */
+  public void checkpoint() {
+    if (statisticsDB == null) {
+      return;
+    }
     synchronized (mutex) {
-      long prevValue = getValue(name);
-      setValue(name, prevValue + addition);
+      Transaction txn = null;
+      try {
+        for (Map.Entry<String, Long> entry : getValues().entrySet()) {
+          if (entry.getValue().equals(checkpointedValues.get(entry.getKey()))) {
+            continue;
+          }
+          if (txn == null) {
+            txn = env.beginTransaction(null, null);
+          }
+          //提交到数据库中去
+          statisticsDB.put(txn, new DatabaseEntry(entry.getKey().getBytes()),
+              new DatabaseEntry(Util.long2ByteArray(entry.getValue())));
+          checkpointedValues.put(entry.getKey(), entry.getValue());
+        }
+        if (txn != null) {
+          txn.commit();
+        }
+      } catch (Exception e) {
+        logger.error("Exception writing counters checkpoint", e);
+        if (txn != null) {
+          txn.abort();
+          // 下一次检查点时重新写入所有的计数器
+          checkpointedValues.clear();
+        }
+      }
     }
   }
 
   public void close() {
+    closed = true;
+    if (checkpointThread != null) {
+      synchronized (this) {
+        notifyAll();
+      }
+      try {
+        checkpointThread.join();
+      } catch (InterruptedException e) {
+        logger.error("Interrupted while waiting for the counters checkpoint thread", e);
+      }
+    }
     try {
       if (statisticsDB != null) {
+        checkpoint();
         statisticsDB.close();
       }
     } catch (DatabaseException e) {
       logger.error("Exception thrown while trying to close statisticsDB", e);
     }
   }
-}
\ No newline at end of file
+}
@@ -46,7 +46,7 @@ public class DocIDServer extends Configurable {
     dbConfig.setTransactional(config.isResumableCrawling());
     dbConfig.setDeferredWrite(!config.isResumableCrawling());
     docIDsDB = env.openDatabase(null, "DocIDs", dbConfig);
-    // berkleyDBжȡdocId,֮ǰҪǷresumeģʽ
+    // 从berkleyDB中读取docId,之前需要检查是否是resume模式启动爬虫的
     if (config.isResumableCrawling()) {
       int docCount = getDocCount();
       if (docCount > 0) {
@@ -72,7 +72,7 @@ public class DocIDServer extends Configurable {
         OperationStatus result = null;
         DatabaseEntry value = new DatabaseEntry();
         try {
-          //жϳDBkeybyte͵
+          //从这里可以判断出伯克利DB的key是byte类型的
           DatabaseEntry key = new DatabaseEntry(url.getBytes());
           result = docIDsDB.get(null, key, value, null);
 
@@ -21,12 +21,21 @@ import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
 import edu.uci.ics.crawler4j.crawler.Configurable;
 import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.fetcher.HostStatsTable;
 import edu.uci.ics.crawler4j.frontier.Counters.ReservedCounterNames;
+import edu.uci.ics.crawler4j.metrics.CrawlEventListener;
+import edu.uci.ics.crawler4j.metrics.CrawlEvents;
 import edu.uci.ics.crawler4j.url.WebURL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author Yasser Ganjisaffar [lastname at gmail dot com]
@@ -38,60 +47,202 @@ public class Frontier extends Configurable {
 
   protected WorkQueues workQueues;
 
+  // 启用host亲和时与workQueues是同一个对象，否则为null
+  protected HostAffinityWorkQueues hostAffinityQueues;
+
   protected InProcessPagesDB inProcessPages;
 
-  protected final Object mutex = new Object();
-  protected final Object waitingList = new Object();
+  protected InProcessPagesLog inProcessPagesLog;
+
+  protected final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * Signalled when URLs are added to the queue, once for every URL as long
+   * as crawlers are waiting, and for all waiting crawlers when the crawl
+   * finishes.
+   */
+  // 有新url加入队列时唤醒正在等待的爬虫，每个url最多唤醒一个爬虫
+  protected final Condition workAvailable = lock.newCondition();
+
+  // 正在等待url的爬虫数量，只在持有lock时访问
+  protected int waitingCrawlers = 0;
 
-  protected boolean isFinished = false;
+  protected volatile boolean isFinished = false;
 
   protected long scheduledPages;
 
   protected Counters counters;
 
+  protected URLDictionary urlDictionary;
+
+  protected Leases leases;
+
+  private Thread leaseReaper;
+
+  // 按host统计队列中的url数量，为null时不统计
+  protected volatile HostStatsTable hostStats;
+
   public Frontier(Environment env, CrawlConfig config) {
     super(config);
     this.counters = new Counters(env, config);
     try {
-      workQueues = new WorkQueues(env, "PendingURLsDB", config.isResumableCrawling());
+      // 即使不写入紧凑格式，也需要用字典读取之前以紧凑格式保存的url
+      urlDictionary = new URLDictionary(env, config.isResumableCrawling());
+      WebURLTupleBinding webURLBinding = new WebURLTupleBinding(urlDictionary, config.isCompactFrontierEncoding());
+      if (config.getHostAffinityGroups() > 0) {
+        hostAffinityQueues = new HostAffinityWorkQueues(env, "PendingURLsDB", config.isResumableCrawling(),
+            webURLBinding, config.getHostAffinityGroups());
+        workQueues = hostAffinityQueues;
+      } else {
+        workQueues = new WorkQueues(env, "PendingURLsDB", config.isResumableCrawling(), webURLBinding);
+      }
       if (config.isResumableCrawling()) {
         scheduledPages = counters.getValue(ReservedCounterNames.SCHEDULED_PAGES);
-        inProcessPages = new InProcessPagesDB(env);
-        long numPreviouslyInProcessPages = inProcessPages.getLength();
-        if (numPreviouslyInProcessPages > 0) {
-          logger.info("Rescheduling {} URLs from previous crawl.", numPreviouslyInProcessPages);
-          scheduledPages -= numPreviouslyInProcessPages;
-          // ݿжȡݽе
-          // ҳΪScheduledProcessedҳ棬ScheduledΪץȡ(inProcessPages)͵ȴץȡġ
-          List<WebURL> urls = inProcessPages.get(100);
-          while (urls.size() > 0) {
-            scheduleAll(urls);
-            inProcessPages.delete(urls.size());
-            urls = inProcessPages.get(100);
+        if (config.isCheckpointInProcessPages()) {
+          inProcessPagesLog = new InProcessPagesLog(env, config, webURLBinding);
+          retainReferencedParentUrls();
+          List<WebURL> previousPages = inProcessPagesLog.getPreviousPages();
+          if (!previousPages.isEmpty()) {
+            logger.info("Rescheduling {} URLs from previous crawl.", previousPages.size());
+            scheduledPages -= previousPages.size();
+            scheduleAll(previousPages);
+            inProcessPagesLog.clearPreviousPages();
+          }
+        } else {
+          inProcessPages = new InProcessPagesDB(env, webURLBinding);
+          retainReferencedParentUrls();
+          long numPreviouslyInProcessPages = inProcessPages.getLength();
+          if (numPreviouslyInProcessPages > 0) {
+            logger.info("Rescheduling {} URLs from previous crawl.", numPreviouslyInProcessPages);
+            scheduledPages -= numPreviouslyInProcessPages;
+            // 从数据库中读取数据进行调度
+            // 页面分为Scheduled和Processed页面，Scheduled分为正在抓取的(inProcessPages)和等待抓取的。
+            List<WebURL> urls = inProcessPages.get(100);
+            while (urls.size() > 0) {
+              scheduleAll(urls);
+              inProcessPages.delete(urls.size());
+              urls = inProcessPages.get(100);
+            }
           }
         }
       } else {
         inProcessPages = null;
-        scheduledPages = 0;	//Ҫresume
+        scheduledPages = 0;	//不需要resume
       }
     } catch (DatabaseException e) {
       logger.error("Error while initializing the Frontier", e);
       workQueues = null;
     }
+
+    if (config.getLeaseTimeout() > 0) {
+      leases = new Leases(config);
+      leaseReaper = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          reapExpiredLeases();
+        }
+      }, "Lease reaper");
+      leaseReaper.setDaemon(true);
+      leaseReaper.start();
+    }
+  }
+
+  // 定期把租约过期的url放回队列
+  private void reapExpiredLeases() {
+    long interval = Math.max(100, Math.min(config.getLeaseTimeout() / 4, 10000));
+    while (!isFinished) {
+      try {
+        Thread.sleep(interval);
+      } catch (InterruptedException e) {
+        return;
+      }
+      List<WebURL> expired = leases.removeExpired(System.currentTimeMillis());
+      if (expired.isEmpty() || isFinished) {
+        continue;
+      }
+      logger.warn("Leases of {} URLs expired, putting them back into the queue", expired.size());
+      lock.lock();
+      try {
+        requeue(expired);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Puts URLs which were handed out to a crawler but will not be processed
+   * back into the queue, such as those left in the local deque of a crawler
+   * that exits. URLs whose lease already expired are in the queue again and
+   * are skipped. Once the crawl is finished the URLs stay in process, so a
+   * resumed crawl schedules them again.
+   */
+  public void putBack(List<WebURL> urls) {
+    List<WebURL> returned = urls;
+    if (leases != null) {
+      returned = new ArrayList<>(urls.size());
+      for (WebURL url : urls) {
+        if (leases.release(url)) {
+          returned.add(url);
+        }
+      }
+    }
+    lock.lock();
+    try {
+      if (!isFinished && !returned.isEmpty()) {
+        requeue(returned);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // 把已分配给爬虫的url放回队列，调用时必须持有lock
+  private void requeue(List<WebURL> urls) {
+    for (WebURL url : urls) {
+      try {
+        if (workQueues.put(url)) {
+          recordQueued(url, 1);
+        }
+      } catch (DatabaseException e) {
+        logger.error("Error while putting the url back in the work queue", e);
+      }
+      if (inProcessPages != null) {
+        inProcessPages.removeURL(url);
+      }
+    }
+    // 在重新分配之前写入删除记录，否则恢复时会丢失再次分配的url
+    if (inProcessPagesLog != null) {
+      try {
+        inProcessPagesLog.removeAll(urls);
+      } catch (DatabaseException e) {
+        logger.error("Error while removing the requeued urls from the in-process pages", e);
+      }
+    }
+    counters.increment(ReservedCounterNames.REQUEUED_PAGES, urls.size());
+    signalWork(urls.size());
   }
 
   public void scheduleAll(List<WebURL> urls) {
     int maxPagesToFetch = config.getMaxPagesToFetch();
-    synchronized (mutex) {
-      int newScheduledPage = 0;
+    CrawlEventListener events = CrawlEvents.getListener();
+    Object started = events == null ? null : events.begin(CrawlEventListener.Operation.FRONTIER_SCHEDULE);
+    long start = events == null ? 0 : System.nanoTime();
+    lock.lock();
+    long locked = events == null ? 0 : System.nanoTime();
+    int newScheduledPage = 0;
+    try {
       for (WebURL url : urls) {
         if (maxPagesToFetch > 0 && (scheduledPages + newScheduledPage) >= maxPagesToFetch) {
           break;
         }
 
         try {
-          workQueues.put(url);
-          newScheduledPage++;
+          // 已经在队列中的url只会被覆盖，不计入已调度的页面数
+          if (workQueues.put(url)) {
+            recordQueued(url, 1);
+            newScheduledPage++;
+          }
         } catch (DatabaseException e) {
           logger.error("Error while putting the url in the work queue", e);
         }
@@ -99,74 +250,236 @@ public class Frontier extends Configurable {
       if (newScheduledPage > 0) {
         scheduledPages += newScheduledPage;
         counters.increment(Counters.ReservedCounterNames.SCHEDULED_PAGES, newScheduledPage);
+        signalWork(newScheduledPage);
       }
-      synchronized (waitingList) {
-        waitingList.notifyAll();
+    } finally {
+      lock.unlock();
+      if (events != null) {
+        events.urlsScheduled(started, urls.size(), newScheduledPage, locked - start, System.nanoTime() - start);
       }
     }
   }
 
   public void schedule(WebURL url) {
     int maxPagesToFetch = config.getMaxPagesToFetch();
-    synchronized (mutex) {
-      try {
-        if (maxPagesToFetch < 0 || scheduledPages < maxPagesToFetch) {
-          workQueues.put(url);
-          scheduledPages++;
-          counters.increment(Counters.ReservedCounterNames.SCHEDULED_PAGES);
+    CrawlEventListener events = CrawlEvents.getListener();
+    Object started = events == null ? null : events.begin(CrawlEventListener.Operation.FRONTIER_SCHEDULE);
+    long start = events == null ? 0 : System.nanoTime();
+    lock.lock();
+    long locked = events == null ? 0 : System.nanoTime();
+    int scheduled = 0;
+    try {
+      if ((maxPagesToFetch < 0 || scheduledPages < maxPagesToFetch) && workQueues.put(url)) {
+        recordQueued(url, 1);
+        scheduledPages++;
+        scheduled = 1;
+        counters.increment(Counters.ReservedCounterNames.SCHEDULED_PAGES);
+        signalWork(1);
+      }
+    } catch (DatabaseException e) {
+      logger.error("Error while putting the url in the work queue", e);
+    } finally {
+      lock.unlock();
+      if (events != null) {
+        events.urlsScheduled(started, 1, scheduled, locked - start, System.nanoTime() - start);
+      }
+    }
+  }
+
+  /**
+   * Counts the references of the records of a resumed crawl to parent URLs
+   * in the URL dictionary, and drops the parent URLs nothing refers to
+   * anymore. Must run before records are moved or written.
+   */
+  // 恢复爬取时重新统计已保存的记录对父页面url的引用，并删除没有被引用的父页面url
+  private void retainReferencedParentUrls() throws DatabaseException {
+    workQueues.retainReferencedParentUrls();
+    if (inProcessPages != null) {
+      inProcessPages.retainReferencedParentUrls();
+    }
+    int removed = urlDictionary.removeUnreferencedParentUrls();
+    if (removed > 0) {
+      logger.debug("Removed {} parent urls which are no longer referred to from the URL dictionary", removed);
+    }
+  }
+
+  /**
+   * Keeps the number of queued URLs of each host in the given table. The
+   * URLs already in the queue, such as those of a resumed crawl, are counted
+   * first; from then on URLs are counted when they are put into the queue
+   * and when they are handed out to a crawler.
+   */
+  public void setHostStats(HostStatsTable hostStats) {
+    lock.lock();
+    try {
+      if (workQueues != null && workQueues.getLength() > 0) {
+        Map<String, Integer> counts = new HashMap<>();
+        workQueues.countByHost(counts);
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+          hostStats.recordQueued(entry.getKey(), entry.getValue());
         }
-      } catch (DatabaseException e) {
-        logger.error("Error while putting the url in the work queue", e);
       }
+      this.hostStats = hostStats;
+    } catch (DatabaseException e) {
+      logger.error("Error while counting the queued urls of each host", e);
+    } finally {
+      lock.unlock();
     }
   }
 
-  //ȡmaxURLs,浽result
+  // 调用时必须持有lock
+  private void recordQueued(WebURL url, int count) {
+    if (hostStats != null) {
+      hostStats.recordQueued(url.getHost(), count);
+    }
+  }
+
+  // 唤醒最多count个正在等待的爬虫，调用时必须持有lock
+  private void signalWork(int count) {
+    int n = Math.min(count, waitingCrawlers);
+    for (int i = 0; i < n; i++) {
+      workAvailable.signal();
+    }
+  }
+
+  /**
+   * Takes up to max URLs from the queue. If the queue is empty, blocks until
+   * URLs are scheduled or the crawl finishes.
+   *
+   * @param max maximum number of URLs to take
+   * @param result list the URLs are added to, empty if the crawl finished
+   */
+  //获取接下来的max条URLs,存到result中
   public void getNextURLs(int max, List<WebURL> result) {
-    while (true) {
-      synchronized (mutex) {
-        if (isFinished) {
-          return;
-        }
+    getNextURLs(max, result, -1);
+  }
+
+  /**
+   * Takes up to max URLs from the queue. If the queue is empty, waits at
+   * most timeout milliseconds for URLs to be scheduled.
+   *
+   * @param max maximum number of URLs to take
+   * @param result list the URLs are added to, empty if the crawl finished or the timeout passed
+   * @param timeout time in milliseconds to wait for URLs, 0 to return at once, or a negative
+   *                value to wait until URLs are scheduled or the crawl finishes
+   */
+  public void getNextURLs(int max, List<WebURL> result, long timeout) {
+    getNextURLs(max, result, timeout, 0);
+  }
+
+  /**
+   * Takes up to max URLs from the queue like {@link #getNextURLs(int, List, long)}.
+   * When host affinity is enabled, URLs of the hosts served by the crawler
+   * are preferred, and URLs of other hosts are only handed out if there are
+   * none.
+   *
+   * @param crawlerId id of the crawler which takes the URLs, 0 if unknown
+   */
+  public void getNextURLs(int max, List<WebURL> result, long timeout, int crawlerId) {
+    long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+    CrawlEventListener events = CrawlEvents.getListener();
+    Object started = events == null ? null : events.begin(CrawlEventListener.Operation.FRONTIER_DEQUEUE);
+    long start = events == null ? 0 : System.nanoTime();
+    int sizeBefore = result.size();
+    lock.lock();
+    long locked = events == null ? 0 : System.nanoTime();
+    try {
+      while (!isFinished) {
         try {
-          List<WebURL> curResults = workQueues.get(max);
-          workQueues.delete(curResults.size());
-          //ֵinPreocessPagesݿ
+          // 启用host亲和时先从该爬虫负责的分组中获取，分组为空时再从整个队列中获取
+          int group = -1;
+          List<WebURL> curResults = null;
+          if (hostAffinityQueues != null && crawlerId > 0) {
+            group = hostAffinityQueues.getGroupOfCrawler(crawlerId);
+            curResults = hostAffinityQueues.get(group, max);
+            if (curResults.isEmpty()) {
+              group = -1;
+            }
+          }
+          if (group < 0) {
+            curResults = workQueues.get(max);
+          }
+          // 先记录到日志中再从队列中删除，保证崩溃时不会丢失url
+          if (inProcessPagesLog != null) {
+            inProcessPagesLog.addAll(curResults);
+          }
+          if (group < 0) {
+            workQueues.delete(curResults.size());
+          } else {
+            hostAffinityQueues.delete(group, curResults.size());
+          }
+          //保持到inPreocessPages数据库中
           if (inProcessPages != null) {
             for (WebURL curPage : curResults) {
               inProcessPages.put(curPage);
             }
           }
+          if (leases != null) {
+            leases.grant(curResults);
+          }
+          for (WebURL curPage : curResults) {
+            recordQueued(curPage, -1);
+          }
           result.addAll(curResults);
         } catch (DatabaseException e) {
           logger.error("Error while getting next urls", e);
         }
 
-        if (result.size() > 0) {
+        if (result.size() > 0 || (timeout >= 0 && nanos <= 0)) {
           return;
         }
-      }
 
-      try {
-        synchronized (waitingList) {
-          waitingList.wait();
+        waitingCrawlers++;
+        try {
+          if (timeout < 0) {
+            workAvailable.awaitUninterruptibly();
+          } else {
+            nanos = workAvailable.awaitNanos(nanos);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        } finally {
+          waitingCrawlers--;
         }
-      } catch (InterruptedException ignored) {
-        // Do nothing
       }
-      if (isFinished) {
-        return;
+    } finally {
+      lock.unlock();
+      if (events != null) {
+        events.urlsDequeued(started, crawlerId, max, result.size() - sizeBefore, locked - start,
+            System.nanoTime() - start);
       }
     }
   }
 
+  /**
+   * Extends the lease on the batch of URLs that contains the given URL.
+   * Crawlers call this whenever they start processing one of their URLs.
+   *
+   * @return false if the lease expired and the URL was put back into the
+   *         queue, in which case the crawler must skip it
+   */
+  public boolean renewLease(WebURL webURL) {
+    return leases == null || leases.renew(webURL);
+  }
+
   public void setProcessed(WebURL webURL) {
+    // 租约在处理过程中过期时，url已经被放回队列，由重新获取它的爬虫计数
+    if (leases != null && !leases.release(webURL)) {
+      logger.debug("Lease of {} expired while it was processed, it is crawled again", webURL.getURL());
+      return;
+    }
     counters.increment(ReservedCounterNames.PROCESSED_PAGES);
     if (inProcessPages != null) {
       if (!inProcessPages.removeURL(webURL)) {
         logger.warn("Could not remove: {} from list of processed pages.", webURL.getURL());
       }
     }
+    if (inProcessPagesLog != null) {
+      if (!inProcessPagesLog.removeURL(webURL)) {
+        logger.warn("Could not remove: {} from list of processed pages.", webURL.getURL());
+      }
+    }
   }
 
   public long getQueueLength() {
@@ -174,13 +487,43 @@ public class Frontier extends Configurable {
   }
 
   public long getNumberOfAssignedPages() {
-    return inProcessPages.getLength();
+    if (inProcessPagesLog != null) {
+      return inProcessPagesLog.getLength();
+    }
+    // Pages in process are only tracked by resumable crawls
+    return inProcessPages == null ? 0 : inProcessPages.getLength();
+  }
+
+  /**
+   * @return number of URLs handed out to crawlers whose lease has neither been released nor expired
+   */
+  public long getNumberOfLeasedPages() {
+    return leases == null ? 0 : leases.size();
+  }
+
+  /**
+   * @return number of crawlers blocked in getNextURLs waiting for URLs
+   */
+  public int getNumberOfWaitingCrawlers() {
+    lock.lock();
+    try {
+      return waitingCrawlers;
+    } finally {
+      lock.unlock();
+    }
   }
 
   public long getNumberOfProcessedPages() {
     return counters.getValue(ReservedCounterNames.PROCESSED_PAGES);
   }
 
+  /**
+   * @return the counters of this crawl, which can also hold user metrics
+   */
+  public Counters getCounters() {
+    return counters;
+  }
+
   public boolean isFinished() {
     return isFinished;
   }
@@ -191,12 +534,24 @@ public class Frontier extends Configurable {
     if (inProcessPages != null) {
       inProcessPages.close();
     }
+    if (inProcessPagesLog != null) {
+      inProcessPagesLog.close();
+    }
+    if (urlDictionary != null) {
+      urlDictionary.close();
+    }
   }
 
   public void finish() {
-    isFinished = true;
-    synchronized (waitingList) {
-      waitingList.notifyAll();
+    lock.lock();
+    try {
+      isFinished = true;
+      workAvailable.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    if (leaseReaper != null) {
+      leaseReaper.interrupt();
     }
   }
 }
\ No newline at end of file
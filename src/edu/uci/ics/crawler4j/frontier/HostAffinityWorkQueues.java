@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.Environment;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+import java.util.List;
+
+/**
+ * Work queues which split the URLs into groups by their host, so that the
+ * URLs of one host are always handed out to the same crawlers and those
+ * crawlers can reuse their pooled connections to the host.
+ *
+ * The key of a URL is the key used by {@link WorkQueues}, prefixed with the
+ * group of its host. Within a group, URLs keep the priority, depth and
+ * docid order. Crawler n serves group n modulo the number of groups.
+ */
+// 按照host把url分组的队列，同一个host的url总是分配给同一组爬虫，以便复用连接
+public class HostAffinityWorkQueues extends WorkQueues {
+
+  private final int groups;
+
+  public HostAffinityWorkQueues(Environment env, String dbName, boolean resumable,
+      WebURLTupleBinding webURLBinding, int groups) throws DatabaseException {
+    super(env, dbName, resumable, webURLBinding);
+    this.groups = groups;
+  }
+
+  /**
+   * @return the group of the URL's host
+   */
+  public int getGroup(WebURL url) {
+    return Math.floorMod(url.getHost().hashCode(), groups);
+  }
+
+  /**
+   * @return the group which the crawler with the given id serves
+   */
+  public int getGroupOfCrawler(int crawlerId) {
+    return Math.floorMod(crawlerId, groups);
+  }
+
+  /**
+   * @return the first max URLs of the group
+   */
+  public List<WebURL> get(int group, int max) throws DatabaseException {
+    return get(new byte[] {(byte) group}, max);
+  }
+
+  /**
+   * Deletes the first count URLs of the group.
+   */
+  public void delete(int group, int count) throws DatabaseException {
+    delete(new byte[] {(byte) group}, count);
+  }
+
+  // 在WorkQueues的key之前加上host所在的分组
+  @Override
+  protected DatabaseEntry getDatabaseEntryKey(WebURL url) {
+    byte[] keyData = new byte[7];
+    keyData[0] = (byte) getGroup(url);
+    System.arraycopy(super.getDatabaseEntryKey(url).getData(), 0, keyData, 1, 6);
+    return new DatabaseEntry(keyData);
+  }
+}
@@ -41,7 +41,11 @@ public class InProcessPagesDB extends WorkQueues {
   private static final Logger logger = LoggerFactory.getLogger(InProcessPagesDB.class);
 
   public InProcessPagesDB(Environment env) throws DatabaseException {
-    super(env, "InProcessPagesDB", true);
+    this(env, new WebURLTupleBinding());
+  }
+
+  public InProcessPagesDB(Environment env, WebURLTupleBinding webURLBinding) throws DatabaseException {
+    super(env, "InProcessPagesDB", true, webURLBinding);
     long docCount = getLength();
     if (docCount > 0) {
       logger.info("Loaded {} URLs that have been in process in the previous crawl.", docCount);
@@ -55,6 +59,7 @@ public class InProcessPagesDB extends WorkQueues {
         Cursor cursor = null;
         OperationStatus result;
         DatabaseEntry value = new DatabaseEntry();
+        boolean removed = false;
         Transaction txn = env.beginTransaction(null, null);
         try {
           cursor = urlsDB.openCursor(txn, null);
@@ -63,7 +68,8 @@ public class InProcessPagesDB extends WorkQueues {
           if (result == OperationStatus.SUCCESS) {
             result = cursor.delete();
             if (result == OperationStatus.SUCCESS) {
-              return true;
+              length.decrementAndGet();
+              removed = true;
             }
           }
         } catch (DatabaseException e) {
@@ -80,6 +86,10 @@ public class InProcessPagesDB extends WorkQueues {
             txn.commit();
           }
         }
+        if (removed) {
+          webURLBinding.releaseParentUrl(webURLBinding.getReferencedParentDocid(value));
+          return true;
+        }
       } catch (Exception e) {
         logger.error("Error while manipulating the DB of links from previous crawls", e);
       }
@@ -0,0 +1,357 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.je.*;
+import edu.uci.ics.crawler4j.crawler.Configurable;
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.url.WebURL;
+import edu.uci.ics.crawler4j.util.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the pages which are assigned to crawlers but are not yet processed
+ * in memory, and records them in an append-only log so that a resumed
+ * crawl can schedule them again, like {@link InProcessPagesDB} does.
+ *
+ * Pages handed out by the frontier are appended as one record per batch
+ * before they leave the work queues, so none of them can be lost. Processed
+ * pages are only removed in memory; the removals are appended as one record
+ * every {@link CrawlConfig#getInProcessPagesCheckpointInterval()}
+ * milliseconds and on close. After a crash, pages processed during the last
+ * interval are crawled again. Once the log has grown, the next checkpoint
+ * writes a snapshot of the current pages and drops the older records.
+ *
+ * A resumed crawl reads every record in the log, so each record holds its
+ * references to parent URLs in the {@link URLDictionary} until a snapshot
+ * drops it.
+ */
+// 在内存中记录正在处理的页面，并以只追加的日志形式批量保存到数据库中
+public class InProcessPagesLog extends Configurable {
+
+  private static final Logger logger = LoggerFactory.getLogger(InProcessPagesLog.class);
+
+  // 日志记录的类型
+  private static final byte ADDED = 1;
+  private static final byte REMOVED = 2;
+  private static final byte SNAPSHOT = 3;
+
+  // 快照之后超过这么多条记录时，下一次检查点会写入新的快照
+  private static final int RECORDS_PER_SNAPSHOT = 1000;
+
+  protected Database logDB;
+  protected Environment env;
+
+  protected final WebURLTupleBinding webURLBinding;
+
+  protected final Object mutex = new Object();
+
+  private final Map<Integer, WebURL> inProcessPages = new ConcurrentHashMap<>();
+  private List<Integer> pendingRemovals = new ArrayList<>();
+  private final List<WebURL> previousPages;
+  // 日志中的记录引用的父页面url的docid，写入快照删除这些记录之后释放
+  private List<Integer> loggedParentDocids = new ArrayList<>();
+
+  private long nextRecordId = 0;
+  private long firstRecordId = 0;
+
+  private Thread checkpointThread;
+  private volatile boolean closed = false;
+
+  public InProcessPagesLog(Environment env, CrawlConfig config, WebURLTupleBinding webURLBinding)
+      throws DatabaseException {
+    super(config);
+    this.env = env;
+    this.webURLBinding = webURLBinding;
+
+    DatabaseConfig dbConfig = new DatabaseConfig();
+    dbConfig.setAllowCreate(true);
+    dbConfig.setTransactional(true);
+    logDB = env.openDatabase(null, "InProcessPagesLog", dbConfig);
+
+    Map<Integer, WebURL> recovered = replay();
+    previousPages = new ArrayList<>(recovered.values());
+    if (!previousPages.isEmpty()) {
+      logger.info("Loaded {} URLs that have been in process in the previous crawl.", previousPages.size());
+    }
+
+    checkpointThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        checkpointLoop();
+      }
+    }, "In-process pages checkpoint");
+    checkpointThread.setDaemon(true);
+    checkpointThread.start();
+  }
+
+  // 按顺序重放日志，得到上一次爬取结束时正在处理的页面
+  private Map<Integer, WebURL> replay() throws DatabaseException {
+    Map<Integer, WebURL> pages = new LinkedHashMap<>();
+    DatabaseEntry key = new DatabaseEntry();
+    DatabaseEntry value = new DatabaseEntry();
+    boolean first = true;
+    try (Cursor cursor = logDB.openCursor(null, null)) {
+      while (cursor.getNext(key, value, null) == OperationStatus.SUCCESS) {
+        long recordId = Util.byteArray2Long(key.getData());
+        if (first) {
+          firstRecordId = recordId;
+          first = false;
+        }
+        nextRecordId = recordId + 1;
+
+        TupleInput input = new TupleInput(value.getData());
+        byte type = input.readByte();
+        int count = input.readPackedInt();
+        if (type == SNAPSHOT) {
+          pages.clear();
+        }
+        for (int i = 0; i < count; i++) {
+          if (type == REMOVED) {
+            pages.remove(input.readPackedInt());
+          } else {
+            int parentDocid = webURLBinding.getReferencedParentDocid(input);
+            if (parentDocid > 0) {
+              webURLBinding.retainParentUrl(parentDocid);
+              loggedParentDocids.add(parentDocid);
+            }
+            WebURL url = webURLBinding.entryToObject(input);
+            pages.put(url.getDocid(), url);
+          }
+        }
+      }
+    }
+    return pages;
+  }
+
+  /**
+   * @return the pages which were in process when the previous crawl stopped
+   */
+  public List<WebURL> getPreviousPages() {
+    return Collections.unmodifiableList(previousPages);
+  }
+
+  /**
+   * Forgets the pages of the previous crawl once they are scheduled again.
+   */
+  public void clearPreviousPages() throws DatabaseException {
+    previousPages.clear();
+    synchronized (mutex) {
+      writeSnapshot();
+    }
+  }
+
+  /**
+   * Records a batch of pages handed out to the crawlers. The record is
+   * durable when this method returns.
+   */
+  public void addAll(List<WebURL> urls) throws DatabaseException {
+    if (urls.isEmpty()) {
+      return;
+    }
+    synchronized (mutex) {
+      Transaction txn = env.beginTransaction(null, null);
+      try {
+        TupleOutput output = new TupleOutput();
+        output.writeByte(ADDED);
+        output.writePackedInt(urls.size());
+        for (WebURL url : urls) {
+          webURLBinding.objectToEntry(txn, url, output);
+        }
+        append(txn, output);
+        txn.commit();
+      } catch (DatabaseException e) {
+        txn.abort();
+        webURLBinding.onTransactionAbort();
+        throw e;
+      }
+      // 在锁内加入内存，保证之后的快照一定包含这些页面
+      for (WebURL url : urls) {
+        inProcessPages.put(url.getDocid(), url);
+      }
+      addLoggedParentDocids(urls);
+    }
+  }
+
+  /**
+   * Removes a processed page. The removal is written at the next checkpoint.
+   *
+   * @return true if the page was in process
+   */
+  public boolean removeURL(WebURL webUrl) {
+    if (inProcessPages.remove(webUrl.getDocid()) == null) {
+      return false;
+    }
+    synchronized (mutex) {
+      pendingRemovals.add(webUrl.getDocid());
+    }
+    return true;
+  }
+
+  /**
+   * Removes pages which are put back into the work queues. Unlike
+   * {@link #removeURL(WebURL)} the removal is durable when this method
+   * returns, so it is replayed before the pages are handed out again.
+   */
+  public void removeAll(List<WebURL> urls) throws DatabaseException {
+    if (urls.isEmpty()) {
+      return;
+    }
+    TupleOutput output = new TupleOutput();
+    output.writeByte(REMOVED);
+    output.writePackedInt(urls.size());
+    for (WebURL url : urls) {
+      output.writePackedInt(url.getDocid());
+    }
+    synchronized (mutex) {
+      append(null, output);
+      for (WebURL url : urls) {
+        inProcessPages.remove(url.getDocid());
+      }
+    }
+  }
+
+  public long getLength() {
+    return inProcessPages.size();
+  }
+
+  private void checkpointLoop() {
+    while (!closed) {
+      try {
+        synchronized (this) {
+          wait(config.getInProcessPagesCheckpointInterval());
+        }
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (!closed) {
+        checkpoint();
+      }
+    }
+  }
+
+  /**
+   * Appends the removals since the last checkpoint to the log, or replaces
+   * the log with a snapshot if it has grown too long.
+   */
+  public void checkpoint() {
+    synchronized (mutex) {
+      try {
+        if (nextRecordId - firstRecordId > RECORDS_PER_SNAPSHOT) {
+          writeSnapshot();
+          return;
+        }
+        if (pendingRemovals.isEmpty()) {
+          return;
+        }
+        TupleOutput output = new TupleOutput();
+        output.writeByte(REMOVED);
+        output.writePackedInt(pendingRemovals.size());
+        for (int docid : pendingRemovals) {
+          output.writePackedInt(docid);
+        }
+        append(null, output);
+        pendingRemovals = new ArrayList<>();
+      } catch (DatabaseException e) {
+        logger.error("Error while writing the checkpoint of in-process pages", e);
+      }
+    }
+  }
+
+  // 写入当前所有正在处理的页面，并删除之前的记录
+  private void writeSnapshot() throws DatabaseException {
+    List<WebURL> pages = new ArrayList<>(inProcessPages.values());
+    Transaction txn = env.beginTransaction(null, null);
+    try {
+      TupleOutput output = new TupleOutput();
+      output.writeByte(SNAPSHOT);
+      output.writePackedInt(pages.size());
+      for (WebURL url : pages) {
+        webURLBinding.objectToEntry(txn, url, output);
+      }
+      long snapshotId = nextRecordId;
+      append(txn, output);
+      DatabaseEntry key = new DatabaseEntry();
+      DatabaseEntry value = new DatabaseEntry();
+      try (Cursor cursor = logDB.openCursor(txn, null)) {
+        while (cursor.getNext(key, value, null) == OperationStatus.SUCCESS
+            && Util.byteArray2Long(key.getData()) < snapshotId) {
+          cursor.delete();
+        }
+      }
+      txn.commit();
+      firstRecordId = snapshotId;
+      pendingRemovals = new ArrayList<>();
+    } catch (DatabaseException e) {
+      txn.abort();
+      webURLBinding.onTransactionAbort();
+      throw e;
+    }
+    // 之前的记录已经删除，只有快照中的页面还引用父页面url
+    List<Integer> dropped = loggedParentDocids;
+    loggedParentDocids = new ArrayList<>();
+    addLoggedParentDocids(pages);
+    for (int parentDocid : dropped) {
+      webURLBinding.releaseParentUrl(parentDocid);
+    }
+  }
+
+  private void addLoggedParentDocids(List<WebURL> urls) {
+    for (WebURL url : urls) {
+      int parentDocid = webURLBinding.getReferencedParentDocid(url);
+      if (parentDocid > 0) {
+        loggedParentDocids.add(parentDocid);
+      }
+    }
+  }
+
+  private void append(Transaction txn, TupleOutput output) throws DatabaseException {
+    DatabaseEntry key = new DatabaseEntry(Util.long2ByteArray(nextRecordId));
+    DatabaseEntry value = new DatabaseEntry(output.getBufferBytes(), 0, output.getBufferLength());
+    logDB.put(txn, key, value);
+    nextRecordId++;
+  }
+
+  public void close() {
+    closed = true;
+    synchronized (this) {
+      notifyAll();
+    }
+    try {
+      checkpointThread.join();
+    } catch (InterruptedException e) {
+      logger.error("Interrupted while waiting for the checkpoint thread", e);
+    }
+    checkpoint();
+    try {
+      logDB.close();
+    } catch (DatabaseException e) {
+      logger.error("Error in InProcessPagesLog", e);
+    }
+  }
+}
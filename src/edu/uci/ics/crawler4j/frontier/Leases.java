@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import edu.uci.ics.crawler4j.crawler.Configurable;
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Leases on the batches of URLs handed out by the frontier. A lease covers
+ * the URLs of one batch that are not processed yet and expires
+ * {@link CrawlConfig#getLeaseTimeout()} milliseconds after it was granted
+ * or last renewed. Crawlers renew the lease of their batch whenever they
+ * start on one of its URLs, so only batches of crawlers that stopped making
+ * progress expire.
+ */
+// 记录分配给爬虫的每一批url的租约，超时未处理的url会被重新放回队列
+public class Leases extends Configurable {
+
+  // 一批url的租约
+  private static class Lease {
+    final Map<Integer, WebURL> urls = new ConcurrentHashMap<>();
+    volatile long deadline;
+
+    Lease(long deadline) {
+      this.deadline = deadline;
+    }
+  }
+
+  private final Map<Integer, Lease> leasesByDocid = new ConcurrentHashMap<>();
+  private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+
+  public Leases(CrawlConfig config) {
+    super(config);
+  }
+
+  /**
+   * Grants a lease on a batch of URLs.
+   */
+  public void grant(List<WebURL> urls) {
+    if (urls.isEmpty()) {
+      return;
+    }
+    Lease lease = new Lease(System.currentTimeMillis() + config.getLeaseTimeout());
+    for (WebURL url : urls) {
+      lease.urls.put(url.getDocid(), url);
+      leasesByDocid.put(url.getDocid(), lease);
+    }
+    leases.add(lease);
+  }
+
+  /**
+   * Extends the lease of the batch that contains the URL.
+   *
+   * @return false if the URL is not leased, e.g. because its lease expired
+   */
+  public boolean renew(WebURL url) {
+    Lease lease = leasesByDocid.get(url.getDocid());
+    if (lease == null) {
+      return false;
+    }
+    lease.deadline = System.currentTimeMillis() + config.getLeaseTimeout();
+    return true;
+  }
+
+  /**
+   * Releases the lease on a processed URL.
+   *
+   * @return false if the URL is not leased
+   */
+  public boolean release(WebURL url) {
+    Lease lease = leasesByDocid.remove(url.getDocid());
+    if (lease == null) {
+      return false;
+    }
+    lease.urls.remove(url.getDocid());
+    if (lease.urls.isEmpty()) {
+      leases.remove(lease);
+    }
+    return true;
+  }
+
+  /**
+   * Removes the leases whose deadline has passed.
+   *
+   * @return the URLs of the expired leases which were not processed
+   */
+  public List<WebURL> removeExpired(long now) {
+    List<WebURL> expired = new ArrayList<>();
+    Iterator<Lease> iterator = leases.iterator();
+    while (iterator.hasNext()) {
+      Lease lease = iterator.next();
+      if (lease.deadline > now) {
+        continue;
+      }
+      iterator.remove();
+      for (WebURL url : lease.urls.values()) {
+        // 只有仍属于这个租约的url才需要重新调度
+        if (leasesByDocid.remove(url.getDocid(), lease)) {
+          expired.add(url);
+        }
+      }
+    }
+    return expired;
+  }
+
+  /**
+   * @return number of leased URLs which are not processed yet
+   */
+  public int size() {
+    return leasesByDocid.size();
+  }
+}
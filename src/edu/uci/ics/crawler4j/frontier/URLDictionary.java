@@ -0,0 +1,299 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.sleepycat.je.*;
+import edu.uci.ics.crawler4j.util.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared strings of the compact frontier encoding: the hosts
+ * ("scheme://host:port") of queued URLs, which get small ids, and the URLs
+ * of parent pages, which are referenced by their docid. Both are stored in
+ * a database next to the queues and the most recently used entries are
+ * cached in memory. The caches are concurrent, so decoding URLs does not
+ * serialize the crawlers.
+ *
+ * Host entries are written in the transaction of the record which refers
+ * to them and are kept for the whole crawl. Parent URLs are reference
+ * counted in memory: an entry is written when the first record refers to
+ * it and removed when the last one is gone. A resumed crawl counts the
+ * references of the stored records again with {@link #retainParentUrl(int)}
+ * and then drops the entries nothing refers to with
+ * {@link #removeUnreferencedParentUrls()}.
+ */
+// 紧凑编码中共享的字符串：host用一个较小的id表示，父页面的url用其docid表示
+public class URLDictionary {
+
+  private static final Logger logger = LoggerFactory.getLogger(URLDictionary.class);
+
+  private static final int CACHE_SIZE = 10000;
+
+  // 数据库中key的第一个字节表示记录的类型
+  private static final byte HOST_TO_ID = 'h';
+  private static final byte ID_TO_HOST = 'i';
+  private static final byte PARENT_URL = 'p';
+  private static final byte NEXT_HOST_ID = 'n';
+
+  protected Database dictionaryDB;
+  protected Environment env;
+  protected boolean resumable;
+
+  // 只在分配新的host id时加锁
+  private final Object hostIdMutex = new Object();
+  private int nextHostId = 1;
+
+  // 数据库中父页面url的数量
+  private final AtomicLong parentUrlCount = new AtomicLong();
+
+  // 每个父页面url被多少条记录引用，引用数降为0时删除该条目
+  private final ConcurrentHashMap<Integer, Integer> parentReferences = new ConcurrentHashMap<>();
+
+  private final Cache<String, Integer> hostIds = newCache();
+  private final Cache<Integer, String> hosts = newCache();
+  private final Cache<Integer, String> parentUrls = newCache();
+
+  private static <K, V> Cache<K, V> newCache() {
+    return CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+  }
+
+  public URLDictionary(Environment env, boolean resumable) throws DatabaseException {
+    this.env = env;
+    this.resumable = resumable;
+    DatabaseConfig dbConfig = new DatabaseConfig();
+    dbConfig.setAllowCreate(true);
+    dbConfig.setTransactional(resumable);
+    dbConfig.setDeferredWrite(!resumable);
+    dictionaryDB = env.openDatabase(null, "URLDictionary", dbConfig);
+
+    DatabaseEntry value = new DatabaseEntry();
+    if (dictionaryDB.get(null, new DatabaseEntry(new byte[] {NEXT_HOST_ID}), value, null)
+        == OperationStatus.SUCCESS) {
+      nextHostId = Util.byteArray2Int(value.getData());
+    }
+    try (Cursor cursor = dictionaryDB.openCursor(null, null)) {
+      DatabaseEntry key = new DatabaseEntry(new byte[] {PARENT_URL});
+      value.setPartial(0, 0, true);
+      OperationStatus result = cursor.getSearchKeyRange(key, value, null);
+      while (result == OperationStatus.SUCCESS && key.getData()[0] == PARENT_URL) {
+        parentUrlCount.incrementAndGet();
+        result = cursor.getNext(key, value, null);
+      }
+    }
+  }
+
+  /**
+   * @param txn transaction in which a new host is written, or null
+   * @return id of the host, a new one is assigned if the host has not been seen before
+   */
+  public int getHostId(Transaction txn, String host) throws DatabaseException {
+    Integer id = hostIds.getIfPresent(host);
+    if (id != null) {
+      return id;
+    }
+    synchronized (hostIdMutex) {
+      DatabaseEntry key = key(HOST_TO_ID, host);
+      DatabaseEntry value = new DatabaseEntry();
+      if (dictionaryDB.get(txn, key, value, null) == OperationStatus.SUCCESS) {
+        id = Util.byteArray2Int(value.getData());
+      } else {
+        id = nextHostId++;
+        dictionaryDB.put(txn, key(ID_TO_HOST, id), new DatabaseEntry(host.getBytes(StandardCharsets.UTF_8)));
+        dictionaryDB.put(txn, key, new DatabaseEntry(Util.int2ByteArray(id)));
+        dictionaryDB.put(txn, new DatabaseEntry(new byte[] {NEXT_HOST_ID}),
+            new DatabaseEntry(Util.int2ByteArray(nextHostId)));
+      }
+      hostIds.put(host, id);
+      hosts.put(id, host);
+    }
+    return id;
+  }
+
+  /**
+   * @return the host with the given id, or null if the id is unknown
+   */
+  public String getHost(int id) throws DatabaseException {
+    String host = hosts.getIfPresent(id);
+    if (host == null) {
+      host = getString(key(ID_TO_HOST, id));
+      if (host != null) {
+        hosts.put(id, host);
+      }
+    }
+    return host;
+  }
+
+  /**
+   * Adds a reference to the URL of a parent page, so that a record can refer
+   * to it by docid. The entry is written when the first reference is added,
+   * on its own and before the record, so a stored record never refers to a
+   * missing entry. If the record is then not stored, the entry is kept
+   * until the crawl is resumed.
+   */
+  public void retainParentUrl(final int docid, final String url) throws DatabaseException {
+    parentReferences.compute(docid, (id, count) -> {
+      if (count != null) {
+        return count + 1;
+      }
+      DatabaseEntry key = key(PARENT_URL, docid);
+      DatabaseEntry value = new DatabaseEntry(url.getBytes(StandardCharsets.UTF_8));
+      if (dictionaryDB.putNoOverwrite(null, key, value) == OperationStatus.KEYEXIST) {
+        dictionaryDB.put(null, key, value);
+      } else {
+        parentUrlCount.incrementAndGet();
+      }
+      parentUrls.put(docid, url);
+      return 1;
+    });
+  }
+
+  /**
+   * Adds a reference to a parent URL which is already stored, for a record
+   * loaded by a resumed crawl.
+   */
+  public void retainParentUrl(int docid) {
+    parentReferences.merge(docid, 1, Integer::sum);
+  }
+
+  /**
+   * Removes a reference to the URL of a parent page once the record which
+   * referred to it is deleted, and removes the entry with the last one.
+   */
+  public void releaseParentUrl(final int docid) throws DatabaseException {
+    parentReferences.computeIfPresent(docid, (id, count) -> {
+      if (count > 1) {
+        return count - 1;
+      }
+      if (dictionaryDB.delete(null, key(PARENT_URL, docid)) == OperationStatus.SUCCESS) {
+        parentUrlCount.decrementAndGet();
+      }
+      parentUrls.invalidate(docid);
+      return null;
+    });
+  }
+
+  /**
+   * @return the URL of the parent page with the given docid, or null if it is unknown
+   */
+  public String getParentUrl(int docid) throws DatabaseException {
+    String url = parentUrls.getIfPresent(docid);
+    if (url == null) {
+      url = getString(key(PARENT_URL, docid));
+      if (url != null) {
+        parentUrls.put(docid, url);
+      }
+    }
+    return url;
+  }
+
+  /**
+   * @return number of parent URLs in the dictionary
+   */
+  public long getParentUrlCount() {
+    return parentUrlCount.get();
+  }
+
+  /**
+   * Removes the parent URLs which no reference was counted for, i.e. those
+   * left by a previous crawl whose records are gone. Must be called after
+   * the references of all stored records are counted and before new
+   * records are written.
+   *
+   * @return number of parent URLs removed
+   */
+  public int removeUnreferencedParentUrls() throws DatabaseException {
+    int removed = 0;
+    DatabaseEntry key = new DatabaseEntry(new byte[] {PARENT_URL});
+    DatabaseEntry value = new DatabaseEntry();
+    value.setPartial(0, 0, true);
+    Transaction txn = resumable ? env.beginTransaction(null, null) : null;
+    try {
+      try (Cursor cursor = dictionaryDB.openCursor(txn, null)) {
+        OperationStatus result = cursor.getSearchKeyRange(key, value, null);
+        while (result == OperationStatus.SUCCESS && key.getData()[0] == PARENT_URL) {
+          int docid = Util.byteArray2Int(Arrays.copyOfRange(key.getData(), 1, 5));
+          if (!parentReferences.containsKey(docid)) {
+            cursor.delete();
+            removed++;
+          }
+          result = cursor.getNext(key, value, null);
+        }
+      }
+      if (txn != null) {
+        txn.commit();
+      }
+    } catch (DatabaseException e) {
+      if (txn != null) {
+        txn.abort();
+      }
+      throw e;
+    }
+    parentUrls.invalidateAll();
+    parentUrlCount.addAndGet(-removed);
+    return removed;
+  }
+
+  /**
+   * Forgets the cached entries, e.g. after a transaction which wrote some of
+   * them was aborted.
+   */
+  public void clearCache() {
+    hostIds.invalidateAll();
+    hosts.invalidateAll();
+    parentUrls.invalidateAll();
+  }
+
+  private String getString(DatabaseEntry key) throws DatabaseException {
+    DatabaseEntry value = new DatabaseEntry();
+    if (dictionaryDB.get(null, key, value, null) == OperationStatus.SUCCESS) {
+      return new String(value.getData(), StandardCharsets.UTF_8);
+    }
+    return null;
+  }
+
+  private static DatabaseEntry key(byte type, int id) {
+    byte[] data = new byte[5];
+    data[0] = type;
+    Util.putIntInByteArray(id, data, 1);
+    return new DatabaseEntry(data);
+  }
+
+  private static DatabaseEntry key(byte type, String str) {
+    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+    byte[] data = new byte[bytes.length + 1];
+    data[0] = type;
+    System.arraycopy(bytes, 0, data, 1, bytes.length);
+    return new DatabaseEntry(data);
+  }
+
+  public void close() {
+    try {
+      dictionaryDB.close();
+    } catch (DatabaseException e) {
+      logger.error("Error in URLDictionary", e);
+    }
+  }
+}
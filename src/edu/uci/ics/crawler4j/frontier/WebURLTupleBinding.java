@@ -20,18 +20,71 @@ package edu.uci.ics.crawler4j.frontier;
 import com.sleepycat.bind.tuple.TupleBinding;
 import com.sleepycat.bind.tuple.TupleInput;
 import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Transaction;
 
 import edu.uci.ics.crawler4j.url.WebURL;
 
 /**
+ * Reads and writes the URLs stored in the frontier. Two formats exist:
+ *
+ * The original one writes the URL, the parent URL and the anchor as
+ * strings.
+ *
+ * The compact one starts with {@link #COMPACT_VERSION}, a byte that can not
+ * start a string written by {@link TupleOutput#writeString(String)}. The
+ * parent URL is referenced by its docid, the host is replaced by its id in
+ * the {@link URLDictionary}, the rest of the URL is written as the length
+ * of the prefix it shares with the parent's and the remaining suffix, and
+ * numbers are written as packed (variable length) integers.
+ *
+ * Both formats can always be read, so frontiers of a resumable crawl that
+ * was started before the compact format existed still load. Records in the
+ * compact format must be written with
+ * {@link #objectToEntry(Transaction, WebURL, DatabaseEntry)} when they are
+ * stored in a transaction, so that the host entries they refer to are
+ * written in the same transaction. Writing a compact record adds a
+ * reference to its parent URL in the dictionary; the store must call
+ * {@link #releaseParentUrl(int)} once the record is deleted.
+ *
  * @author Yasser Ganjisaffar [lastname at gmail dot com]
  */
 public class WebURLTupleBinding extends TupleBinding<WebURL> {
 
-	//ҪǽWebURLеݶTupleInputȥ
+  // 0xF0-0xFF不会出现在modified UTF-8的首字节中，0xFF被用来表示null字符串
+  public static final byte COMPACT_VERSION = (byte) 0xF1;
+
+  private static final int PARENT_URL_BY_DOCID = 1;
+  private static final int PARENT_URL_INLINE = 2;
+  private static final int SAME_HOST_AS_PARENT = 4;
+  private static final int HAS_ANCHOR = 8;
+
+  private final URLDictionary dictionary;
+  private final boolean writeCompact;
+
+  /**
+   * Creates a binding that writes the original format and can only read that format.
+   */
+  public WebURLTupleBinding() {
+    this(null, false);
+  }
+
+  /**
+   * @param dictionary dictionary for hosts and parent URLs of the compact format
+   * @param writeCompact should new records be written in the compact format?
+   */
+  public WebURLTupleBinding(URLDictionary dictionary, boolean writeCompact) {
+    this.dictionary = dictionary;
+    this.writeCompact = writeCompact && dictionary != null;
+  }
+
+	//这两个函数主要是将WebURL对象中的数据读入或读出到TupleInput中去
 	
   @Override
   public WebURL entryToObject(TupleInput input) {
+    if (input.available() > 0 && input.getBufferBytes()[input.getBufferOffset()] == COMPACT_VERSION) {
+      return compactEntryToObject(input);
+    }
     WebURL webURL = new WebURL();
     webURL.setURL(input.readString());
     webURL.setDocid(input.readInt());
@@ -45,6 +98,30 @@ public class WebURLTupleBinding extends TupleBinding<WebURL> {
 
   @Override
   public void objectToEntry(WebURL url, TupleOutput output) {
+    objectToEntry(null, url, output);
+  }
+
+  /**
+   * Writes a URL, adding the dictionary entries it refers to in the given transaction.
+   *
+   * @param txn transaction in which the record is stored, or null
+   */
+  public void objectToEntry(Transaction txn, WebURL url, DatabaseEntry entry) {
+    TupleOutput output = new TupleOutput();
+    objectToEntry(txn, url, output);
+    outputToEntry(output, entry);
+  }
+
+  /**
+   * Writes a URL, adding the dictionary entries it refers to in the given transaction.
+   *
+   * @param txn transaction in which the record is stored, or null
+   */
+  public void objectToEntry(Transaction txn, WebURL url, TupleOutput output) {
+    if (writeCompact) {
+      compactObjectToEntry(txn, url, output);
+      return;
+    }
     output.writeString(url.getURL());
     output.writeInt(url.getDocid());
     output.writeInt(url.getParentDocid());
@@ -53,4 +130,186 @@ public class WebURLTupleBinding extends TupleBinding<WebURL> {
     output.writeByte(url.getPriority());
     output.writeString(url.getAnchor());
   }
-}
\ No newline at end of file
+
+  /**
+   * Forgets the dictionary entries cached in memory. Must be called when a
+   * transaction in which records were written is aborted, as the entries
+   * written in it are cached but not stored.
+   */
+  public void onTransactionAbort() {
+    if (dictionary != null) {
+      dictionary.clearCache();
+    }
+  }
+
+  /**
+   * @return the docid of the parent page whose URL the record takes from the
+   *         dictionary, or 0 if the record does not refer to one
+   */
+  public int getReferencedParentDocid(DatabaseEntry entry) {
+    return getReferencedParentDocid(entryToInput(entry));
+  }
+
+  /**
+   * @return the docid of the parent page whose URL the record at the current
+   *         position of the input takes from the dictionary, or 0 if it does
+   *         not refer to one. The input is not advanced.
+   */
+  public int getReferencedParentDocid(TupleInput record) {
+    TupleInput input = new TupleInput(record.getBufferBytes(), record.getBufferOffset(), record.available());
+    if (input.available() == 0 || input.getBufferBytes()[input.getBufferOffset()] != COMPACT_VERSION) {
+      return 0;
+    }
+    input.readFast();
+    int flags = input.readByte();
+    input.readPackedInt();
+    int parentDocid = input.readPackedInt();
+    return (flags & PARENT_URL_BY_DOCID) != 0 ? parentDocid : 0;
+  }
+
+  /**
+   * @return the docid of the parent page whose URL a record written for
+   *         this URL would take from the dictionary, or 0 if there is none
+   */
+  public int getReferencedParentDocid(WebURL url) {
+    return writeCompact && url.getParentUrl() != null && url.getParentDocid() > 0 ? url.getParentDocid() : 0;
+  }
+
+  /**
+   * Counts a reference to a parent URL for a stored record, when a resumed
+   * crawl loads its records.
+   *
+   * @param docid docid returned by getReferencedParentDocid(), nothing is done for 0
+   */
+  public void retainParentUrl(int docid) {
+    if (docid > 0 && dictionary != null) {
+      dictionary.retainParentUrl(docid);
+    }
+  }
+
+  /**
+   * Removes the reference of a deleted record to its parent URL. Must be
+   * called after the deletion is committed.
+   *
+   * @param docid docid returned by getReferencedParentDocid(), nothing is done for 0
+   */
+  public void releaseParentUrl(int docid) {
+    if (docid > 0 && dictionary != null) {
+      dictionary.releaseParentUrl(docid);
+    }
+  }
+
+  private void compactObjectToEntry(Transaction txn, WebURL url, TupleOutput output) {
+    String urlString = url.getURL();
+    String parentUrl = url.getParentUrl();
+    int hostEnd = hostEnd(urlString);
+    String host = urlString.substring(0, hostEnd);
+
+    int flags = 0;
+    if (parentUrl != null) {
+      if (url.getParentDocid() > 0) {
+        dictionary.retainParentUrl(url.getParentDocid(), parentUrl);
+        flags |= PARENT_URL_BY_DOCID;
+        if (hostEnd > 0 && hostEnd(parentUrl) == hostEnd && parentUrl.startsWith(host)) {
+          flags |= SAME_HOST_AS_PARENT;
+        }
+      } else {
+        flags |= PARENT_URL_INLINE;
+      }
+    }
+    if (url.getAnchor() != null) {
+      flags |= HAS_ANCHOR;
+    }
+
+    // writeByte() flips the sign bit, the version byte is written as it is
+    output.writeFast(COMPACT_VERSION);
+    output.writeByte(flags);
+    output.writePackedInt(url.getDocid());
+    output.writePackedInt(url.getParentDocid());
+    output.writePackedInt(url.getDepth());
+    output.writeByte(url.getPriority());
+    output.writePackedInt(hostEnd > 0 ? dictionary.getHostId(txn, host) : 0);
+    if ((flags & SAME_HOST_AS_PARENT) != 0) {
+      int prefix = commonPrefixLength(urlString, parentUrl, hostEnd);
+      output.writePackedInt(prefix - hostEnd);
+      output.writeString(urlString.substring(prefix));
+    } else {
+      output.writeString(urlString.substring(hostEnd));
+    }
+    if ((flags & PARENT_URL_INLINE) != 0) {
+      output.writeString(parentUrl);
+    }
+    if ((flags & HAS_ANCHOR) != 0) {
+      output.writeString(url.getAnchor());
+    }
+  }
+
+  private WebURL compactEntryToObject(TupleInput input) {
+    input.readFast();
+    int flags = input.readByte();
+    WebURL webURL = new WebURL();
+    webURL.setDocid(input.readPackedInt());
+    webURL.setParentDocid(input.readPackedInt());
+    webURL.setDepth((short) input.readPackedInt());
+    webURL.setPriority(input.readByte());
+
+    if (dictionary == null) {
+      throw new IllegalStateException("A dictionary is needed to read URLs in the compact format");
+    }
+    int hostId = input.readPackedInt();
+    String host = hostId > 0 ? dictionary.getHost(hostId) : "";
+    if (host == null) {
+      throw new IllegalStateException("Host " + hostId + " of the queued URL with docid " + webURL.getDocid()
+          + " is missing from the URL dictionary");
+    }
+    String parentUrl = null;
+    if ((flags & PARENT_URL_BY_DOCID) != 0) {
+      parentUrl = dictionary.getParentUrl(webURL.getParentDocid());
+      if (parentUrl == null && (flags & SAME_HOST_AS_PARENT) != 0) {
+        throw new IllegalStateException("Parent URL with docid " + webURL.getParentDocid()
+            + " of the queued URL with docid " + webURL.getDocid() + " is missing from the URL dictionary");
+      }
+    }
+
+    if ((flags & SAME_HOST_AS_PARENT) != 0) {
+      int prefix = input.readPackedInt();
+      webURL.setURL(host + parentUrl.substring(host.length(), host.length() + prefix) + input.readString());
+    } else {
+      webURL.setURL(host + input.readString());
+    }
+    if ((flags & PARENT_URL_INLINE) != 0) {
+      parentUrl = input.readString();
+    }
+    webURL.setParentUrl(parentUrl);
+    if ((flags & HAS_ANCHOR) != 0) {
+      webURL.setAnchor(input.readString());
+    }
+    return webURL;
+  }
+
+  /**
+   * @return end of the "scheme://host:port" part of the url, 0 if there is none
+   */
+  private static int hostEnd(String url) {
+    int hostStart = url.indexOf("://");
+    if (hostStart < 0) {
+      return 0;
+    }
+    for (int i = hostStart + 3; i < url.length(); i++) {
+      char c = url.charAt(i);
+      if (c == '/' || c == '?' || c == '#') {
+        return i;
+      }
+    }
+    return url.length();
+  }
+
+  private static int commonPrefixLength(String str1, String str2, int from) {
+    int length = Math.min(str1.length(), str2.length());
+    int i = from;
+    while (i < length && str1.charAt(i) == str2.charAt(i)) {
+      i++;
+    }
+    return i;
+  }
+}
@@ -25,13 +25,15 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Yasser Ganjisaffar [lastname at gmail dot com]
  */
 public class WorkQueues {
 
-  protected Database urlsDB = null;	//key6ֽݣڱʾȺ˳valueWebURL
+  protected Database urlsDB = null;	//key是6字节数据，用于表示先后顺序。value是WebURL
   protected Environment env;
 
   protected boolean resumable;
@@ -40,9 +42,17 @@ public class WorkQueues {
 
   protected final Object mutex = new Object();
 
+  // 队列中url的数量，避免每次都调用代价较高的Database.count()
+  protected final AtomicLong length = new AtomicLong();
+
   private Logger logger = LoggerFactory.getLogger(WorkQueues.class);
 
   public WorkQueues(Environment env, String dbName, boolean resumable) throws DatabaseException {
+    this(env, dbName, resumable, new WebURLTupleBinding());
+  }
+
+  public WorkQueues(Environment env, String dbName, boolean resumable, WebURLTupleBinding webURLBinding)
+      throws DatabaseException {
     this.env = env;
     this.resumable = resumable;
     DatabaseConfig dbConfig = new DatabaseConfig();
@@ -50,11 +60,17 @@ public class WorkQueues {
     dbConfig.setTransactional(resumable);
     dbConfig.setDeferredWrite(!resumable);
     urlsDB = env.openDatabase(null, dbName, dbConfig);
-    webURLBinding = new WebURLTupleBinding();
+    this.webURLBinding = webURLBinding;
+    length.set(urlsDB.count());
   }
 
-  // ȡݿдͷʼmaxWebURLļ¼
+  // 获取数据库中从头开始的max条WebURL的记录
   public List<WebURL> get(int max) throws DatabaseException {
+    return get(null, max);
+  }
+
+  // 获取key以prefix开头的前max条WebURL的记录，prefix为null时从头开始
+  protected List<WebURL> get(byte[] prefix, int max) throws DatabaseException {
     synchronized (mutex) {
       int matches = 0;
       List<WebURL> results = new ArrayList<>(max);
@@ -71,9 +87,9 @@ public class WorkQueues {
       }
       try {
         cursor = urlsDB.openCursor(txn, null);
-        result = cursor.getFirst(key, value, null);
+        result = first(cursor, prefix, key, value);
 
-        while (matches < max && result == OperationStatus.SUCCESS) {
+        while (matches < max && result == OperationStatus.SUCCESS && hasPrefix(key, prefix)) {
           if (value.getData().length > 0) {
             results.add(webURLBinding.entryToObject(value));
             matches++;
@@ -98,10 +114,17 @@ public class WorkQueues {
     }
   }
 
-  //ɾݿдͷʼmaxWebURLļ¼
+  //删除数据库中从头开始的max条WebURL的记录
   public void delete(int count) throws DatabaseException {
+    delete(null, count);
+  }
+
+  // 删除key以prefix开头的前count条WebURL的记录，prefix为null时从头开始
+  protected void delete(byte[] prefix, int count) throws DatabaseException {
     synchronized (mutex) {
       int matches = 0;
+      // 被删除的记录引用的父页面url，提交之后才释放
+      int[] parentDocids = new int[count];
 
       Cursor cursor = null;
       OperationStatus result;
@@ -115,13 +138,15 @@ public class WorkQueues {
       }
       try {
         cursor = urlsDB.openCursor(txn, null);
-        result = cursor.getFirst(key, value, null);
+        result = first(cursor, prefix, key, value);
 
-        while (matches < count && result == OperationStatus.SUCCESS) {
+        while (matches < count && result == OperationStatus.SUCCESS && hasPrefix(key, prefix)) {
+          parentDocids[matches] = webURLBinding.getReferencedParentDocid(value);
           cursor.delete();
           matches++;
           result = cursor.getNext(key, value, null);
         }
+        length.addAndGet(-matches);
       } catch (DatabaseException e) {
         if (txn != null) {
           txn.abort();
@@ -136,7 +161,35 @@ public class WorkQueues {
           txn.commit();
         }
       }
+      for (int i = 0; i < matches; i++) {
+        webURLBinding.releaseParentUrl(parentDocids[i]);
+      }
+    }
+  }
+
+  private static OperationStatus first(Cursor cursor, byte[] prefix, DatabaseEntry key, DatabaseEntry value)
+      throws DatabaseException {
+    if (prefix == null) {
+      return cursor.getFirst(key, value, null);
     }
+    key.setData(prefix);
+    return cursor.getSearchKeyRange(key, value, null);
+  }
+
+  private static boolean hasPrefix(DatabaseEntry key, byte[] prefix) {
+    if (prefix == null) {
+      return true;
+    }
+    byte[] data = key.getData();
+    if (data.length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (data[i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /*
@@ -150,7 +203,7 @@ public class WorkQueues {
    * If depth is also equal, those found earlier (therefore, smaller docid) will
    * be crawled earlier.
    */
-  // priority->depth->docIdαȽȡ˳
+  // 按照priority->depth->docId依次比较爬取顺序
   protected DatabaseEntry getDatabaseEntryKey(WebURL url) {
     byte[] keyData = new byte[6];
     keyData[0] = url.getPriority();
@@ -159,33 +212,94 @@ public class WorkQueues {
     return new DatabaseEntry(keyData);
   }
 
-  //WebURL¼λ
-  public void put(WebURL url) throws DatabaseException {
-    DatabaseEntry value = new DatabaseEntry();
-    webURLBinding.objectToEntry(url, value);
+  /**
+   * Inserts the url at its place in the queue, or replaces the record of a
+   * url with the same key.
+   *
+   * @return true if the url was not in the queue yet
+   */
+  public boolean put(WebURL url) throws DatabaseException {
     Transaction txn;
     if (resumable) {
       txn = env.beginTransaction(null, null);
     } else {
       txn = null;
     }
-    urlsDB.put(txn, getDatabaseEntryKey(url), value);
-    if (resumable) {
+    boolean added;
+    // 被覆盖的记录引用的父页面url
+    int replacedParentDocid = 0;
+    try {
+      // 字典中的条目与url写在同一个事务中
+      DatabaseEntry value = new DatabaseEntry();
+      webURLBinding.objectToEntry(txn, url, value);
+      DatabaseEntry key = getDatabaseEntryKey(url);
+      // 只有新插入的url才计入队列长度，已存在的url会被覆盖
+      added = urlsDB.putNoOverwrite(txn, key, value) != OperationStatus.KEYEXIST;
+      if (!added) {
+        DatabaseEntry replaced = new DatabaseEntry();
+        if (urlsDB.get(txn, key, replaced, null) == OperationStatus.SUCCESS) {
+          replacedParentDocid = webURLBinding.getReferencedParentDocid(replaced);
+        }
+        urlsDB.put(txn, key, value);
+      }
+    } catch (DatabaseException e) {
       if (txn != null) {
-        txn.commit();
+        txn.abort();
+        webURLBinding.onTransactionAbort();
+      }
+      throw e;
+    }
+    if (txn != null) {
+      txn.commit();
+    }
+    webURLBinding.releaseParentUrl(replacedParentDocid);
+    if (added) {
+      length.incrementAndGet();
+    }
+    return added;
+  }
+
+  /**
+   * Adds the number of queued urls of each host to the given map.
+   */
+  public void countByHost(Map<String, Integer> counts) throws DatabaseException {
+    synchronized (mutex) {
+      DatabaseEntry key = new DatabaseEntry();
+      DatabaseEntry value = new DatabaseEntry();
+      try (Cursor cursor = urlsDB.openCursor(null, null)) {
+        while (cursor.getNext(key, value, null) == OperationStatus.SUCCESS) {
+          if (value.getData().length > 0) {
+            counts.merge(webURLBinding.entryToObject(value).getHost(), 1, Integer::sum);
+          }
+        }
       }
     }
   }
 
-  public long getLength() {
-    try {
-      return urlsDB.count();
-    } catch (Exception e) {
-      logger.error("Error in UrlsDB", e);
-      return -1;
+  /**
+   * Counts the references of the stored records to parent URLs in the URL
+   * dictionary, when a resumed crawl loads the queue.
+   */
+  public void retainReferencedParentUrls() throws DatabaseException {
+    synchronized (mutex) {
+      DatabaseEntry key = new DatabaseEntry();
+      DatabaseEntry value = new DatabaseEntry();
+      try (Cursor cursor = urlsDB.openCursor(null, null)) {
+        while (cursor.getNext(key, value, null) == OperationStatus.SUCCESS) {
+          webURLBinding.retainParentUrl(webURLBinding.getReferencedParentDocid(value));
+        }
+      }
     }
   }
 
+  /**
+   * @return number of URLs in the queue, which is tracked in memory and
+   *         does not need to scan the database
+   */
+  public long getLength() {
+    return length.get();
+  }
+
   public void close() {
     try {
       urlsDB.close();
@@ -0,0 +1,217 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import edu.uci.ics.crawler4j.crawler.Configurable;
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.frontier.Counters.ReservedCounterNames;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Local queues of the crawler threads when work stealing is enabled. Each
+ * worker takes URLs from its own deque and only goes to the shared
+ * {@link Frontier} in bulk: it refills the deque with a whole batch when it
+ * runs dry, and buffers the URLs it discovers until
+ * {@link CrawlConfig#getLocalFlushSize()} of them can be scheduled at once.
+ * A worker which finds the frontier empty steals half of the deque of the
+ * busiest other worker.
+ *
+ * Ordering:
+ * <ul>
+ * <li>Each URL handed out by the frontier is processed by exactly one worker.</li>
+ * <li>A worker processes its deque in the order the frontier handed the URLs
+ * out, i.e. by priority, depth and docid within one batch. Thieves take the
+ * URLs from the tail, which the owner would have processed last, and keep
+ * their order.</li>
+ * <li>There is no order across workers: a URL in one worker's deque may be
+ * processed after URLs with a higher priority that were scheduled later.</li>
+ * <li>Discovered URLs become visible to other workers only when the buffer
+ * is flushed, which happens when it is full, before the worker takes a new
+ * batch and when the worker exits. Until then they are not counted for
+ * {@link CrawlConfig#getMaxPagesToFetch()}.</li>
+ * </ul>
+ */
+// 工作窃取模式下每个爬虫线程的本地队列，批量地从frontier获取url和写入外链，空闲时从其他线程窃取url
+public class WorkStealingQueues extends Configurable {
+
+  // 队列为空时，每隔这么多毫秒尝试一次窃取
+  private static final long STEAL_INTERVAL = 50;
+
+  /**
+   * Local state of one worker. Only the owning thread may use its buffer of
+   * discovered URLs; the deque is shared with thieves.
+   */
+  public static class Worker {
+    private final BlockingDeque<WebURL> local = new LinkedBlockingDeque<>();
+    private final List<WebURL> discovered = new ArrayList<>();
+    private final int crawlerId;
+
+    private Worker(int crawlerId) {
+      this.crawlerId = crawlerId;
+    }
+
+    /**
+     * @return number of URLs in the local deque
+     */
+    public int getLocalLength() {
+      return local.size();
+    }
+  }
+
+  protected final Frontier frontier;
+
+  private final List<Worker> workers = new CopyOnWriteArrayList<>();
+
+  public WorkStealingQueues(CrawlConfig config, Frontier frontier) {
+    super(config);
+    this.frontier = frontier;
+  }
+
+  /**
+   * @param crawlerId id of the crawler the worker belongs to
+   */
+  public Worker register(int crawlerId) {
+    Worker worker = new Worker(crawlerId);
+    workers.add(worker);
+    return worker;
+  }
+
+  /**
+   * Flushes the discovered URLs of an exiting worker, and puts the URLs left
+   * in its deque back into the frontier so that other workers crawl them.
+   */
+  public void unregister(Worker worker) {
+    workers.remove(worker);
+    flush(worker);
+    List<WebURL> remaining = new ArrayList<>(worker.local.size());
+    worker.local.drainTo(remaining);
+    if (!remaining.isEmpty()) {
+      frontier.putBack(remaining);
+    }
+  }
+
+  /**
+   * @return number of URLs in the local deques of all workers
+   */
+  public long getLocalLength() {
+    long length = 0;
+    for (Worker worker : workers) {
+      length += worker.getLocalLength();
+    }
+    return length;
+  }
+
+  /**
+   * @return the next URL in the worker's deque, or null if it is empty
+   */
+  public WebURL poll(Worker worker) {
+    return worker.local.pollFirst();
+  }
+
+  /**
+   * Gets work for a worker whose deque is empty: flushes its discovered URLs,
+   * then takes a batch from the frontier or steals from another worker, and
+   * waits if there is neither.
+   *
+   * @param batchSize number of URLs to take from the frontier at once
+   * @return the next URL to process, the rest of the batch is put in the
+   *         worker's deque, or null once the crawl is finished
+   */
+  public WebURL take(Worker worker, int batchSize) {
+    flush(worker);
+    List<WebURL> batch = new ArrayList<>(batchSize);
+    long timeout = 0;
+    while (true) {
+      frontier.getNextURLs(batchSize, batch, timeout, worker.crawlerId);
+      if (!batch.isEmpty()) {
+        Counters counters = frontier.getCounters();
+        counters.increment(ReservedCounterNames.URL_BATCHES);
+        counters.increment(ReservedCounterNames.BATCHED_URLS, batch.size());
+        worker.local.addAll(batch.subList(1, batch.size()));
+        return batch.get(0);
+      }
+      if (frontier.isFinished()) {
+        return null;
+      }
+      WebURL url = steal(worker);
+      if (url != null) {
+        return url;
+      }
+      timeout = STEAL_INTERVAL;
+    }
+  }
+
+  // 从本地队列最长的线程的队尾窃取一半的url
+  private WebURL steal(Worker thief) {
+    Worker victim = null;
+    int victimLength = 0;
+    for (Worker worker : workers) {
+      int length = worker.local.size();
+      if (worker != thief && length > victimLength) {
+        victim = worker;
+        victimLength = length;
+      }
+    }
+    if (victim == null) {
+      return null;
+    }
+    List<WebURL> stolen = new ArrayList<>();
+    for (int i = (victimLength + 1) / 2; i > 0; i--) {
+      WebURL url = victim.local.pollLast();
+      if (url == null) {
+        break;
+      }
+      stolen.add(url);
+    }
+    if (stolen.isEmpty()) {
+      return null;
+    }
+    Collections.reverse(stolen);
+    frontier.getCounters().increment(ReservedCounterNames.STOLEN_URLS, stolen.size());
+    thief.local.addAll(stolen.subList(1, stolen.size()));
+    return stolen.get(0);
+  }
+
+  /**
+   * Buffers URLs discovered by a worker, and schedules them in the frontier
+   * once the buffer is full.
+   */
+  public void schedule(Worker worker, List<WebURL> urls) {
+    worker.discovered.addAll(urls);
+    if (worker.discovered.size() >= config.getLocalFlushSize()) {
+      flush(worker);
+    }
+  }
+
+  /**
+   * Schedules the URLs discovered by a worker in the frontier.
+   */
+  public void flush(Worker worker) {
+    if (!worker.discovered.isEmpty()) {
+      frontier.scheduleAll(worker.discovered);
+      worker.discovered.clear();
+    }
+  }
+}
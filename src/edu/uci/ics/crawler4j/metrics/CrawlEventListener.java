@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.metrics;
+
+/**
+ * Receives an event for every page fetch, parse, frontier operation and
+ * robots.txt fetch. {@link #begin(Operation)} is called on the thread which
+ * does the work right before it, and the method reporting the operation
+ * right after it with the object begin() returned, so an implementation
+ * must be thread safe and fast.
+ *
+ * @see CrawlEvents
+ */
+// 抓取、解析、frontier操作和robots.txt下载的事件监听器
+public interface CrawlEventListener {
+
+  // 监听的操作
+  enum Operation {
+    PAGE_FETCH, PARSE, FRONTIER_DEQUEUE, FRONTIER_SCHEDULE, ROBOTS_FETCH
+  }
+
+  /**
+   * An operation is starting on this thread.
+   *
+   * @return an object which is passed to the method reporting the operation,
+   *         e.g. to record when the operation began, or null
+   */
+  Object begin(Operation operation);
+
+  /**
+   * A request of the page fetcher finished.
+   *
+   * @param started the object returned by begin(PAGE_FETCH) before the politeness delay
+   * @param statusCode the status code of the response, 0 if the request failed
+   * @param contentLength the Content-Length of the response, -1 if unknown
+   * @param politenessWaitNanos time the request waited for the politeness delay
+   * @param requestNanos time from sending the request until the headers were received or it failed
+   */
+  void pageFetched(Object started, String url, String host, int statusCode, long contentLength, long politenessWaitNanos,
+      long requestNanos);
+
+  /**
+   * The parser finished with a page.
+   *
+   * @param started the object returned by begin(PARSE)
+   * @param parser the kind of parser used: html, text or binary
+   * @param bytes size of the parsed content
+   * @param success false if parsing failed or the content is not allowed
+   */
+  void pageParsed(Object started, String url, String contentType, String parser, int bytes, long durationNanos, boolean success);
+
+  /**
+   * A crawler took URLs from the frontier.
+   *
+   * @param started the object returned by begin(FRONTIER_DEQUEUE)
+   * @param crawlerId id of the crawler, 0 if unknown
+   * @param maxBatchSize number of URLs asked for
+   * @param batchSize number of URLs taken
+   * @param lockWaitNanos time spent waiting for the frontier lock
+   * @param durationNanos time spent in the frontier, including waiting for URLs to be scheduled
+   */
+  void urlsDequeued(Object started, int crawlerId, int maxBatchSize, int batchSize, long lockWaitNanos, long durationNanos);
+
+  /**
+   * URLs were scheduled in the frontier.
+   *
+   * @param started the object returned by begin(FRONTIER_SCHEDULE)
+   * @param urlCount number of URLs to schedule
+   * @param scheduledCount number of URLs scheduled, less if the maximum number of pages was reached
+   * @param lockWaitNanos time spent waiting for the frontier lock
+   * @param durationNanos time spent in the frontier
+   */
+  void urlsScheduled(Object started, int urlCount, int scheduledCount, long lockWaitNanos, long durationNanos);
+
+  /**
+   * The robots.txt of a host was fetched.
+   *
+   * @param started the object returned by begin(ROBOTS_FETCH)
+   * @param statusCode the status code of the response, 0 if the request failed
+   * @param durationNanos time spent fetching and parsing the robots.txt
+   */
+  void robotsFetched(Object started, String host, int statusCode, long durationNanos);
+}
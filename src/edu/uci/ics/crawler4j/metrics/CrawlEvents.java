@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.metrics;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the process-wide {@link CrawlEventListener}. Components read the
+ * listener once per operation and skip all timing when there is none:
+ * <pre>
+ * CrawlEventListener events = CrawlEvents.getListener();
+ * Object started = events == null ? null : events.begin(Operation.PAGE_FETCH);
+ * long start = events == null ? 0 : System.nanoTime();
+ * ...
+ * if (events != null) {
+ *   events.pageFetched(started, ...);
+ * }
+ * </pre>
+ * so without a listener an event costs a single volatile read.
+ */
+// 全局的事件监听器，没有监听器时组件不做任何计时
+public final class CrawlEvents {
+
+  private static final AtomicReference<CrawlEventListener> listener = new AtomicReference<>();
+
+  private CrawlEvents() {
+  }
+
+  /**
+   * @return the current listener, or null if events are not recorded
+   */
+  public static CrawlEventListener getListener() {
+    return listener.get();
+  }
+
+  /**
+   * @param newListener the listener to receive all events, or null to stop recording events
+   */
+  public static void setListener(CrawlEventListener newListener) {
+    listener.set(newListener);
+  }
+
+  /**
+   * Replaces the listener only if it is the expected one, so that two
+   * sources of listeners do not remove each other's.
+   *
+   * @return true if the listener was replaced
+   */
+  public static boolean replaceListener(CrawlEventListener expected, CrawlEventListener newListener) {
+    return listener.compareAndSet(expected, newListener);
+  }
+}
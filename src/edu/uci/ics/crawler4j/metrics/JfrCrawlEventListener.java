@@ -0,0 +1,367 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Emits the crawl events as Java Flight Recorder events, so they can be
+ * correlated with GC, lock and I/O events of the same recording:
+ * <pre>
+ * crawler4j.PageFetch          url, host, status code, content length, politeness wait, request time
+ * crawler4j.Parse              url, content type, parser, bytes, duration, success
+ * crawler4j.FrontierDequeue    crawler id, batch size asked for and taken, lock wait, duration
+ * crawler4j.FrontierSchedule   URLs to schedule and scheduled, lock wait, duration
+ * crawler4j.RobotsFetch        host, status code, duration
+ * </pre>
+ * The crawler is built for Java 8, which has no jdk.jfr API to compile
+ * against, so the event types are defined at runtime with
+ * jdk.jfr.EventFactory when the running JVM has it. An event is created and
+ * begun when the operation starts, so its start time and duration in the
+ * recording are those of the operation, and committed with the fields when
+ * the crawler reports the operation.
+ *
+ * {@link #install()} sets this listener as the {@link CrawlEvents} listener
+ * only while a recording is running, so the crawler does no timing at all
+ * when nothing is recorded.
+ */
+// 把爬虫事件作为JFR事件输出；只在有正在进行的JFR记录时才启用
+public class JfrCrawlEventListener implements CrawlEventListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(JfrCrawlEventListener.class);
+
+  private static final String CATEGORY = "crawler4j";
+
+  private static volatile JfrCrawlEventListener instance;
+  private static boolean installed;
+
+  /**
+   * An event type defined with jdk.jfr.EventFactory.
+   */
+  private static class DynamicEventType {
+    private final Object factory;
+    private final Object eventType;
+    private final Method newEvent;
+    private final Method isEnabled;
+    private final Method begin;
+    private final Method set;
+    private final Method commit;
+
+    DynamicEventType(Object factory, Method newEvent, Method getEventType, Method isEnabled, Method begin,
+        Method set, Method commit) throws ReflectiveOperationException {
+      this.factory = factory;
+      this.eventType = getEventType.invoke(factory);
+      this.newEvent = newEvent;
+      this.isEnabled = isEnabled;
+      this.begin = begin;
+      this.set = set;
+      this.commit = commit;
+    }
+
+    boolean isEnabled() {
+      try {
+        return (Boolean) isEnabled.invoke(eventType);
+      } catch (ReflectiveOperationException e) {
+        return false;
+      }
+    }
+
+    /**
+     * @return a new event whose start time is now, or null if the event type is disabled
+     */
+    Object begin() {
+      if (!isEnabled()) {
+        return null;
+      }
+      try {
+        Object event = newEvent.invoke(factory);
+        begin.invoke(event);
+        return event;
+      } catch (ReflectiveOperationException e) {
+        logger.debug("Could not begin a flight recorder event: {}", e.getMessage());
+        return null;
+      }
+    }
+
+    // 设置begin()返回的事件的字段并提交，结束时间为提交的时间
+    void commit(Object event, Object... values) {
+      if (event == null) {
+        return;
+      }
+      try {
+        for (int i = 0; i < values.length; i++) {
+          set.invoke(event, i, values[i]);
+        }
+        commit.invoke(event);
+      } catch (ReflectiveOperationException e) {
+        logger.debug("Could not commit a flight recorder event: {}", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Builds the event types with jdk.jfr.EventFactory.
+   */
+  private static class Definer {
+    private final Constructor<?> newAnnotation;
+    private final Constructor<?> newValueDescriptor;
+    private final Method create;
+    private final Method newEvent;
+    private final Method getEventType;
+    private final Method isEnabled;
+    private final Method begin;
+    private final Method set;
+    private final Method commit;
+    private final Class<?> name;
+    private final Class<?> label;
+    private final Class<?> category;
+    private final Class<?> timespan;
+    private final Class<?> dataAmount;
+
+    Definer() throws ReflectiveOperationException {
+      Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+      Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+      Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+      Class<?> event = Class.forName("jdk.jfr.Event");
+      newAnnotation = annotationElement.getConstructor(Class.class, Object.class);
+      newValueDescriptor = valueDescriptor.getConstructor(Class.class, String.class, List.class);
+      create = eventFactory.getMethod("create", List.class, List.class);
+      newEvent = eventFactory.getMethod("newEvent");
+      getEventType = eventFactory.getMethod("getEventType");
+      isEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+      begin = event.getMethod("begin");
+      set = event.getMethod("set", int.class, Object.class);
+      commit = event.getMethod("commit");
+      name = Class.forName("jdk.jfr.Name");
+      label = Class.forName("jdk.jfr.Label");
+      category = Class.forName("jdk.jfr.Category");
+      timespan = Class.forName("jdk.jfr.Timespan");
+      dataAmount = Class.forName("jdk.jfr.DataAmount");
+    }
+
+    Object annotation(Class<?> type, Object value) throws ReflectiveOperationException {
+      return newAnnotation.newInstance(type, value);
+    }
+
+    // 字段按照"类型 名称 标签 [单位]"定义，单位为ns或bytes
+    Object field(Class<?> type, String fieldName, String fieldLabel, String unit)
+        throws ReflectiveOperationException {
+      List<Object> annotations = new ArrayList<>();
+      annotations.add(annotation(label, fieldLabel));
+      if ("ns".equals(unit)) {
+        annotations.add(annotation(timespan, "NANOSECONDS"));
+      } else if ("bytes".equals(unit)) {
+        annotations.add(annotation(dataAmount, "BYTES"));
+      }
+      return newValueDescriptor.newInstance(type, fieldName, annotations);
+    }
+
+    DynamicEventType define(String eventName, String eventLabel, Object... fields)
+        throws ReflectiveOperationException {
+      List<Object> annotations = Arrays.asList(annotation(name, eventName), annotation(label, eventLabel),
+          annotation(category, new String[] {CATEGORY}));
+      Object factory = create.invoke(null, annotations, Arrays.asList(fields));
+      return new DynamicEventType(factory, newEvent, getEventType, isEnabled, begin, set, commit);
+    }
+  }
+
+  private final DynamicEventType pageFetch;
+  private final DynamicEventType parse;
+  private final DynamicEventType frontierDequeue;
+  private final DynamicEventType frontierSchedule;
+  private final DynamicEventType robotsFetch;
+
+  private JfrCrawlEventListener() throws ReflectiveOperationException {
+    Definer d = new Definer();
+    pageFetch = d.define("crawler4j.PageFetch", "Page Fetch",
+        d.field(String.class, "url", "URL", null),
+        d.field(String.class, "host", "Host", null),
+        d.field(int.class, "statusCode", "Status Code", null),
+        d.field(long.class, "contentLength", "Content Length", "bytes"),
+        d.field(long.class, "politenessWait", "Politeness Wait", "ns"),
+        d.field(long.class, "requestTime", "Request Time", "ns"));
+    parse = d.define("crawler4j.Parse", "Parse",
+        d.field(String.class, "url", "URL", null),
+        d.field(String.class, "contentType", "Content Type", null),
+        d.field(String.class, "parser", "Parser", null),
+        d.field(int.class, "bytes", "Bytes", "bytes"),
+        d.field(long.class, "parseTime", "Parse Time", "ns"),
+        d.field(boolean.class, "success", "Success", null));
+    frontierDequeue = d.define("crawler4j.FrontierDequeue", "Frontier Dequeue",
+        d.field(int.class, "crawlerId", "Crawler Id", null),
+        d.field(int.class, "maxBatchSize", "Max Batch Size", null),
+        d.field(int.class, "batchSize", "Batch Size", null),
+        d.field(long.class, "lockWait", "Lock Wait", "ns"),
+        d.field(long.class, "dequeueTime", "Dequeue Time", "ns"));
+    frontierSchedule = d.define("crawler4j.FrontierSchedule", "Frontier Schedule",
+        d.field(int.class, "urlCount", "URL Count", null),
+        d.field(int.class, "scheduledCount", "Scheduled Count", null),
+        d.field(long.class, "lockWait", "Lock Wait", "ns"),
+        d.field(long.class, "scheduleTime", "Schedule Time", "ns"));
+    robotsFetch = d.define("crawler4j.RobotsFetch", "Robots.txt Fetch",
+        d.field(String.class, "host", "Host", null),
+        d.field(int.class, "statusCode", "Status Code", null),
+        d.field(long.class, "fetchTime", "Fetch Time", "ns"));
+  }
+
+  /**
+   * @return the listener, or null if the running JVM has no flight recorder
+   */
+  public static JfrCrawlEventListener getInstance() {
+    if (instance == null) {
+      synchronized (JfrCrawlEventListener.class) {
+        if (instance == null) {
+          try {
+            instance = new JfrCrawlEventListener();
+          } catch (ReflectiveOperationException | LinkageError e) {
+            logger.debug("Flight recorder events are not available: {}", e.toString());
+          }
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Makes this listener the {@link CrawlEvents} listener while a flight
+   * recording is running. Does nothing if the running JVM has no flight
+   * recorder API, and only once per JVM.
+   *
+   * @return true if the flight recorder API is available
+   */
+  public static synchronized boolean install() {
+    if (installed) {
+      return true;
+    }
+    final JfrCrawlEventListener listener = getInstance();
+    if (listener == null) {
+      return false;
+    }
+    try {
+      Class<?> flightRecorder = Class.forName("jdk.jfr.FlightRecorder");
+      Class<?> recorderListener = Class.forName("jdk.jfr.FlightRecorderListener");
+      final Method getFlightRecorder = flightRecorder.getMethod("getFlightRecorder");
+      final Method getRecordings = flightRecorder.getMethod("getRecordings");
+      final Method getState = Class.forName("jdk.jfr.Recording").getMethod("getState");
+      Object proxy = Proxy.newProxyInstance(JfrCrawlEventListener.class.getClassLoader(),
+          new Class<?>[] {recorderListener}, (p, method, args) -> {
+            switch (method.getName()) {
+              case "recorderInitialized":
+              case "recordingStateChanged":
+                listener.update(getFlightRecorder, getRecordings, getState);
+                return null;
+              case "hashCode":
+                return System.identityHashCode(p);
+              case "equals":
+                return p == args[0];
+              case "toString":
+                return "crawler4j flight recorder listener";
+              default:
+                return null;
+            }
+          });
+      flightRecorder.getMethod("addListener", recorderListener).invoke(null, proxy);
+      if ((Boolean) flightRecorder.getMethod("isInitialized").invoke(null)) {
+        listener.update(getFlightRecorder, getRecordings, getState);
+      }
+      installed = true;
+      return true;
+    } catch (ReflectiveOperationException | LinkageError e) {
+      logger.debug("Could not listen to flight recordings: {}", e.toString());
+      return false;
+    }
+  }
+
+  // 有正在进行的记录时注册为事件监听器，否则移除
+  private void update(Method getFlightRecorder, Method getRecordings, Method getState) {
+    boolean running = false;
+    try {
+      for (Object recording : (List<?>) getRecordings.invoke(getFlightRecorder.invoke(null))) {
+        if ("RUNNING".equals(String.valueOf(getState.invoke(recording)))) {
+          running = true;
+        }
+      }
+    } catch (InvocationTargetException e) {
+      // The flight recorder is shutting down
+      running = false;
+    } catch (ReflectiveOperationException e) {
+      logger.debug("Could not read the flight recordings: {}", e.getMessage());
+    }
+    if (running) {
+      CrawlEvents.replaceListener(null, this);
+    } else {
+      CrawlEvents.replaceListener(this, null);
+    }
+  }
+
+  @Override
+  public Object begin(Operation operation) {
+    switch (operation) {
+      case PAGE_FETCH:
+        return pageFetch.begin();
+      case PARSE:
+        return parse.begin();
+      case FRONTIER_DEQUEUE:
+        return frontierDequeue.begin();
+      case FRONTIER_SCHEDULE:
+        return frontierSchedule.begin();
+      case ROBOTS_FETCH:
+        return robotsFetch.begin();
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public void pageFetched(Object started, String url, String host, int statusCode, long contentLength,
+      long politenessWaitNanos, long requestNanos) {
+    pageFetch.commit(started, url, host, statusCode, contentLength, politenessWaitNanos, requestNanos);
+  }
+
+  @Override
+  public void pageParsed(Object started, String url, String contentType, String parser, int bytes,
+      long durationNanos, boolean success) {
+    parse.commit(started, url, contentType, parser, bytes, durationNanos, success);
+  }
+
+  @Override
+  public void urlsDequeued(Object started, int crawlerId, int maxBatchSize, int batchSize, long lockWaitNanos,
+      long durationNanos) {
+    frontierDequeue.commit(started, crawlerId, maxBatchSize, batchSize, lockWaitNanos, durationNanos);
+  }
+
+  @Override
+  public void urlsScheduled(Object started, int urlCount, int scheduledCount, long lockWaitNanos,
+      long durationNanos) {
+    frontierSchedule.commit(started, urlCount, scheduledCount, lockWaitNanos, durationNanos);
+  }
+
+  @Override
+  public void robotsFetched(Object started, String host, int statusCode, long durationNanos) {
+    robotsFetch.commit(started, host, statusCode, durationNanos);
+  }
+}
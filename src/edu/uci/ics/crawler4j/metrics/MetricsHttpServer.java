@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A small HTTP server which serves the metrics of a registry at /metrics in
+ * the Prometheus text format. Requests are answered one at a time on a
+ * single daemon thread, but the dispatcher thread of the JDK server is not
+ * a daemon, so the JVM does not exit until {@link #stop()} is called.
+ */
+// 以Prometheus文本格式提供指标的HTTP服务
+public class MetricsHttpServer {
+
+  private static final Logger logger = LoggerFactory.getLogger(MetricsHttpServer.class);
+
+  public static final String PATH = "/metrics";
+  public static final String PREFIX = "crawler4j_";
+
+  private final HttpServer server;
+  // 处理请求的守护线程
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "Metrics endpoint");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Starts serving the metrics to the local machine only.
+   *
+   * @param port the port to listen on, on the loopback interface
+   */
+  public MetricsHttpServer(final MetricsRegistry registry, int port) throws IOException {
+    this(registry, InetAddress.getLoopbackAddress().getHostAddress(), port);
+  }
+
+  /**
+   * Starts serving the metrics.
+   *
+   * @param host the address to listen on, 0.0.0.0 for all interfaces
+   * @param port the port to listen on
+   */
+  public MetricsHttpServer(final MetricsRegistry registry, String host, int port) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(host, port), 0);
+    server.createContext(PATH, exchange -> {
+      try {
+        handle(registry, exchange);
+      } catch (IOException | RuntimeException e) {
+        logger.warn("Error while serving metrics: {}", e.getMessage());
+      } finally {
+        exchange.close();
+      }
+    });
+    server.setExecutor(executor);
+    server.start();
+    logger.info("Serving metrics at http://{}:{}{}", host, getPort(), PATH);
+  }
+
+  private static void handle(MetricsRegistry registry, HttpExchange exchange) throws IOException {
+    if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+      exchange.sendResponseHeaders(405, -1);
+      return;
+    }
+    StringWriter writer = new StringWriter();
+    registry.writePrometheus(writer, PREFIX);
+    byte[] body = writer.toString().getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+    if ("HEAD".equals(exchange.getRequestMethod())) {
+      exchange.sendResponseHeaders(200, -1);
+      return;
+    }
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  /**
+   * @return the port the server listens on
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stops the server and its threads.
+   */
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,224 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * A set of named metrics whose values are read from the crawler's
+ * components when the metrics are collected, so nothing is computed while
+ * nobody is looking. The same registry backs the JMX MBean and the
+ * Prometheus text endpoint.
+ *
+ * Names follow the Prometheus conventions: lower case with underscores, and
+ * counters end with _total.
+ */
+// 指标注册表：每个指标在被读取时才从各个组件中取值
+public class MetricsRegistry {
+
+  private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+
+  /**
+   * Kind of a metric.
+   */
+  public enum Type {
+    /** A value which only grows. */
+    COUNTER,
+    /** A value which can go up and down. */
+    GAUGE
+  }
+
+  /**
+   * A metric, which has one value or one value per label value.
+   */
+  public static class Metric {
+    private final String name;
+    private final Type type;
+    private final String help;
+    private final String labelName;
+    private final Supplier<Map<String, ? extends Number>> values;
+
+    Metric(String name, Type type, String help, String labelName, Supplier<Map<String, ? extends Number>> values) {
+      this.name = name;
+      this.type = type;
+      this.help = help;
+      this.labelName = labelName;
+      this.values = values;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    public String getHelp() {
+      return help;
+    }
+
+    /**
+     * @return name of the label, or null if the metric has a single value
+     */
+    public String getLabelName() {
+      return labelName;
+    }
+
+    /**
+     * @return the current values by label value; a metric without label has
+     *         one value with the label value null. Empty if the value can
+     *         not be read right now.
+     */
+    public Map<String, ? extends Number> getValues() {
+      try {
+        Map<String, ? extends Number> current = values.get();
+        return current == null ? Collections.<String, Number>emptyMap() : current;
+      } catch (RuntimeException e) {
+        // For example the environment is already closed at the end of the crawl
+        logger.debug("Could not read metric {}: {}", name, e.getMessage());
+        return Collections.emptyMap();
+      }
+    }
+  }
+
+  /**
+   * The per second rate of a counter between two reads which are at least
+   * a second apart.
+   */
+  private static class Rate implements Supplier<Number> {
+    private final Supplier<? extends Number> counter;
+    private long lastNanos;
+    private double lastValue;
+    private double rate;
+
+    Rate(Supplier<? extends Number> counter) {
+      this.counter = counter;
+      this.lastNanos = System.nanoTime();
+      this.lastValue = counter.get().doubleValue();
+    }
+
+    @Override
+    public synchronized Number get() {
+      long now = System.nanoTime();
+      if (now - lastNanos >= 1000000000L) {
+        double value = counter.get().doubleValue();
+        rate = (value - lastValue) / ((now - lastNanos) / 1e9);
+        lastValue = value;
+        lastNanos = now;
+      }
+      return rate;
+    }
+  }
+
+  private final List<Metric> metrics = new CopyOnWriteArrayList<>();
+
+  /**
+   * Registers a metric with a single value.
+   */
+  public void register(String name, Type type, String help, Supplier<? extends Number> value) {
+    registerLabelled(name, type, help, null, () -> {
+      Number current = value.get();
+      return current == null ? null : Collections.singletonMap(null, current);
+    });
+  }
+
+  /**
+   * Registers a metric with one value per value of a label, like the
+   * number of responses per status code.
+   */
+  public void registerLabelled(String name, Type type, String help, String labelName,
+      Supplier<Map<String, ? extends Number>> values) {
+    for (Metric metric : metrics) {
+      if (metric.name.equals(name)) {
+        throw new IllegalArgumentException("Metric is already registered: " + name);
+      }
+    }
+    metrics.add(new Metric(name, type, help, labelName, values));
+  }
+
+  /**
+   * Registers a gauge with the per second rate of a counter.
+   */
+  public void registerRate(String name, String help, Supplier<? extends Number> counter) {
+    register(name, Type.GAUGE, help, new Rate(counter));
+  }
+
+  public List<Metric> getMetrics() {
+    return Collections.unmodifiableList(metrics);
+  }
+
+  /**
+   * @return the current value of every metric; a value of a labelled metric
+   *         is named metric.labelvalue
+   */
+  public Map<String, Number> snapshot() {
+    Map<String, Number> snapshot = new LinkedHashMap<>();
+    for (Metric metric : metrics) {
+      for (Map.Entry<String, ? extends Number> entry : metric.getValues().entrySet()) {
+        snapshot.put(entry.getKey() == null ? metric.name : metric.name + "." + entry.getKey(), entry.getValue());
+      }
+    }
+    return snapshot;
+  }
+
+  /**
+   * Writes the current values in the Prometheus text exposition format,
+   * version 0.0.4.
+   */
+  public void writePrometheus(Writer writer, String prefix) throws IOException {
+    for (Metric metric : metrics) {
+      String name = prefix + metric.name;
+      writer.write("# HELP " + name + " " + metric.help.replace("\\", "\\\\").replace("\n", "\\n") + "\n");
+      writer.write("# TYPE " + name + " " + metric.type.name().toLowerCase(Locale.ENGLISH) + "\n");
+      for (Map.Entry<String, ? extends Number> entry : metric.getValues().entrySet()) {
+        writer.write(name);
+        if (entry.getKey() != null) {
+          writer.write("{" + metric.labelName + "=\"" + entry.getKey().replace("\\", "\\\\").replace("\"", "\\\"")
+              .replace("\n", "\\n") + "\"}");
+        }
+        writer.write(" " + format(entry.getValue()) + "\n");
+      }
+    }
+  }
+
+  private static String format(Number value) {
+    if (value instanceof Double || value instanceof Float) {
+      double d = value.doubleValue();
+      if (Double.isNaN(d)) {
+        return "NaN";
+      }
+      if (Double.isInfinite(d)) {
+        return d > 0 ? "+Inf" : "-Inf";
+      }
+      return Double.toString(d);
+    }
+    return Long.toString(value.longValue());
+  }
+}
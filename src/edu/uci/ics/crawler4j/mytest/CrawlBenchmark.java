@@ -0,0 +1,400 @@
+package edu.uci.ics.crawler4j.mytest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.crawler.CrawlController;
+import edu.uci.ics.crawler4j.crawler.Page;
+import edu.uci.ics.crawler4j.crawler.WebCrawler;
+import edu.uci.ics.crawler4j.fetcher.HostStatsTable;
+import edu.uci.ics.crawler4j.fetcher.PageFetcher;
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtConfig;
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer;
+import edu.uci.ics.crawler4j.url.WebURL;
+import edu.uci.ics.crawler4j.util.IO;
+
+/**
+ * Crawls a generated web graph served by local HTTP servers and reports
+ * pages per second, page latency percentiles, CPU time, heap and GC. Every
+ * host is a server on its own loopback port, so no network access is
+ * needed.
+ *
+ * Options are given as key=value arguments:
+ * <pre>
+ * hosts=4          number of hosts
+ * pages=500        pages per host
+ * fanout=10        links per page
+ * crossHost=0.2    fraction of links to other hosts
+ * pageSize=8000    approximate page size in bytes
+ * latency=exp:5    server latency in ms: fixed:N, uniform:N (0..2N) or exp:N (mean N)
+ * robots=true      serve generated robots.txt files
+ * crawlers=8       number of crawler threads
+ * seed=42          random seed of the graph
+ * mirrors=0        fraction of pages which also link to a mirror URL serving the same content
+ * dedup=false      skip pages whose content was downloaded before
+ * templateHosts=0  number of hosts whose pages have the same text apart from a timestamp and session token
+ * nearDedup=false  detect near duplicate html pages
+ * metricsPort=0    serve the crawl metrics on this port while the crawl runs
+ * warc=            write the WARC archive of the crawl to this folder
+ * warcAsync=false  write the WARC files from background threads
+ * </pre>
+ * Every page links to the next page of the graph, so all pages are
+ * reachable from the seeds. Throughput is measured between the start of the
+ * crawl and the last visited page, without the time the controller needs to
+ * notice that the crawl is finished.
+ */
+// 在本机启动若干个HTTP服务器提供生成的网页，完整地运行一次爬取，输出吞吐量、延迟分位数、CPU和堆内存
+public class CrawlBenchmark {
+
+	private static final String[] WORDS = { "crawler", "page", "news", "sports", "weather", "the", "and", "world",
+			"today", "update", "report", "video", "market", "science" };
+
+	private static Map<String, String> options = new HashMap<>();
+
+	// 有镜像的页面链接到一个内容完全相同的镜像url
+	static boolean hasMirror(long seed, int host, int page) {
+		double mirrors = Double.parseDouble(option("mirrors", "0"));
+		return mirrors > 0 && new Random(seed * 7919 + host * 100003 + page).nextDouble() < mirrors;
+	}
+
+	private static String option(String name, String defaultValue) {
+		String value = options.get(name);
+		return value == null ? defaultValue : value;
+	}
+
+	private static int intOption(String name, int defaultValue) {
+		return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+	}
+
+	// 统计访问过的页面和每个页面的处理时间
+	public static class Recorder {
+		final AtomicLong visited = new AtomicLong();
+		final AtomicLong lastVisit = new AtomicLong();
+		final AtomicLong duplicates = new AtomicLong();
+		final AtomicLong nearDuplicates = new AtomicLong();
+		private long[] latencies = new long[1024];
+		private int size = 0;
+
+		synchronized void record(long latencyNanos) {
+			if (size == latencies.length) {
+				latencies = Arrays.copyOf(latencies, size * 2);
+			}
+			latencies[size++] = latencyNanos;
+			visited.incrementAndGet();
+			lastVisit.set(System.nanoTime());
+		}
+
+		synchronized double percentile(double p) {
+			if (size == 0) {
+				return 0;
+			}
+			long[] sorted = Arrays.copyOf(latencies, size);
+			Arrays.sort(sorted);
+			return sorted[Math.min(size - 1, (int) Math.ceil(p * size) - 1)] / 1e6;
+		}
+	}
+
+	public static class BenchmarkCrawler extends WebCrawler {
+		private long start;
+
+		@Override
+		protected WebURL handleUrlBeforeProcess(WebURL curURL) {
+			start = System.nanoTime();
+			return curURL;
+		}
+
+		@Override
+		public void visit(Page page) {
+			((Recorder) getMyController().getCustomData()).record(System.nanoTime() - start);
+		}
+
+		@Override
+		protected void onNearDuplicateContent(Page page, int originalDocid, int distance) {
+			Recorder recorder = (Recorder) getMyController().getCustomData();
+			recorder.nearDuplicates.incrementAndGet();
+			recorder.record(System.nanoTime() - start);
+		}
+
+		@Override
+		protected void onDuplicateContent(Page page, int originalDocid) {
+			Recorder recorder = (Recorder) getMyController().getCustomData();
+			recorder.duplicates.incrementAndGet();
+			recorder.record(System.nanoTime() - start);
+		}
+	}
+
+	// 一个host上的页面：每个页面链接到下一个页面，以及fanout个随机页面
+	private static class SiteHandler implements com.sun.net.httpserver.HttpHandler {
+		final int host;
+		final int[] ports;
+		final int pages;
+		final int fanout;
+		final double crossHost;
+		final int pageSize;
+		final String robots;
+		final String latency;
+		final long seed;
+		final boolean template;
+
+		SiteHandler(int host, int[] ports, String robots) {
+			this.host = host;
+			this.ports = ports;
+			this.robots = robots;
+			pages = intOption("pages", 500);
+			fanout = intOption("fanout", 10);
+			crossHost = Double.parseDouble(option("crossHost", "0.2"));
+			pageSize = intOption("pageSize", 8000);
+			latency = option("latency", "exp:5");
+			seed = Long.parseLong(option("seed", "42"));
+			template = host < intOption("templateHosts", 0);
+		}
+
+		String url(int host, int page) {
+			return "http://127.0.0.1:" + ports[host] + "/p/" + page + ".html";
+		}
+
+		String mirrorUrl(int host, int page) {
+			return "http://127.0.0.1:" + ports[host] + "/m/" + page + ".html";
+		}
+
+		String page(int page) {
+			Random random = new Random(seed * 1000003 + host * 100003 + page);
+			List<String> links = new ArrayList<>();
+			links.add(page + 1 < pages ? url(host, page + 1) : url((host + 1) % ports.length, 0));
+			if (hasMirror(seed, host, page)) {
+				links.add(mirrorUrl(host, page));
+			}
+			for (int i = 0; i < fanout; i++) {
+				int target = random.nextDouble() < crossHost ? random.nextInt(ports.length) : host;
+				links.add(url(target, random.nextInt(pages)));
+			}
+			// 模板host的所有页面使用相同的文字
+			Random textRandom = template ? new Random(seed * 1000003 + host * 100003) : random;
+			StringBuilder sb = new StringBuilder(pageSize + 200);
+			sb.append("<html><head><title>Page ").append(template ? 0 : page).append("</title></head><body>\n");
+			if (template) {
+				sb.append("<p>Updated ").append(System.currentTimeMillis()).append(" session ")
+						.append(Long.toHexString(random.nextLong())).append("</p>\n");
+			}
+			int linkIndex = 0;
+			while (sb.length() < pageSize || linkIndex < links.size()) {
+				sb.append("<p>");
+				for (int w = 5 + textRandom.nextInt(30); w > 0; w--) {
+					sb.append(WORDS[textRandom.nextInt(WORDS.length)]).append(' ');
+				}
+				if (linkIndex < links.size()) {
+					String link = links.get(linkIndex++);
+					sb.append("<a href=\"").append(link).append("\">")
+							.append(WORDS[textRandom.nextInt(WORDS.length)]).append("</a>");
+				}
+				sb.append("</p>\n");
+			}
+			sb.append("</body></html>");
+			return sb.toString();
+		}
+
+		long latencyMillis(Random random) {
+			String[] parts = latency.split(":");
+			double value = Double.parseDouble(parts[1]);
+			switch (parts[0]) {
+			case "fixed":
+				return (long) value;
+			case "uniform":
+				return (long) (random.nextDouble() * 2 * value);
+			default:
+				return (long) (-Math.log(1 - random.nextDouble()) * value);
+			}
+		}
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			String path = exchange.getRequestURI().getPath();
+			String body;
+			String contentType = "text/html; charset=UTF-8";
+			int status = 200;
+			if (path.equals("/robots.txt")) {
+				body = robots;
+				contentType = "text/plain";
+				if (body == null) {
+					status = 404;
+					body = "";
+				}
+			} else if ((path.startsWith("/p/") || path.startsWith("/m/")) && path.endsWith(".html")) {
+				body = page(Integer.parseInt(path.substring(3, path.length() - 5)));
+			} else {
+				status = 404;
+				body = "";
+			}
+			try {
+				Thread.sleep(latencyMillis(new Random()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", contentType);
+			exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			options.put(arg.substring(0, eq), arg.substring(eq + 1));
+		}
+		// 否则服务器分开写响应头和响应体时会因为Nagle算法和延迟确认使每个请求多等待约40ms
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		int hosts = intOption("hosts", 4);
+		int crawlers = intOption("crawlers", 8);
+		boolean robots = Boolean.parseBoolean(option("robots", "true"));
+
+		// 先绑定端口，页面中的链接需要知道所有host的端口
+		ExecutorService serverThreads = Executors.newCachedThreadPool();
+		List<HttpServer> servers = new ArrayList<>();
+		int[] ports = new int[hosts];
+		for (int i = 0; i < hosts; i++) {
+			HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 100);
+			server.setExecutor(serverThreads);
+			servers.add(server);
+			ports[i] = server.getAddress().getPort();
+		}
+		Random random = new Random(Long.parseLong(option("seed", "42")));
+		for (int i = 0; i < hosts; i++) {
+			SiteHandler handler = new SiteHandler(i, ports, robots ? HotPathBenchmark.buildRobotsTxt(random) : null);
+			servers.get(i).createContext("/", handler);
+			servers.get(i).start();
+		}
+		long seed = Long.parseLong(option("seed", "42"));
+		int totalPages = 0;
+		for (int i = 0; i < hosts; i++) {
+			for (int page = 0; page < intOption("pages", 500); page++) {
+				totalPages += hasMirror(seed, i, page) ? 2 : 1;
+			}
+		}
+
+		File storage = Files.createTempDirectory("crawler4j-crawl-benchmark").toFile();
+		try {
+			CrawlConfig config = new CrawlConfig();
+			config.setCrawlStorageFolder(storage.getAbsolutePath());
+			config.setPolitenessDelay(0);
+			config.setMaxPagesToFetch(totalPages);
+			config.setDetectDuplicateContent(Boolean.parseBoolean(option("dedup", "false")));
+			config.setDetectNearDuplicates(Boolean.parseBoolean(option("nearDedup", "false")));
+			config.setMaxConnectionsPerHost(crawlers);
+			config.setMaxTotalConnections(crawlers * 2);
+			config.setMetricsPort(intOption("metricsPort", 0));
+			if (!option("warc", "").isEmpty()) {
+				config.setWarcFolder(option("warc", ""));
+				config.setWarcAsyncWrite(Boolean.parseBoolean(option("warcAsync", "false")));
+			}
+			PageFetcher pageFetcher = new PageFetcher(config);
+			RobotstxtConfig robotstxtConfig = new RobotstxtConfig();
+			robotstxtConfig.setEnabled(robots);
+			RobotstxtServer robotstxtServer = new RobotstxtServer(robotstxtConfig, pageFetcher);
+			CrawlController controller = new CrawlController(config, pageFetcher, robotstxtServer);
+			Recorder recorder = new Recorder();
+			controller.setCustomData(recorder);
+			for (int i = 0; i < hosts; i++) {
+				controller.addSeed("http://127.0.0.1:" + ports[i] + "/p/0.html");
+			}
+
+			System.out.println("Crawling " + totalPages + " pages on " + hosts + " hosts with " + crawlers + " crawlers "
+					+ options);
+			long cpuBefore = processCpuNanos();
+			long gcCountBefore = gcCount();
+			long gcTimeBefore = gcMillis();
+			for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				pool.resetPeakUsage();
+			}
+			long start = System.nanoTime();
+			controller.startNonBlocking(BenchmarkCrawler.class, crawlers);
+			// 所有页面都访问过后就不需要等待controller确认爬取结束
+			while (!controller.isFinished() && recorder.visited.get() < totalPages) {
+				Thread.sleep(100);
+			}
+			long end = recorder.visited.get() > 0 ? recorder.lastVisit.get() : System.nanoTime();
+			long cpu = processCpuNanos() - cpuBefore;
+			long peakHeap = 0;
+			for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				if (pool.getType() == MemoryType.HEAP) {
+					peakHeap += pool.getPeakUsage().getUsed();
+				}
+			}
+
+			double seconds = (end - start) / 1e9;
+			System.out.printf("Visited pages:   %d of %d, %d duplicates, %d near duplicates%n", recorder.visited.get(),
+					totalPages, recorder.duplicates.get(), recorder.nearDuplicates.get());
+			System.out.printf("Time:            %.2f s%n", seconds);
+			System.out.printf("Throughput:      %.1f pages/s%n", recorder.visited.get() / seconds);
+			System.out.printf("Latency (ms):    p50 %.1f  p90 %.1f  p99 %.1f  max %.1f%n", recorder.percentile(0.5),
+					recorder.percentile(0.9), recorder.percentile(0.99), recorder.percentile(1));
+			System.out.printf("CPU:             %.2f s (%.0f%% of one core)%n", cpu / 1e9, cpu / 1e7 / seconds);
+			System.out.printf("Peak heap:       %.1f MB%n", peakHeap / 1048576.0);
+			System.out.printf("GC:              %d collections, %d ms%n", gcCount() - gcCountBefore,
+					gcMillis() - gcTimeBefore);
+			System.out.println("Stages:");
+			System.out.print(controller.getStageTimings());
+			System.out.println("Slowest hosts:");
+			for (Map.Entry<String, HostStatsTable.HostStats> entry : pageFetcher.getHostStats()
+					.top(HostStatsTable.Column.AVERAGE_LATENCY, 5)) {
+				System.out.println(entry.getKey() + " " + entry.getValue());
+			}
+
+			controller.shutdown();
+			controller.waitUntilFinish();
+		} finally {
+			// 每次运行都新建了存储目录，结束后删除
+			IO.deleteFolder(storage);
+		}
+		for (HttpServer server : servers) {
+			server.stop(0);
+		}
+		serverThreads.shutdown();
+		serverThreads.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	private static long processCpuNanos() {
+		return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+				.getProcessCpuTime();
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(0, gc.getCollectionTime());
+		}
+		return millis;
+	}
+}
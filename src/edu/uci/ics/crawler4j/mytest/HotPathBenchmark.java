@@ -0,0 +1,308 @@
+package edu.uci.ics.crawler4j.mytest;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+
+import edu.uci.ics.crawler4j.frontier.URLDictionary;
+import edu.uci.ics.crawler4j.frontier.WebURLTupleBinding;
+import edu.uci.ics.crawler4j.parser.HtmlContentHandler;
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtParser;
+import edu.uci.ics.crawler4j.url.URLCanonicalizer;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * Throughput and allocation of the hot paths of the crawler: URL
+ * canonicalization, WebURL.setURL, robots.txt parsing, the HTML content
+ * handler and the frontier encoding. Run it before and after a change to
+ * one of them; the name of a benchmark can be given as argument to run only
+ * the benchmarks whose name contains it.
+ *
+ * There is no JMH in this project, so every benchmark is warmed up for a
+ * fixed time and then measured for a fixed time on the main thread.
+ * Allocation is read from the thread's allocated bytes counter.
+ */
+// 对爬虫中的热点代码做基准测试，输出吞吐量以及每次操作分配的内存
+public class HotPathBenchmark {
+
+	private static final long WARMUP_NANOS = 2000000000L;
+	private static final long MEASURE_NANOS = 3000000000L;
+
+	// 一次运行处理整个语料，返回值用于防止JIT把运行的代码优化掉
+	private interface Task {
+		long run() throws Exception;
+	}
+
+	private static long sink;
+
+	private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	private static void benchmark(String filter, String name, int opsPerRun, Task task) throws Exception {
+		if (filter != null && !name.contains(filter)) {
+			return;
+		}
+		long end = System.nanoTime() + WARMUP_NANOS;
+		while (System.nanoTime() < end) {
+			sink += task.run();
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long runs = 0;
+		long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		end = start + MEASURE_NANOS;
+		long now;
+		do {
+			sink += task.run();
+			runs++;
+			now = System.nanoTime();
+		} while (now < end);
+		long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+		double ops = (double) runs * opsPerRun;
+		System.out.printf("%-40s %12.0f ops/s %10.1f bytes/op%n", name, ops / ((now - start) / 1e9),
+				allocated / ops);
+	}
+
+	// 类似真实网站的robots.txt：多个user-agent分组、注释、allow和disallow规则、sitemap等
+	static String buildRobotsTxt(Random random) {
+		String[] agents = { "*", "Googlebot", "bingbot", "crawler4j", "Baiduspider", "YandexBot" };
+		String[] dirs = { "/admin", "/cgi-bin", "/search", "/tmp", "/private", "/cart", "/login", "/api", "/*.pdf$",
+				"/user/", "/static/js", "/print/" };
+		StringBuilder sb = new StringBuilder();
+		sb.append("# robots.txt for www.example").append(random.nextInt(1000)).append(".com\n");
+		int groups = 1 + random.nextInt(4);
+		for (int g = 0; g < groups; g++) {
+			sb.append("User-agent: ").append(agents[random.nextInt(agents.length)]).append('\n');
+			int rules = 2 + random.nextInt(15);
+			for (int r = 0; r < rules; r++) {
+				sb.append(random.nextInt(4) == 0 ? "Allow: " : "Disallow: ");
+				sb.append(dirs[random.nextInt(dirs.length)]);
+				if (random.nextBoolean()) {
+					sb.append('/').append(random.nextInt(100));
+				}
+				if (random.nextInt(8) == 0) {
+					sb.append(" # rule ").append(r);
+				}
+				sb.append('\n');
+			}
+			if (random.nextInt(3) == 0) {
+				sb.append("Crawl-delay: ").append(1 + random.nextInt(10)).append('\n');
+			}
+			sb.append('\n');
+		}
+		sb.append("Sitemap: http://www.example.com/sitemap.xml\n");
+		return sb.toString();
+	}
+
+	// 一个SAX事件，用于在没有HTML解析器的情况下重放页面
+	private static class SaxEvent {
+		final String element;
+		final AttributesImpl attributes;
+		final char[] text;
+		final boolean end;
+
+		SaxEvent(String element, AttributesImpl attributes, char[] text, boolean end) {
+			this.element = element;
+			this.attributes = attributes;
+			this.text = text;
+			this.end = end;
+		}
+
+		void replay(HtmlContentHandler handler) throws SAXException {
+			if (text != null) {
+				handler.characters(text, 0, text.length);
+			} else if (end) {
+				handler.endElement("", element, element);
+			} else {
+				handler.startElement("", element, element, attributes);
+			}
+		}
+	}
+
+	private static void element(List<SaxEvent> events, String name, String... attributes) {
+		AttributesImpl attrs = new AttributesImpl();
+		for (int i = 0; i < attributes.length; i += 2) {
+			attrs.addAttribute("", attributes[i], attributes[i], "CDATA", attributes[i + 1]);
+		}
+		events.add(new SaxEvent(name, attrs, null, false));
+	}
+
+	private static void text(List<SaxEvent> events, String text) {
+		events.add(new SaxEvent(null, null, text.toCharArray(), false));
+	}
+
+	private static void end(List<SaxEvent> events, String name) {
+		events.add(new SaxEvent(name, null, null, true));
+	}
+
+	// 生成一个页面被HTML解析器解析后产生的SAX事件：head中的meta，body中的段落、链接和图片
+	private static List<SaxEvent> buildPageEvents(Random random) {
+		String[] words = { "crawler", "page", "news", "sports", "weather", "the", "and", "world", "today", "update",
+				"report", "video" };
+		List<SaxEvent> events = new ArrayList<>();
+		element(events, "html");
+		element(events, "head");
+		element(events, "title");
+		text(events, "Page " + random.nextInt(100000));
+		end(events, "title");
+		element(events, "meta", "name", "description", "content", "A generated page");
+		element(events, "meta", "http-equiv", "content-type", "content", "text/html; charset=UTF-8");
+		element(events, "link", "href", "/style.css", "rel", "stylesheet");
+		end(events, "link");
+		end(events, "head");
+		element(events, "body");
+		int blocks = 20 + random.nextInt(60);
+		for (int b = 0; b < blocks; b++) {
+			element(events, "p");
+			StringBuilder sb = new StringBuilder();
+			int length = 5 + random.nextInt(40);
+			for (int w = 0; w < length; w++) {
+				sb.append(words[random.nextInt(words.length)]).append(' ');
+			}
+			text(events, sb.toString());
+			int links = random.nextInt(4);
+			for (int l = 0; l < links; l++) {
+				element(events, "a", "href", random.nextBoolean() ? "/section/" + random.nextInt(50) + "/article-"
+						+ random.nextInt(100000) + ".html" : "http://www.other" + random.nextInt(20) + ".com/");
+				text(events, words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]);
+				end(events, "a");
+			}
+			if (random.nextInt(5) == 0) {
+				element(events, "img", "src", "/images/" + random.nextInt(1000) + ".png", "alt", "image");
+				end(events, "img");
+			}
+			end(events, "p");
+		}
+		end(events, "body");
+		end(events, "html");
+		return events;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String filter = args.length > 0 ? args[0] : null;
+
+		final List<String[]> urlCorpus = URLCanonicalizerBenchmark.buildCorpus(20000, 42);
+		final List<String> canonicalUrls = new ArrayList<>();
+		for (String[] pair : urlCorpus) {
+			String url = URLCanonicalizer.getCanonicalURL(pair[0], pair[1]);
+			if (url != null) {
+				canonicalUrls.add(url);
+			}
+		}
+
+		Random random = new Random(42);
+		final List<String> robotsFiles = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			robotsFiles.add(buildRobotsTxt(random));
+		}
+
+		final List<List<SaxEvent>> pages = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			pages.add(buildPageEvents(random));
+		}
+
+		final List<WebURL> webUrls = new ArrayList<>();
+		for (int i = 0; i < canonicalUrls.size(); i++) {
+			WebURL webURL = new WebURL();
+			webURL.setURL(canonicalUrls.get(i));
+			webURL.setDocid(i + 1);
+			webURL.setParentDocid(i / 20 + 1);
+			webURL.setParentUrl(canonicalUrls.get(i / 20));
+			webURL.setDepth((short) random.nextInt(5));
+			webURL.setAnchor(random.nextBoolean() ? "anchor " + i : null);
+			webUrls.add(webURL);
+		}
+
+		System.out.println(urlCorpus.size() + " urls, " + robotsFiles.size() + " robots files, " + pages.size()
+				+ " pages");
+
+		benchmark(filter, "URLCanonicalizer.getCanonicalURL", urlCorpus.size(), () -> {
+			long n = 0;
+			for (String[] pair : urlCorpus) {
+				String url = URLCanonicalizer.getCanonicalURL(pair[0], pair[1]);
+				n += url == null ? 0 : url.length();
+			}
+			return n;
+		});
+
+		benchmark(filter, "WebURL.setURL", canonicalUrls.size(), () -> {
+			long n = 0;
+			WebURL webURL = new WebURL();
+			for (String url : canonicalUrls) {
+				webURL.setURL(url);
+				n += webURL.getDomain().length();
+			}
+			return n;
+		});
+
+		benchmark(filter, "RobotstxtParser.parse", robotsFiles.size(), () -> {
+			long n = 0;
+			for (String robots : robotsFiles) {
+				if (RobotstxtParser.parse(robots, "crawler4j") != null) {
+					n++;
+				}
+			}
+			return n;
+		});
+
+		benchmark(filter, "HtmlContentHandler", pages.size(), () -> {
+			long n = 0;
+			for (List<SaxEvent> page : pages) {
+				HtmlContentHandler handler = new HtmlContentHandler();
+				for (SaxEvent event : page) {
+					event.replay(handler);
+				}
+				n += handler.getOutgoingUrls().size() + handler.getBodyText().length();
+			}
+			return n;
+		});
+
+		final WebURLTupleBinding legacy = new WebURLTupleBinding();
+		benchmark(filter, "WebURLTupleBinding legacy", webUrls.size(), () -> roundTrip(legacy, webUrls));
+
+		File envHome = Files.createTempDirectory("crawler4j-benchmark").toFile();
+		EnvironmentConfig envConfig = new EnvironmentConfig();
+		envConfig.setAllowCreate(true);
+		Environment env = new Environment(envHome, envConfig);
+		URLDictionary dictionary = new URLDictionary(env, false);
+		try {
+			final WebURLTupleBinding compact = new WebURLTupleBinding(dictionary, true);
+			benchmark(filter, "WebURLTupleBinding compact", webUrls.size(), () -> roundTrip(compact, webUrls));
+		} finally {
+			dictionary.close();
+			env.close();
+			for (File file : envHome.listFiles()) {
+				file.delete();
+			}
+			envHome.delete();
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	// 编码后再解码
+	private static long roundTrip(WebURLTupleBinding binding, List<WebURL> urls) {
+		long n = 0;
+		for (WebURL url : urls) {
+			TupleOutput output = new TupleOutput();
+			binding.objectToEntry(url, output);
+			WebURL decoded = binding.entryToObject(new TupleInput(output.getBufferBytes(), 0, output.getBufferLength()));
+			n += decoded.getDocid();
+		}
+		return n;
+	}
+}
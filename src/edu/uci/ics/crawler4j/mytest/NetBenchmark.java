@@ -0,0 +1,111 @@
+package edu.uci.ics.crawler4j.mytest;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import edu.uci.ics.crawler4j.url.WebURL;
+import edu.uci.ics.crawler4j.util.Net;
+
+// 比较UrlScanner与原来的正则表达式在抽取文本外链时的速度
+public class NetBenchmark {
+
+	private static final String[] HOSTS = { "www.example.com", "news.bbc.co.uk", "docs.oracle.com",
+			"www.sina.com.cn", "ics.uci.edu", "en.wikipedia.org", "github.io", "shop.example.de" };
+
+	private static final String[] WORDS = { "the", "crawler", "fetched", "page", "and", "found", "links",
+			"to", "other", "documents", "error", "timeout", "GET", "200", "404", "bytes" };
+
+	// 生成类似日志或者pdf导出的纯文本，其中夹杂着链接
+	public static String buildText(int size, long seed) {
+		Random random = new Random(seed);
+		StringBuilder sb = new StringBuilder(size + 200);
+		while (sb.length() < size) {
+			if (random.nextInt(12) == 0) {
+				String host = HOSTS[random.nextInt(HOSTS.length)];
+				switch (random.nextInt(4)) {
+				case 0:
+					sb.append("http://").append(host).append("/path/").append(random.nextInt(1000)).append(".html");
+					break;
+				case 1:
+					sb.append("https://").append(host).append("/search?q=").append(WORDS[random.nextInt(WORDS.length)])
+							.append("&page=").append(random.nextInt(10));
+					break;
+				case 2:
+					sb.append(host.startsWith("www.") ? host : "www." + host).append("/a/b/c/");
+					break;
+				default:
+					sb.append("(").append("http://").append(host).append(":8080/index.html#top").append(")");
+				}
+			} else {
+				sb.append(WORDS[random.nextInt(WORDS.length)]);
+			}
+			sb.append(random.nextInt(20) == 0 ? '\n' : ' ');
+		}
+		return sb.toString();
+	}
+
+	// 正则表达式容易在这种输入上大量回溯
+	public static String buildPathologicalText(int size) {
+		StringBuilder sb = new StringBuilder(size + 20);
+		sb.append("http://");
+		while (sb.length() < size) {
+			sb.append("a-b.");
+		}
+		return sb.toString();
+	}
+
+	private static long time(Runnable task, int iterations) {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			task.run();
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static void compare(String name, final String text, int iterations) {
+		Runnable scanner = new Runnable() {
+			public void run() {
+				Net.extractUrls(text);
+			}
+		};
+		Runnable pattern = new Runnable() {
+			@SuppressWarnings("deprecation")
+			public void run() {
+				Net.extractUrlsWithPattern(text);
+			}
+		};
+		// warm up
+		time(scanner, iterations);
+		time(pattern, iterations);
+
+		long scannerNanos = time(scanner, iterations);
+		long patternNanos = time(pattern, iterations);
+		double megaBytes = (double) text.length() * iterations / (1024 * 1024);
+
+		System.out.println(name + " (" + text.length() + " chars x " + iterations + ")");
+		System.out.printf("  UrlScanner: %8.1f ms  %8.1f MB/s%n", scannerNanos / 1e6, megaBytes / (scannerNanos / 1e9));
+		System.out.printf("  Pattern:    %8.1f ms  %8.1f MB/s%n", patternNanos / 1e6, megaBytes / (patternNanos / 1e9));
+		System.out.printf("  speedup:    %8.1fx%n", (double) patternNanos / scannerNanos);
+	}
+
+	@SuppressWarnings("deprecation")
+	private static void printDifferences(String text) {
+		Set<WebURL> scanned = Net.extractUrls(text);
+		Set<WebURL> matched = Net.extractUrlsWithPattern(text);
+		Set<WebURL> onlyScanned = new HashSet<>(scanned);
+		onlyScanned.removeAll(matched);
+		Set<WebURL> onlyMatched = new HashSet<>(matched);
+		onlyMatched.removeAll(scanned);
+		System.out.println("Urls found: scanner " + scanned.size() + ", pattern " + matched.size());
+		System.out.println("  only found by scanner: " + onlyScanned);
+		System.out.println("  only found by pattern: " + onlyMatched);
+	}
+
+	public static void main(String[] args) {
+		String text = buildText(1024 * 1024, 42);
+		printDifferences(text);
+		compare("plain text", text, 20);
+		compare("pathological text", buildPathologicalText(4 * 1024), 20);
+	}
+}
@@ -0,0 +1,255 @@
+package edu.uci.ics.crawler4j.mytest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.sleepycat.je.Durability;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+import com.sleepycat.je.EnvironmentStats;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.frontier.DocIDServer;
+import edu.uci.ics.crawler4j.frontier.Frontier;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * Replays a trace of frontier operations against DocIDServer and Frontier,
+ * with its WorkQueues, Counters and in-process pages, under different BDB
+ * configurations, and reports the time per operation type, cache misses and
+ * the size of the environment.
+ *
+ * A trace has one operation per line:
+ * <pre>
+ * S url   schedule a newly discovered url (getNewDocID and schedule)
+ * L url   look up the docid of a url that may have been seen before
+ * D n     take a batch of up to n urls and mark them as processed
+ * </pre>
+ * Options are key=value arguments:
+ * <pre>
+ * trace=file            replay this trace instead of a generated one
+ * record=file           write the generated trace to this file
+ * pages=20000           number of pages of the generated trace
+ * cache=0,4,64          BDB cache sizes in MB, 0 for the JE default
+ * durability=deferred,no-sync,write-no-sync,sync
+ *                       deferred is a non-resumable crawl, the others are
+ *                       resumable crawls with the given commit durability
+ * encoding=legacy,compact,affinity
+ *                       frontier encoding; affinity is the compact encoding
+ *                       with host-prefixed queue keys
+ * </pre>
+ */
+// 在不同的BDB配置下重放调度、出队和查询的操作序列，对比存储层的性能
+public class StorageBenchmark {
+
+	private static final String[] HOSTS = { "www.example.com", "news.example.org", "shop.example.de",
+			"blog.example.net", "www.sina.com.cn", "en.wikipedia.org", "docs.oracle.com", "ics.uci.edu" };
+
+	private static final int OP_SCHEDULE = 0;
+	private static final int OP_LOOKUP = 1;
+	private static final int OP_DEQUEUE = 2;
+	private static final String[] OP_NAMES = { "schedule", "lookup", "dequeue" };
+
+	private static class Op {
+		final char type;
+		final String arg;
+
+		Op(char type, String arg) {
+			this.type = type;
+			this.arg = arg;
+		}
+	}
+
+	// 模拟一次爬取：每处理一个页面发现若干链接，其中一部分是已经见过的
+	private static List<Op> generateTrace(int pages, long seed) {
+		Random random = new Random(seed);
+		List<Op> trace = new ArrayList<>();
+		List<String> seen = new ArrayList<>();
+		int queued = 0;
+		for (String host : HOSTS) {
+			String url = "http://" + host + "/";
+			trace.add(new Op('S', url));
+			seen.add(url);
+			queued++;
+		}
+		int processed = 0;
+		while (processed < pages && queued > 0) {
+			int batch = Math.min(queued, 50);
+			trace.add(new Op('D', String.valueOf(batch)));
+			queued -= batch;
+			processed += batch;
+			for (int p = 0; p < batch; p++) {
+				int links = 5 + random.nextInt(20);
+				for (int l = 0; l < links; l++) {
+					if (random.nextInt(3) == 0 || seen.size() >= pages) {
+						trace.add(new Op('L', seen.get(random.nextInt(seen.size()))));
+					} else {
+						String url = "http://" + HOSTS[random.nextInt(HOSTS.length)] + "/section" + random.nextInt(50)
+								+ "/article-" + seen.size() + ".html" + (random.nextInt(4) == 0 ? "?page=" + random.nextInt(9) : "");
+						trace.add(new Op('S', url));
+						seen.add(url);
+						queued++;
+					}
+				}
+			}
+		}
+		return trace;
+	}
+
+	private static List<Op> readTrace(String file) throws IOException {
+		List<Op> trace = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.length() > 2) {
+					trace.add(new Op(line.charAt(0), line.substring(2)));
+				}
+			}
+		}
+		return trace;
+	}
+
+	private static void writeTrace(List<Op> trace, String file) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+			for (Op op : trace) {
+				writer.write(op.type + " " + op.arg);
+				writer.newLine();
+			}
+		}
+	}
+
+	private static void run(List<Op> trace, int cacheMb, String durability, String encoding, boolean print)
+			throws Exception {
+		File home = Files.createTempDirectory("crawler4j-storage-benchmark").toFile();
+		boolean resumable = !durability.equals("deferred");
+
+		EnvironmentConfig envConfig = new EnvironmentConfig();
+		envConfig.setAllowCreate(true);
+		envConfig.setTransactional(resumable);
+		envConfig.setLocking(resumable);
+		if (cacheMb > 0) {
+			envConfig.setCacheSize(cacheMb * 1024L * 1024L);
+		}
+		if (durability.equals("no-sync")) {
+			envConfig.setDurability(Durability.COMMIT_NO_SYNC);
+		} else if (durability.equals("write-no-sync")) {
+			envConfig.setDurability(Durability.COMMIT_WRITE_NO_SYNC);
+		} else if (durability.equals("sync")) {
+			envConfig.setDurability(Durability.COMMIT_SYNC);
+		}
+		Environment env = new Environment(home, envConfig);
+
+		CrawlConfig config = new CrawlConfig();
+		config.setCrawlStorageFolder(home.getAbsolutePath());
+		config.setResumableCrawling(resumable);
+		config.setCompactFrontierEncoding(!encoding.equals("legacy"));
+		config.setHostAffinityGroups(encoding.equals("affinity") ? 8 : 0);
+		config.setLeaseTimeout(0);
+
+		DocIDServer docIdServer = new DocIDServer(env, config);
+		Frontier frontier = new Frontier(env, config);
+		long[] nanos = new long[OP_NAMES.length];
+		long[] counts = new long[OP_NAMES.length];
+		List<WebURL> batch = new ArrayList<>();
+		long start = System.nanoTime();
+		for (Op op : trace) {
+			long opStart = System.nanoTime();
+			int type;
+			if (op.type == 'S') {
+				type = OP_SCHEDULE;
+				WebURL webURL = new WebURL();
+				webURL.setURL(op.arg);
+				webURL.setDocid(docIdServer.getNewDocID(op.arg));
+				frontier.schedule(webURL);
+			} else if (op.type == 'L') {
+				type = OP_LOOKUP;
+				docIdServer.getDocId(op.arg);
+			} else {
+				type = OP_DEQUEUE;
+				batch.clear();
+				frontier.getNextURLs(Integer.parseInt(op.arg), batch, 0);
+				for (WebURL webURL : batch) {
+					frontier.setProcessed(webURL);
+				}
+			}
+			nanos[type] += System.nanoTime() - opStart;
+			counts[type]++;
+		}
+		long total = System.nanoTime() - start;
+		EnvironmentStats stats = env.getStats(null);
+
+		frontier.finish();
+		frontier.close();
+		docIdServer.close();
+		env.close();
+		long size = 0;
+		for (File file : home.listFiles()) {
+			size += file.length();
+			file.delete();
+		}
+		home.delete();
+
+		if (!print) {
+			return;
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%-6s %-14s %-9s %8.0f ms", cacheMb == 0 ? "def" : cacheMb + "M", durability, encoding,
+				total / 1e6));
+		for (int i = 0; i < OP_NAMES.length; i++) {
+			sb.append(String.format(" %9.2f", counts[i] == 0 ? 0 : nanos[i] / 1e3 / counts[i]));
+		}
+		sb.append(String.format(" %10d %8.1f", stats.getNCacheMiss(), size / 1048576.0));
+		System.out.println(sb);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			options.put(arg.substring(0, eq), arg.substring(eq + 1));
+		}
+
+		List<Op> trace;
+		if (options.containsKey("trace")) {
+			trace = readTrace(options.get("trace"));
+		} else {
+			String pages = options.containsKey("pages") ? options.get("pages") : "20000";
+			trace = generateTrace(Integer.parseInt(pages), 42);
+			if (options.containsKey("record")) {
+				writeTrace(trace, options.get("record"));
+			}
+		}
+		List<String> caches = list(options, "cache", "0,4,64");
+		List<String> durabilities = list(options, "durability", "deferred,no-sync,write-no-sync,sync");
+		List<String> encodings = list(options, "encoding", "legacy,compact,affinity");
+
+		System.out.println(trace.size() + " operations");
+		System.out.println("cache  durability     encoding     total   schedule    lookup   dequeue  (us/op)"
+				+ "  cache-miss  size-MB");
+		// 第一次运行用于预热，不输出结果
+		run(trace.subList(0, Math.min(trace.size(), 20000)), 0, "deferred", "legacy", false);
+		for (String cache : caches) {
+			for (String durability : durabilities) {
+				for (String encoding : encodings) {
+					run(trace, Integer.parseInt(cache), durability, encoding, true);
+				}
+			}
+		}
+	}
+
+	private static List<String> list(Map<String, String> options, String name, String defaultValue) {
+		String value = options.get(name);
+		return Arrays.asList((value == null ? defaultValue : value).split(","));
+	}
+}
@@ -16,7 +16,7 @@ public class Test {
 	}
 	
 	public static void testUrlResolver() {
-		// ·baseURL,תΪ·
+		// 将相对路径，结合baseURL,转换为绝对路径
 		System.out.println(UrlResolver.resolveUrl("http://www.baidu.com/page/1.html", "../image/./2.jpg"));
 	}	
 	
@@ -29,8 +29,30 @@ public class Test {
 		System.out.println(url.getURL());
 	}
 	
+	// 检查按公共后缀拆分出的domain和subDomain
+	public static void testDomain() {
+		checkDomain("http://www.baidu.com/index.html", "baidu.com", "www");
+		checkDomain("http://news.sina.com.cn/", "sina.com.cn", "news");
+		checkDomain("http://a.b.example.co.uk:8080/", "example.co.uk", "a.b");
+		checkDomain("http://sub.example.com./", "example.com", "sub");
+		// IP地址不查公共后缀
+		checkDomain("http://[::1]:8080/", "[::1]", "");
+		checkDomain("http://[2001:db8::1]/index.html", "[2001:db8::1]", "");
+		checkDomain("http://127.0.0.1:8080/", "127.0.0.1", "");
+		checkDomain("http://192.168.1.20/index.html", "192.168.1.20", "");
+	}
+
+	private static void checkDomain(String href, String domain, String subDomain) {
+		WebURL url = new WebURL();
+		url.setURL(href);
+		if (!domain.equals(url.getDomain()) || !subDomain.equals(url.getSubDomain())) {
+			throw new AssertionError(href + ": domain " + url.getDomain() + ", subDomain " + url.getSubDomain());
+		}
+	}
+	
 	public static void main(String[] args) {
 		testWebUrl();
+		testDomain();
 	}
 }
 
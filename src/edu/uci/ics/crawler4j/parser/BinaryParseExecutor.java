@@ -0,0 +1,255 @@
+package edu.uci.ics.crawler4j.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import edu.uci.ics.crawler4j.crawler.Configurable;
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+
+/**
+ * Runs Tika on binary content in a small pool of threads. Each document gets
+ * a time limit and a limit on the size of the html produced from it. Once
+ * the time limit passes, counted from when a parser thread starts on the
+ * document, the parse is cancelled, and once the output limit is
+ * reached the parse stops and the html produced so far is kept.
+ */
+// 使用线程池解析二进制数据，限制每个文档的解析时间和输出大小
+public class BinaryParseExecutor extends Configurable {
+
+  private static final Logger logger = LoggerFactory.getLogger(BinaryParseExecutor.class);
+
+  // Creates an auto-detecting parser instance using the default Tika configuration.
+  private static final Parser AUTO_DETECT_PARSER = new AutoDetectParser();
+
+  private final ThreadPoolExecutor executor;
+
+  public BinaryParseExecutor(CrawlConfig config) {
+    super(config);
+    final AtomicInteger threadCount = new AtomicInteger();
+    int threads = config.getNumberOfBinaryParserThreads();
+    executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Binary parser " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Parses the given binary content into html. Blocks until a parser thread
+   * is free, and then until the parse is done or the time limit has passed.
+   * The time spent waiting for a free parser thread does not count towards
+   * the limit.
+   *
+   * @param data binary content of a page
+   * @return the html produced from the content, cut at the output limit, or
+   *         null if the content could not be parsed in time
+   */
+  public String parse(final byte[] data) {
+    final HtmlWriterHandler handler = new HtmlWriterHandler(config.getMaxBinaryParseOutputSize());
+    // 解析线程开始解析的时间
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicLong startNanos = new AtomicLong();
+    Future<String> future;
+    try {
+      future = executor.submit(new Callable<String>() {
+        @Override
+        public String call() throws Exception {
+          startNanos.set(System.nanoTime());
+          started.countDown();
+          return parse(data, handler);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      logger.warn("Binary parser is shut down, skipping the content");
+      return null;
+    }
+
+    long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getBinaryParseTimeout());
+    try {
+      // Tasks still queued when the executor is shut down never start
+      while (!started.await(timeoutNanos, TimeUnit.NANOSECONDS)) {
+        if (executor.isShutdown()) {
+          logger.warn("Binary parser is shut down, skipping the content");
+          future.cancel(true);
+          return null;
+        }
+      }
+      long remaining = startNanos.get() + timeoutNanos - System.nanoTime();
+      return future.get(remaining, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      logger.warn("Parsing binary content took more than {} ms, cancelled", config.getBinaryParseTimeout());
+    } catch (ExecutionException e) {
+      logger.error("Error parsing file", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // Parsers which don't check for interrupts are stopped by the handler at their next SAX event
+    handler.cancel();
+    future.cancel(true);
+    return null;
+  }
+
+  private static String parse(byte[] data, HtmlWriterHandler handler) throws Exception {
+    ParseContext context = new ParseContext();
+    context.set(Parser.class, AUTO_DETECT_PARSER);
+    try (InputStream inputStream = new ByteArrayInputStream(data)) {
+      AUTO_DETECT_PARSER.parse(inputStream, handler, new Metadata(), context);
+    } catch (Exception e) {
+      // Tika may wrap the exception thrown by the handler, so check the handler itself
+      if (!handler.isLimitReached()) {
+        throw e;
+      }
+      logger.debug("Binary content produced more than {} chars of html, the rest is skipped", handler.limit);
+    }
+    return handler.toString();
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Serializes the SAX events of Tika as html into a buffer that can not grow
+   * beyond the given limit.
+   */
+  // 将SAX事件序列化为html，写入一个有大小上限的缓冲区
+  private static class HtmlWriterHandler extends DefaultHandler {
+
+    private final int limit;
+    private final StringBuilder buffer = new StringBuilder();
+
+    private boolean limitReached = false;
+    private volatile boolean cancelled = false;
+
+    HtmlWriterHandler(int limit) {
+      this.limit = limit;
+    }
+
+    void cancel() {
+      cancelled = true;
+    }
+
+    boolean isLimitReached() {
+      return limitReached;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes)
+        throws SAXException {
+      checkCancelled();
+      String name = localName.isEmpty() ? qName : localName;
+      append('<');
+      append(name);
+      for (int i = 0; i < attributes.getLength(); i++) {
+        String attributeName = attributes.getLocalName(i).isEmpty() ? attributes.getQName(i)
+                                                                    : attributes.getLocalName(i);
+        append(' ');
+        append(attributeName);
+        append("=\"");
+        appendEscaped(attributes.getValue(i));
+        append('"');
+      }
+      append('>');
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+      checkCancelled();
+      append("</");
+      append(localName.isEmpty() ? qName : localName);
+      append('>');
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+      checkCancelled();
+      for (int i = start; i < start + length; i++) {
+        appendEscaped(ch[i]);
+      }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+      characters(ch, start, length);
+    }
+
+    private void checkCancelled() throws SAXException {
+      if (cancelled || Thread.currentThread().isInterrupted()) {
+        throw new SAXException("Parsing was cancelled");
+      }
+    }
+
+    private void appendEscaped(String str) throws SAXException {
+      for (int i = 0; i < str.length(); i++) {
+        appendEscaped(str.charAt(i));
+      }
+    }
+
+    private void appendEscaped(char c) throws SAXException {
+      switch (c) {
+        case '<':
+          append("&lt;");
+          break;
+        case '>':
+          append("&gt;");
+          break;
+        case '&':
+          append("&amp;");
+          break;
+        case '"':
+          append("&quot;");
+          break;
+        default:
+          append(c);
+      }
+    }
+
+    private void append(String str) throws SAXException {
+      if (buffer.length() + str.length() > limit) {
+        limitReached = true;
+        throw new SAXException("Output limit of " + limit + " chars reached");
+      }
+      buffer.append(str);
+    }
+
+    private void append(char c) throws SAXException {
+      if (buffer.length() >= limit) {
+        limitReached = true;
+        throw new SAXException("Output limit of " + limit + " chars reached");
+      }
+      buffer.append(c);
+    }
+
+    @Override
+    public String toString() {
+      return buffer.toString();
+    }
+  }
+}
@@ -2,20 +2,56 @@ package edu.uci.ics.crawler4j.parser;
 
 import edu.uci.ics.crawler4j.url.WebURL;
 
+import org.apache.tika.language.LanguageIdentifier;
+import org.apache.tika.metadata.DublinCore;
+import org.apache.tika.metadata.Metadata;
+
+import java.nio.charset.Charset;
 import java.util.Map;
 import java.util.Set;
 
-// ڴhtmlҳparse
+// 用于处理html页面的parse类
+// 除outgoingUrls外，各字段都在第一次被访问时才从保留的原始数据中计算并缓存
 public class HtmlParseData implements ParseData {
 
+  // 解析时保留下来的原始数据，用于延迟计算
+  private byte[] contentData;
+  private Charset contentCharset;
+  private HtmlContentHandler contentHandler;
+  private Metadata metadata;
+
   private String html;
   private String text;
   private String title;
+  private String language;
   private Map<String, String> metaTags;
 
   private Set<WebURL> outgoingUrls;
 
+  public HtmlParseData() {
+  }
+
+  /**
+   * Creates a parse data whose html, text, title, meta tags and language are
+   * computed on first access from the given parse results and then cached.
+   *
+   * @param contentData raw bytes of the page
+   * @param contentCharset charset used for decoding the html, or null for the platform default
+   * @param contentHandler the handler that received the SAX events of the page
+   * @param metadata the metadata extracted while parsing the page
+   */
+  public HtmlParseData(byte[] contentData, Charset contentCharset, HtmlContentHandler contentHandler,
+                       Metadata metadata) {
+    this.contentData = contentData;
+    this.contentCharset = contentCharset;
+    this.contentHandler = contentHandler;
+    this.metadata = metadata;
+  }
+
   public String getHtml() {
+    if (html == null && contentData != null) {
+      html = contentCharset == null ? new String(contentData) : new String(contentData, contentCharset);
+    }
     return html;
   }
 
@@ -24,14 +60,21 @@ public class HtmlParseData implements ParseData {
   }
 
   public String getText() {
+    if (text == null && contentHandler != null) {
+      text = contentHandler.getBodyText().trim();
+    }
     return text;
   }
 
   public void setText(String text) {
     this.text = text;
+    this.language = null;
   }
 
   public String getTitle() {
+    if (title == null && metadata != null) {
+      title = metadata.get(DublinCore.TITLE);
+    }
     return title;
   }
 
@@ -40,6 +83,9 @@ public class HtmlParseData implements ParseData {
   }
 
   public Map<String, String> getMetaTags() {
+    if (metaTags == null && contentHandler != null) {
+      metaTags = contentHandler.getMetaTags();
+    }
     return metaTags;
   }
 
@@ -47,6 +93,23 @@ public class HtmlParseData implements ParseData {
     this.metaTags = metaTags;
   }
 
+  /**
+   * @return language of the body text, identified on first access
+   */
+  public String getLanguage() {
+    if (language == null) {
+      String bodyText = getText();
+      if (bodyText != null) {
+        language = new LanguageIdentifier(bodyText).getLanguage();
+      }
+    }
+    return language;
+  }
+
+  public void setLanguage(String language) {
+    this.language = language;
+  }
+
   @Override
   public Set<WebURL> getOutgoingUrls() {
     return outgoingUrls;
@@ -59,6 +122,6 @@ public class HtmlParseData implements ParseData {
 
   @Override
   public String toString() {
-    return text;
+    return getText();
   }
-}
\ No newline at end of file
+}
@@ -4,10 +4,10 @@ import edu.uci.ics.crawler4j.url.WebURL;
 
 import java.util.Set;
 
-//ӿ
+//抽象接口
 public interface ParseData {
 
-  //õǰҳ
+  //得到当前页面的所有外链
   Set<WebURL> getOutgoingUrls();
 
   void setOutgoingUrls(Set<WebURL> outgoingUrls);
@@ -2,14 +2,14 @@ package edu.uci.ics.crawler4j.parser;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.util.HashSet;
 import java.util.Set;
 
 import edu.uci.ics.crawler4j.crawler.exceptions.ParseException;
+import edu.uci.ics.crawler4j.metrics.CrawlEventListener;
+import edu.uci.ics.crawler4j.metrics.CrawlEvents;
 import edu.uci.ics.crawler4j.util.Net;
-import org.apache.tika.language.LanguageIdentifier;
-import org.apache.tika.metadata.DublinCore;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.html.HtmlParser;
@@ -33,38 +33,86 @@ public class Parser extends Configurable {
 
   private HtmlParser htmlParser;
   private ParseContext parseContext;
-
+  private BinaryParseExecutor binaryParseExecutor;
+  // 由该parser自己创建的executor需要在close()时关闭
+  private final boolean ownsBinaryParseExecutor;
+
+  /**
+   * Creates a parser with its own pool of binary parser threads, which is
+   * shut down by {@link #close()}. Crawlers share the pool of their
+   * controller instead.
+   */
   public Parser(CrawlConfig config) {
+    this(config, new BinaryParseExecutor(config), true);
+  }
+
+  public Parser(CrawlConfig config, BinaryParseExecutor binaryParseExecutor) {
+    this(config, binaryParseExecutor, false);
+  }
+
+  private Parser(CrawlConfig config, BinaryParseExecutor binaryParseExecutor, boolean ownsBinaryParseExecutor) {
     super(config);
     htmlParser = new HtmlParser();
     parseContext = new ParseContext();
+    this.binaryParseExecutor = binaryParseExecutor;
+    this.ownsBinaryParseExecutor = ownsBinaryParseExecutor;
+  }
+
+  /**
+   * Shuts down the binary parser threads if this parser created them. A
+   * shared executor is left running.
+   */
+  public void close() {
+    if (ownsBinaryParseExecutor) {
+      binaryParseExecutor.shutdown();
+    }
   }
 
   public void parse(Page page, String contextURL) throws NotAllowedContentException, ParseException {
-     // ǰҳcontentTypeʾǶ
+    CrawlEventListener events = CrawlEvents.getListener();
+    if (events == null) {
+      parseContent(page, contextURL);
+      return;
+    }
+    Object started = events.begin(CrawlEventListener.Operation.PARSE);
+    long start = System.nanoTime();
+    boolean success = false;
+    try {
+      parseContent(page, contextURL);
+      success = true;
+    } finally {
+      String parser = Util.hasBinaryContent(page.getContentType()) ? "binary"
+          : Util.hasPlainTextContent(page.getContentType()) ? "text" : "html";
+      events.pageParsed(started, contextURL, page.getContentType(), parser,
+          page.getContentData() == null ? 0 : page.getContentData().length, System.nanoTime() - start, success);
+    }
+  }
+
+  private void parseContent(Page page, String contextURL) throws NotAllowedContentException, ParseException {
+     // 如果当前页面的contentType表示的是二进制数据
 	if (Util.hasBinaryContent(page.getContentType())) { // BINARY
       BinaryParseData parseData = new BinaryParseData();
-      // Ҫȡ
+      // 如果需要爬取二进制数据
       if (config.isIncludeBinaryContentInCrawling()) {
-        parseData.setBinaryContent(page.getContentData());
+        parseData.setBinaryContent(page.getContentData(), binaryParseExecutor);
         page.setParseData(parseData);
         if (parseData.getHtml() == null) {
           throw new ParseException();
         }
-        // Ӷлȡhtmlıٴıлȡ
+        // 从二进制数据中获取html文本，再从文本中获取所有外链
         parseData.setOutgoingUrls(Net.extractUrls(parseData.getHtml()));
       } else {
         throw new NotAllowedContentException();
       }
-    } else if (Util.hasPlainTextContent(page.getContentType())) { // plain Textı
+    } else if (Util.hasPlainTextContent(page.getContentType())) { // plain Text，文本数据
       try {
         TextParseData parseData = new TextParseData();
-        if (page.getContentCharset() == null) { // ַõҳı
+        if (page.getContentCharset() == null) { // 根据字符集，得到网页文本内容
           parseData.setTextContent(new String(page.getContentData()));
         } else {
           parseData.setTextContent(new String(page.getContentData(), page.getContentCharset()));
         }
-        // ȡ
+        // 获取外链
         parseData.setOutgoingUrls(Net.extractUrls(parseData.getTextContent()));
         page.setParseData(parseData);
       } catch (Exception e) {
@@ -75,7 +123,7 @@ public class Parser extends Configurable {
       Metadata metadata = new Metadata();
       HtmlContentHandler contentHandler = new HtmlContentHandler();
       try (InputStream inputStream = new ByteArrayInputStream(page.getContentData())) {
-    	// ʹhtmlparserҳṹ
+    	// 使用htmlparser解析网页结构
         htmlParser.parse(inputStream, contentHandler, metadata, parseContext);
       } catch (Exception e) {
         logger.error("{}, while parsing: {}", e.getMessage(), page.getWebURL().getURL());
@@ -85,14 +133,18 @@ public class Parser extends Configurable {
       if (page.getContentCharset() == null) {
         page.setContentCharset(metadata.get("Content-Encoding"));
       }
-      // ʹHtmlParseDataн
-      HtmlParseData parseData = new HtmlParseData();
-      parseData.setText(contentHandler.getBodyText().trim());
-      parseData.setTitle(metadata.get(DublinCore.TITLE));
-      parseData.setMetaTags(contentHandler.getMetaTags());
-      // Please note that identifying language takes less than 10 milliseconds
-      LanguageIdentifier languageIdentifier = new LanguageIdentifier(parseData.getText());
-      page.setLanguage(languageIdentifier.getLanguage());
+
+      Charset charset = null;
+      if (page.getContentCharset() != null) {
+        try {
+          charset = Charset.forName(page.getContentCharset());
+        } catch (IllegalArgumentException e) {
+          logger.error("error parsing the html: " + page.getWebURL().getURL(), e);
+          throw new ParseException();
+        }
+      }
+      // 使用HtmlParseData进行解析，text/title/metaTags/language/html在第一次访问时才计算
+      HtmlParseData parseData = new HtmlParseData(page.getContentData(), charset, contentHandler, metadata);
 
       Set<WebURL> outgoingUrls = new HashSet<>();
 
@@ -103,7 +155,7 @@ public class Parser extends Configurable {
 
       int urlCount = 0;
       for (ExtractedUrlAnchorPair urlAnchorPair : contentHandler.getOutgoingUrls()) {
-    	// е  
+    	// 处理所有的外链  
         String href = urlAnchorPair.getHref();
         if (href == null || href.trim().length() == 0) {
           continue;
@@ -111,35 +163,23 @@ public class Parser extends Configurable {
 
         String hrefLoweredCase = href.trim().toLowerCase();
         if (!hrefLoweredCase.contains("javascript:") && !hrefLoweredCase.contains("mailto:") && !hrefLoweredCase.contains("@")) {
-          // 淶url
+          // 规范化url链接
           String url = URLCanonicalizer.getCanonicalURL(href, contextURL);
           if (url != null) {
             WebURL webURL = new WebURL();
             webURL.setURL(url);
             webURL.setTag(urlAnchorPair.getTag());
             webURL.setAnchor(urlAnchorPair.getAnchor());
-            outgoingUrls.add(webURL); // outgoingUrlsǸset֤˲ظ
+            outgoingUrls.add(webURL); // outgoingUrls是个set，保证了不重复
             urlCount++;
-            if (urlCount > config.getMaxOutgoingLinksToFollow()) { // Ƿ񳬳ɴ
+            if (urlCount > config.getMaxOutgoingLinksToFollow()) { // 是否超出最大可处理外链的限制
               break;
             }
           }
         }
       }
       parseData.setOutgoingUrls(outgoingUrls);
-
-      try {
-        if (page.getContentCharset() == null) {
-          parseData.setHtml(new String(page.getContentData()));
-        } else {
-          parseData.setHtml(new String(page.getContentData(), page.getContentCharset()));
-        }
-
-        page.setParseData(parseData);
-      } catch (UnsupportedEncodingException e) {
-        logger.error("error parsing the html: " + page.getWebURL().getURL(), e);
-        throw new ParseException();
-      }
+      page.setParseData(parseData);
     }
   }
 }
\ No newline at end of file
@@ -5,7 +5,7 @@ import edu.uci.ics.crawler4j.url.WebURL;
 import java.util.HashSet;
 import java.util.Set;
 
-//ıݽparse
+//对文本数据进行parse的类
 public class TextParseData implements ParseData {
 
   private String textContent;
@@ -1,6 +1,6 @@
 package edu.uci.ics.crawler4j.robotstxt;
 
-// robot.txt
+// robot.txt的配置类
 public class RobotstxtConfig {
 
   /**
@@ -2,15 +2,15 @@ package edu.uci.ics.crawler4j.robotstxt;
 
 import java.util.StringTokenizer;
 
-// վrobot.txtıallowsdisallow
+// 根据网站的robot.txt文本，构建allows和disallow集合
 public class RobotstxtParser {
 
-  // ʹString.matchesʱ"?i"ʾԴСд	
+  // 当使用String.matches方法调用时，"?i"表示忽略大小写	
   private static final String PATTERNS_USERAGENT = "(?i)^User-agent:.*";
   private static final String PATTERNS_DISALLOW = "(?i)Disallow:.*";
   private static final String PATTERNS_ALLOW = "(?i)Allow:.*";
 
-  // "User-agent:"Ϊ11
+  // "User-agent:"长度为11
   private static final int PATTERNS_USERAGENT_LENGTH = 11;
   private static final int PATTERNS_DISALLOW_LENGTH = 9;
   private static final int PATTERNS_ALLOW_LENGTH = 6;
@@ -20,40 +20,40 @@ public class RobotstxtParser {
     HostDirectives directives = null;
     boolean inMatchingUserAgent = false;
 
-    // һȡrobot.txtÿһ
+    // 一次提取robot.txt的每一行
     StringTokenizer st = new StringTokenizer(content, "\n\r");
     while (st.hasMoreTokens()) {
       String line = st.nextToken();
       
-      // #֮Ķע
+      // #号之后的都是注释
       int commentIndex = line.indexOf("#");
       if (commentIndex > -1) {
         line = line.substring(0, commentIndex);
       }
 
       // remove any html markup
-      line = line.replaceAll("<[^>]+>", ""); 	// "<[ŵַ]+>"
+      line = line.replaceAll("<[^>]+>", ""); 	// "<[除了右括号的字符]+>"
       line = line.trim();
 
       if (line.length() == 0) {
         continue;
       }
 
-      if (line.matches(PATTERNS_USERAGENT)) {	// User-agenetе
+      if (line.matches(PATTERNS_USERAGENT)) {	// User-agenet行的内容
         String ua = line.substring(PATTERNS_USERAGENT_LENGTH).trim().toLowerCase();
-        // user-agentǷԵǰ
+        // user-agent是否是针对当前爬虫的
         if (ua.equals("*") || ua.contains(myUserAgent)) {
           inMatchingUserAgent = true;
         } else {
           inMatchingUserAgent = false;
         }
-      } else if (line.matches(PATTERNS_DISALLOW)) {	// disallowе
+      } else if (line.matches(PATTERNS_DISALLOW)) {	// disallow行的内容
         if (!inMatchingUserAgent) {
           continue;
         }
         String path = line.substring(PATTERNS_DISALLOW_LENGTH).trim();
         if (path.endsWith("*")) {
-        	// ȡǺ֮ǰpath·
+        	// 获取星号之前的path路径
         	path = path.substring(0, path.length() - 1);
         }
         path = path.trim();
@@ -61,15 +61,15 @@ public class RobotstxtParser {
           if (directives == null) {
             directives = new HostDirectives();
           }
-          // disallow
+          // 增加disallow规则
           directives.addDisallow(path);
         }
-      } else if (line.matches(PATTERNS_ALLOW)) {	// allowе
+      } else if (line.matches(PATTERNS_ALLOW)) {	// allow行的内容
         if (!inMatchingUserAgent) {
           continue;
         }
         String path = line.substring(PATTERNS_ALLOW_LENGTH).trim();
-        // ȡǺ֮ǰPath·
+        // 获取星号之前的Path路径
         if (path.endsWith("*")) {
           path = path.substring(0, path.length() - 1);
         }
@@ -77,7 +77,7 @@ public class RobotstxtParser {
         if (directives == null) {
           directives = new HostDirectives();
         }
-        // allow
+        // 增加allow规则
         directives.addAllow(path);
       }
     }
@@ -4,6 +4,7 @@ import java.net.*;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.LongAdder;
 
 import edu.uci.ics.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
 import org.apache.http.HttpStatus;
@@ -11,6 +12,8 @@ import org.apache.http.HttpStatus;
 import edu.uci.ics.crawler4j.crawler.Page;
 import edu.uci.ics.crawler4j.fetcher.PageFetchResult;
 import edu.uci.ics.crawler4j.fetcher.PageFetcher;
+import edu.uci.ics.crawler4j.metrics.CrawlEventListener;
+import edu.uci.ics.crawler4j.metrics.CrawlEvents;
 import edu.uci.ics.crawler4j.url.WebURL;
 import edu.uci.ics.crawler4j.util.Util;
 import org.apache.http.NoHttpResponseException;
@@ -24,11 +27,15 @@ public class RobotstxtServer {
 
   protected RobotstxtConfig config;
 
-  // hostrobottxtӳ伯
+  // host和robottxt规则的映射集合
   protected final Map<String, HostDirectives> host2directivesCache = new HashMap<>();
 
   protected PageFetcher pageFetcher;
 
+  // 缓存命中和未命中（需要下载robots.txt）的次数
+  protected final LongAdder cacheHits = new LongAdder();
+  protected final LongAdder cacheMisses = new LongAdder();
+
   public RobotstxtServer(RobotstxtConfig config, PageFetcher pageFetcher) {
     this.config = config;
     this.pageFetcher = pageFetcher;
@@ -56,7 +63,10 @@ public class RobotstxtServer {
         }
 
         if (directives == null) {
+          cacheMisses.increment();
           directives = fetchDirectives(url);
+        } else {
+          cacheHits.increment();
         }
 
         return directives.allows(path);
@@ -68,6 +78,20 @@ public class RobotstxtServer {
     return true;
   }
 
+  /**
+   * @return number of checks which found the directives of the host in the cache
+   */
+  public long getCacheHits() {
+    return cacheHits.sum();
+  }
+
+  /**
+   * @return number of checks which had to fetch the robots.txt of the host
+   */
+  public long getCacheMisses() {
+    return cacheMisses.sum();
+  }
+
   private HostDirectives fetchDirectives(URL url) {
     WebURL robotsTxtUrl = new WebURL();
     String host = getHost(url);
@@ -75,6 +99,9 @@ public class RobotstxtServer {
     robotsTxtUrl.setURL("http://" + host + port + "/robots.txt");
     HostDirectives directives = null;
     PageFetchResult fetchResult = null;
+    CrawlEventListener events = CrawlEvents.getListener();
+    Object started = events == null ? null : events.begin(CrawlEventListener.Operation.ROBOTS_FETCH);
+    long start = events == null ? 0 : System.nanoTime();
     try {
       fetchResult = pageFetcher.fetchPage(robotsTxtUrl);
       if (fetchResult.getStatusCode() == HttpStatus.SC_OK) {
@@ -108,6 +135,9 @@ public class RobotstxtServer {
       if (fetchResult != null) {
         fetchResult.discardContentIfNotConsumed();
       }
+      if (events != null) {
+        events.robotsFetched(started, host, fetchResult == null ? 0 : fetchResult.getStatusCode(), System.nanoTime() - start);
+      }
     }
 
     if (directives == null) {
@@ -0,0 +1,462 @@
+package edu.uci.ics.crawler4j.url;
+
+/**
+ * A single pass canonicalizer for the common shapes of links: absolute http
+ * and https URLs, absolute paths and relative paths whose only dot segments
+ * are leading "./" and "../". It produces exactly the same output as
+ * {@link URLCanonicalizer#getCanonicalURLWithJavaNet(String, String)} but
+ * works directly on the characters of the href and the context, without
+ * going through {@link UrlResolver}, {@link java.net.URL} and
+ * {@link java.net.URI}.
+ *
+ * Anything it is not sure about (non ASCII characters, whitespace, user
+ * info, dot segments in the middle of a path, malformed escapes, ...) is
+ * left to the slower implementation by returning null. Parameters without
+ * a name are left to it as well.
+ */
+// 单次扫描的url规范化，只处理常见形式的链接，其它情况返回null交由URLCanonicalizer处理
+public final class FastURLCanonicalizer {
+
+  private static final String[] SESSION_PARAMS = {"jsessionid", "phpsessid", "aspsessionid"};
+
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  private FastURLCanonicalizer() {
+  }
+
+  /**
+   * @return the canonical form of the href, or null if this shape of href is
+   *         not handled here
+   */
+  public static String canonicalize(String href, String context) {
+    int hrefEnd = contentEnd(href);
+    if (hrefEnd <= 0) {
+      return null;
+    }
+
+    String base;       // the string holding scheme and authority
+    int baseEnd;
+    if (startsWithHttpScheme(href)) {
+      base = href;
+      baseEnd = hrefEnd;
+    } else {
+      char first = href.charAt(0);
+      if (first == '?' || first == '#' || first == ';' || (first == '/' && hrefEnd > 1 && href.charAt(1) == '/')
+          || context == null) {
+        return null;
+      }
+      if (first != '/' && hasSchemeLikeColon(href, hrefEnd)) {
+        return null;
+      }
+      baseEnd = contentEnd(context);
+      if (baseEnd <= 0 || !startsWithHttpScheme(context)) {
+        return null;
+      }
+      base = context;
+    }
+
+    boolean https = base.charAt(4) == 's' || base.charAt(4) == 'S';
+    int authorityStart = https ? 8 : 7;
+    int authorityEnd = authorityStart;
+    while (authorityEnd < baseEnd && base.charAt(authorityEnd) != '/' && base.charAt(authorityEnd) != '?') {
+      authorityEnd++;
+    }
+
+    StringBuilder sb = new StringBuilder(hrefEnd + (base == href ? 0 : baseEnd) + 8);
+    sb.append(https ? "https://" : "http://");
+    if (!appendAuthority(sb, base, authorityStart, authorityEnd, https)) {
+      return null;
+    }
+
+    int queryStart;
+    if (base == href) {
+      // absolute url
+      int pathEnd = indexOf(href, '?', authorityEnd, hrefEnd);
+      queryStart = pathEnd;
+      if (pathEnd < 0) {
+        pathEnd = hrefEnd;
+      }
+      if (pathEnd == authorityEnd) {
+        sb.append('/');
+      } else if (!isPlainPath(href, authorityEnd, pathEnd) || !appendPath(sb, href, authorityEnd, pathEnd)) {
+        return null;
+      }
+    } else {
+      int pathEnd = indexOf(href, '?', 0, hrefEnd);
+      queryStart = pathEnd;
+      if (pathEnd < 0) {
+        pathEnd = hrefEnd;
+      }
+      if (href.charAt(0) == '/') {
+        // absolute path
+        if (!isPlainPath(href, 0, pathEnd) || !appendPath(sb, href, 0, pathEnd)) {
+          return null;
+        }
+      } else if (!appendRelativePath(sb, base, authorityEnd, baseEnd, href, pathEnd)) {
+        return null;
+      }
+    }
+
+    if (queryStart >= 0 && !appendQuery(sb, href, queryStart + 1, hrefEnd)) {
+      return null;
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return the index of the fragment or the length of the string, or -1 if
+   *         the part before the fragment has characters that are not handled here
+   */
+  private static int contentEnd(String str) {
+    int length = str.length();
+    boolean beforeQuery = true;
+    for (int i = 0; i < length; i++) {
+      char c = str.charAt(i);
+      if (c == '#') {
+        return i;
+      }
+      if (c <= ' ' || c >= 0x7F || c == '\\') {
+        return -1;
+      }
+      if (c == '?') {
+        beforeQuery = false;
+      } else if (c == ';' && beforeQuery) {
+        return -1;
+      }
+    }
+    return length;
+  }
+
+  private static boolean startsWithHttpScheme(String str) {
+    return str.regionMatches(true, 0, "http://", 0, 7) || str.regionMatches(true, 0, "https://", 0, 8);
+  }
+
+  private static boolean hasSchemeLikeColon(String href, int end) {
+    for (int i = 0; i < end; i++) {
+      char c = href.charAt(i);
+      if (c == ':') {
+        return true;
+      }
+      if (c == '/' || c == '?') {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  // host[:port], the host is lower cased and the default port is dropped
+  private static boolean appendAuthority(StringBuilder sb, String str, int start, int end, boolean https) {
+    int hostEnd = start;
+    while (hostEnd < end && str.charAt(hostEnd) != ':') {
+      char c = str.charAt(hostEnd);
+      if (c >= 'A' && c <= 'Z') {
+        sb.append((char) (c + ('a' - 'A')));
+      } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '_') {
+        sb.append(c);
+      } else {
+        return false;
+      }
+      hostEnd++;
+    }
+    if (hostEnd == start) {
+      return false;
+    }
+    if (hostEnd < end) {
+      int digits = end - hostEnd - 1;
+      if (digits < 1 || digits > 5) {
+        return false;
+      }
+      int port = 0;
+      for (int i = hostEnd + 1; i < end; i++) {
+        char c = str.charAt(i);
+        if (c < '0' || c > '9') {
+          return false;
+        }
+        port = port * 10 + (c - '0');
+      }
+      if (port > 65535) {
+        return false;
+      }
+      if (port != (https ? 443 : 80)) {
+        sb.append(':').append(port);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A plain path has only characters that are legal in a URI path, valid
+   * escapes, no empty segments, no "." segments and no segments starting
+   * with "..", which java.net and UrlResolver treat in their own ways.
+   */
+  private static boolean isPlainPath(String str, int start, int end) {
+    int segmentStart = start;
+    for (int i = start; i <= end; i++) {
+      if (i == end || str.charAt(i) == '/') {
+        if (isDotSegment(str, segmentStart, i) || (i + 1 < end && str.charAt(i + 1) == '/')) {
+          return false;
+        }
+        segmentStart = i + 1;
+        continue;
+      }
+      char c = str.charAt(i);
+      if (c == '%') {
+        if (i + 2 >= end || !isHexDigit(str.charAt(i + 1)) || !isHexDigit(str.charAt(i + 2))) {
+          return false;
+        }
+      } else if (!isPathChar(c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDotSegment(String str, int start, int end) {
+    int length = end - start;
+    return (length == 1 && str.charAt(start) == '.')
+        || (length >= 2 && str.charAt(start) == '.' && str.charAt(start + 1) == '.');
+  }
+
+  // appends a plain path, replacing "%7E" with "~"
+  private static boolean appendPath(StringBuilder sb, String str, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = str.charAt(i);
+      if (c == '%' && str.charAt(i + 1) == '7' && str.charAt(i + 2) == 'E') {
+        sb.append('~');
+        i += 2;
+      } else {
+        sb.append(c);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Resolves a relative path against the directory of the base path. Only
+   * leading "./" and "../" segments are handled, and they may not climb
+   * above the root.
+   */
+  private static boolean appendRelativePath(StringBuilder sb, String base, int basePathStart, int baseEnd,
+                                            String href, int pathEnd) {
+    // leading dot segments of the href
+    int ups = 0;
+    int restStart = 0;
+    while (restStart < pathEnd && href.charAt(restStart) == '.') {
+      if (restStart + 1 == pathEnd || href.charAt(restStart + 1) == '/') {
+        restStart = Math.min(restStart + 2, pathEnd);
+      } else if (href.charAt(restStart + 1) == '.' && (restStart + 2 == pathEnd || href.charAt(restStart + 2) == '/')) {
+        ups++;
+        restStart = Math.min(restStart + 3, pathEnd);
+      } else {
+        break;
+      }
+    }
+    // UrlResolver treats names starting with dots, such as "..a", in its own way
+    if (restStart < pathEnd && (href.charAt(restStart) == '/' || href.charAt(restStart) == '.'
+        || !isPlainPath(href, restStart, pathEnd))) {
+      return false;
+    }
+
+    // directory of the base path
+    int basePathEnd = indexOf(base, '?', basePathStart, baseEnd);
+    if (basePathEnd < 0) {
+      basePathEnd = baseEnd;
+    }
+    int dirEnd = basePathStart;
+    if (basePathStart < basePathEnd) {
+      dirEnd = base.lastIndexOf('/', basePathEnd - 1) + 1;
+      if (!isPlainPath(base, basePathStart, dirEnd)) {
+        return false;
+      }
+    }
+    while (ups > 0) {
+      if (dirEnd - basePathStart <= 1) {
+        return false;
+      }
+      dirEnd = base.lastIndexOf('/', dirEnd - 2) + 1;
+      ups--;
+    }
+
+    if (dirEnd == basePathStart) {
+      sb.append('/');
+    } else {
+      appendPath(sb, base, basePathStart, dirEnd);
+    }
+    appendPath(sb, href, restStart, pathEnd);
+    return true;
+  }
+
+  /**
+   * Appends the query with its parameters sorted by name, the session
+   * parameters removed and names and values percent-encoded per RFC 3986.
+   */
+  private static boolean appendQuery(StringBuilder sb, String str, int start, int end) {
+    if (start >= end) {
+      return true;
+    }
+
+    // [nameStart, nameEnd, valueEnd] for each parameter, the value starts after the '='
+    int count = 0;
+    int[] params = new int[24];
+    int pairStart = start;
+    for (int i = start; i <= end; i++) {
+      if (i < end && str.charAt(i) != '&') {
+        continue;
+      }
+      if (i > pairStart) {
+        int eq = indexOf(str, '=', pairStart, i);
+        int nameEnd = eq < 0 ? i : eq;
+        if (nameEnd == pairStart || !isDecodable(str, pairStart, nameEnd) || (eq >= 0 && !isDecodable(str, eq + 1, i))) {
+          return false;
+        }
+        // A later parameter with the same name replaces the earlier one
+        int existing = -1;
+        for (int p = 0; p < count; p++) {
+          if (regionEquals(str, params[p * 3], params[p * 3 + 1], pairStart, nameEnd)) {
+            existing = p;
+            break;
+          }
+        }
+        if (existing < 0) {
+          if ((count + 1) * 3 > params.length) {
+            int[] grown = new int[params.length * 2];
+            System.arraycopy(params, 0, grown, 0, params.length);
+            params = grown;
+          }
+          existing = count++;
+        }
+        params[existing * 3] = pairStart;
+        params[existing * 3 + 1] = nameEnd;
+        params[existing * 3 + 2] = i;
+      }
+      pairStart = i + 1;
+    }
+
+    // insertion sort by name, the number of parameters is small
+    for (int p = 1; p < count; p++) {
+      int nameStart = params[p * 3];
+      int nameEnd = params[p * 3 + 1];
+      int valueEnd = params[p * 3 + 2];
+      int q = p - 1;
+      while (q >= 0 && compareRegions(str, params[q * 3], params[q * 3 + 1], nameStart, nameEnd) > 0) {
+        params[(q + 1) * 3] = params[q * 3];
+        params[(q + 1) * 3 + 1] = params[q * 3 + 1];
+        params[(q + 1) * 3 + 2] = params[q * 3 + 2];
+        q--;
+      }
+      params[(q + 1) * 3] = nameStart;
+      params[(q + 1) * 3 + 1] = nameEnd;
+      params[(q + 1) * 3 + 2] = valueEnd;
+    }
+
+    boolean first = true;
+    for (int p = 0; p < count; p++) {
+      int nameStart = params[p * 3];
+      int nameEnd = params[p * 3 + 1];
+      int valueEnd = params[p * 3 + 2];
+      if (isSessionParam(str, nameStart, nameEnd)) {
+        continue;
+      }
+      sb.append(first ? '?' : '&');
+      first = false;
+      appendEncoded(sb, str, nameStart, nameEnd);
+      if (valueEnd > nameEnd + 1) {
+        sb.append('=');
+        appendEncoded(sb, str, nameEnd + 1, valueEnd);
+      }
+    }
+    return true;
+  }
+
+  // Escapes have to be valid and decode to ASCII characters
+  private static boolean isDecodable(String str, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (str.charAt(i) == '%') {
+        if (i + 2 >= end || !isHexDigit(str.charAt(i + 1)) || !isHexDigit(str.charAt(i + 2))
+            || hexValue(str.charAt(i + 1)) >= 8) {
+          return false;
+        }
+        i += 2;
+      }
+    }
+    return true;
+  }
+
+  // decodes the escapes and encodes everything except unreserved characters again
+  private static void appendEncoded(StringBuilder sb, String str, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = str.charAt(i);
+      if (c == '%') {
+        c = (char) (hexValue(str.charAt(i + 1)) * 16 + hexValue(str.charAt(i + 2)));
+        i += 2;
+      }
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-'
+          || c == '_' || c == '~') {
+        sb.append(c);
+      } else {
+        sb.append('%').append(HEX[c >> 4]).append(HEX[c & 0xF]);
+      }
+    }
+  }
+
+  private static boolean isSessionParam(String str, int start, int end) {
+    for (String name : SESSION_PARAMS) {
+      if (name.length() == end - start && str.regionMatches(true, start, name, 0, name.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean regionEquals(String str, int start1, int end1, int start2, int end2) {
+    return end1 - start1 == end2 - start2 && str.regionMatches(start1, str, start2, end1 - start1);
+  }
+
+  private static int compareRegions(String str, int start1, int end1, int start2, int end2) {
+    int length1 = end1 - start1;
+    int length2 = end2 - start2;
+    int min = Math.min(length1, length2);
+    for (int i = 0; i < min; i++) {
+      char c1 = str.charAt(start1 + i);
+      char c2 = str.charAt(start2 + i);
+      if (c1 != c2) {
+        return c1 - c2;
+      }
+    }
+    return length1 - length2;
+  }
+
+  private static int indexOf(String str, char c, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (str.charAt(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // characters that java.net.URI accepts in a path, besides '/' and escapes
+  private static boolean isPathChar(char c) {
+    if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+      return true;
+    }
+    switch (c) {
+      case '-': case '_': case '.': case '!': case '~': case '*': case '\'': case '(': case ')':
+      case ',': case ':': case '$': case '&': case '+': case '=': case '@':
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isHexDigit(char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  private static int hexValue(char c) {
+    if (c <= '9') {
+      return c - '0';
+    }
+    return (c | 0x20) - 'a' + 10;
+  }
+}
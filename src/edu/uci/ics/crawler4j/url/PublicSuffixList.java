@@ -0,0 +1,311 @@
+package edu.uci.ics.crawler4j.url;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The rules of the Public Suffix List (https://publicsuffix.org/list/),
+ * kept in a trie whose levels are the labels of a rule from right to left.
+ * Normal, wildcard ("*.ck") and exception ("!www.ck") rules are supported,
+ * and names with non ASCII labels are also stored in their punycode form.
+ *
+ * The list is read from a snapshot bundled next to this class, no network
+ * access happens. If the snapshot can not be read the list is empty and
+ * only the implicit "*" rule applies, i.e. the public suffix of a host is
+ * its last label.
+ */
+// 公共后缀列表，规则按照从右到左的域名字段保存在一棵字典树中，用来计算一个host的可注册域名
+public class PublicSuffixList {
+
+  private static final Logger logger = LoggerFactory.getLogger(PublicSuffixList.class);
+
+  private static final String SNAPSHOT_FILENAME = "public_suffix_list.dat";
+
+  private static final byte NO_RULE = 0;
+  private static final byte RULE = 1;
+  private static final byte EXCEPTION = 2;
+
+  // 字典树中的一个节点，对应规则中的一个字段
+  private static class Node {
+    byte type = NO_RULE;
+    boolean wildcard = false;     // 存在"*.<到此节点的后缀>"规则
+    String[] labels = new String[0];
+    Node[] children = new Node[0];
+    Map<String, Node> building = new TreeMap<>();
+
+    Node child(String label) {
+      Node child = building.get(label);
+      if (child == null) {
+        child = new Node();
+        building.put(label, child);
+      }
+      return child;
+    }
+
+    // 构建完成后把子节点换成有序数组，查找时使用二分查找
+    void compact() {
+      labels = building.keySet().toArray(new String[building.size()]);
+      children = building.values().toArray(new Node[building.size()]);
+      building = null;
+      for (Node child : children) {
+        child.compact();
+      }
+    }
+
+    Node find(String host, int start, int end) {
+      int low = 0;
+      int high = labels.length - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int cmp = compare(labels[mid], host, start, end);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          return children[mid];
+        }
+      }
+      return null;
+    }
+  }
+
+  private static class Holder {
+    static final PublicSuffixList INSTANCE = loadSnapshot();
+  }
+
+  private final Node root = new Node();
+  private int size = 0;
+
+  private PublicSuffixList() {
+  }
+
+  /**
+   * @return the list read from the bundled snapshot
+   */
+  public static PublicSuffixList getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  private static PublicSuffixList loadSnapshot() {
+    try (InputStream stream = PublicSuffixList.class.getResourceAsStream(SNAPSHOT_FILENAME)) {
+      if (stream == null) {
+        logger.error("Couldn't find {}, only the last label of a host is treated as its public suffix",
+            SNAPSHOT_FILENAME);
+        return empty();
+      }
+      PublicSuffixList list = load(stream);
+      logger.debug("Loaded {} public suffix rules", list.size());
+      return list;
+    } catch (IOException e) {
+      logger.error("Couldn't read " + SNAPSHOT_FILENAME + ", only the last label of a host is treated as its "
+          + "public suffix", e);
+      return empty();
+    }
+  }
+
+  private static PublicSuffixList empty() {
+    PublicSuffixList list = new PublicSuffixList();
+    list.root.compact();
+    return list;
+  }
+
+  /**
+   * Reads rules in the format of public_suffix_list.dat: one rule per line,
+   * "//" starts a comment line, and only the text up to the first white space
+   * counts.
+   *
+   * @param stream UTF-8 encoded list
+   */
+  public static PublicSuffixList load(InputStream stream) throws IOException {
+    PublicSuffixList list = new PublicSuffixList();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    String line;
+    while ((line = reader.readLine()) != null) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("//")) {
+        continue;
+      }
+      int space = indexOfWhitespace(line);
+      String rule = space < 0 ? line : line.substring(0, space);
+      list.addRule(rule);
+      String asciiRule = toAscii(rule);
+      if (asciiRule != null && !asciiRule.equals(rule)) {
+        list.addRule(asciiRule);
+      }
+    }
+    list.root.compact();
+    return list;
+  }
+
+  private void addRule(String rule) {
+    boolean exception = rule.startsWith("!");
+    if (exception) {
+      rule = rule.substring(1);
+    }
+    Node node = root;
+    int end = nameEnd(rule);
+    while (end > 0) {
+      int start = rule.lastIndexOf('.', end - 1) + 1;
+      if (start == 0 && end == 1 && rule.charAt(0) == '*') {
+        node.wildcard = true;
+        size++;
+        return;
+      }
+      node = node.child(rule.substring(start, end).toLowerCase(Locale.ROOT));
+      end = start - 1;
+    }
+    node.type = exception ? EXCEPTION : RULE;
+    size++;
+  }
+
+  /**
+   * @return number of rules in the list
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return true if the host is a public suffix, like "com" or "co.uk"
+   */
+  public boolean isPublicSuffix(String host) {
+    return registrableDomainStart(host, nameEnd(host)) < 0;
+  }
+
+  /**
+   * @return
+   *      the registrable domain of the host, i.e. its public suffix plus one
+   *      label. For "www.bbc.co.uk" and "www.bbc.co.uk." this is "bbc.co.uk".
+   *      Null if the host is itself a public suffix.
+   */
+  public String getRegistrableDomain(String host) {
+    int end = nameEnd(host);
+    int start = registrableDomainStart(host, end);
+    return start < 0 ? null : host.substring(start, end);
+  }
+
+  /**
+   * @return the public suffix of the host. For "www.bbc.co.uk" and "www.bbc.co.uk." this is "co.uk"
+   */
+  public String getPublicSuffix(String host) {
+    int end = nameEnd(host);
+    int start = publicSuffixStart(host, end);
+    if (start < 0) {
+      // the suffix of an exception rule is the rule without its first label
+      start = host.indexOf('.', -start - 1) + 1;
+    }
+    return host.substring(start, end);
+  }
+
+  // 末尾的点表示完整域名，不算作一个字段
+  private static int nameEnd(String name) {
+    int end = name.length();
+    while (end > 0 && name.charAt(end - 1) == '.') {
+      end--;
+    }
+    return end;
+  }
+
+  /**
+   * Finds the registrable domain of host[0, end) in a single walk over its
+   * labels from right to left.
+   *
+   * @return start index of the registrable domain, -1 if the host is a public suffix
+   */
+  int registrableDomainStart(String host, int end) {
+    int suffixStart = publicSuffixStart(host, end);
+    if (suffixStart < 0) {
+      // an exception rule matched, the registrable domain is the matched name
+      return -suffixStart - 1;
+    }
+    if (suffixStart == 0) {
+      return -1;
+    }
+    return host.lastIndexOf('.', suffixStart - 2) + 1;
+  }
+
+  /**
+   * @return
+   *      start index of the public suffix of host[0, end), or -(start + 1)
+   *      of the registrable domain if an exception rule decided it
+   */
+  private int publicSuffixStart(String host, int end) {
+    // the implicit "*" rule: the last label is a public suffix
+    int suffixStart = host.lastIndexOf('.', end - 1) + 1;
+    Node node = root;
+    int labelEnd = end;
+    while (labelEnd >= 0) {
+      int labelStart = labelEnd > 0 ? host.lastIndexOf('.', labelEnd - 1) + 1 : 0;
+      if (node.wildcard) {
+        suffixStart = labelStart;
+      }
+      node = node.find(host, labelStart, labelEnd);
+      if (node == null) {
+        break;
+      }
+      if (node.type == EXCEPTION) {
+        return -labelStart - 1;
+      }
+      if (node.type == RULE) {
+        suffixStart = labelStart;
+      }
+      if (labelStart == 0) {
+        break;
+      }
+      labelEnd = labelStart - 1;
+    }
+    return suffixStart;
+  }
+
+  /**
+   * Compares a label of the trie with host[start, end), ignoring the case of
+   * ASCII letters in the host.
+   */
+  private static int compare(String label, String host, int start, int end) {
+    int length = Math.min(label.length(), end - start);
+    for (int i = 0; i < length; i++) {
+      char c1 = label.charAt(i);
+      char c2 = host.charAt(start + i);
+      if (c2 >= 'A' && c2 <= 'Z') {
+        c2 += 'a' - 'A';
+      }
+      if (c1 != c2) {
+        return c1 - c2;
+      }
+    }
+    return label.length() - (end - start);
+  }
+
+  private static int indexOfWhitespace(String line) {
+    for (int i = 0; i < line.length(); i++) {
+      if (Character.isWhitespace(line.charAt(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String toAscii(String rule) {
+    for (int i = 0; i < rule.length(); i++) {
+      if (rule.charAt(i) >= 0x80) {
+        try {
+          return IDN.toASCII(rule).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+          return null;
+        }
+      }
+    }
+    return rule;
+  }
+}
@@ -13,12 +13,12 @@ import java.util.TreeMap;
 
 
 /**
- * See http://en.wikipedia.org/wiki/URL_normalizationĵ for a reference Note: some
+ * See http://en.wikipedia.org/wiki/URL_normalization（具体文档） for a reference Note: some
  * parts of the code are adapted from: http://stackoverflow.com/a/4057470/405418
  * 
  * @author Yasser Ganjisaffar [lastname at gmail dot com]
  */
-//Щurlʵǵȼ۵ģΪжĳҳǷ񷴸ȡҪcanonicalizer(淶)ʾ
+//有些url其实是等价的，网络爬虫为了判断某个网页是否反复爬取，需要对其进行canonicalizer(规范化)表示
 public class URLCanonicalizer {
 
   public static String getCanonicalURL(String url) {
@@ -26,9 +26,23 @@ public class URLCanonicalizer {
   }
 
   public static String getCanonicalURL(String href, String context) {
+    // 常见形式的链接不经过java.net.URL即可完成规范化
+    String canonicalURL = FastURLCanonicalizer.canonicalize(href, context);
+    if (canonicalURL != null) {
+      return canonicalURL;
+    }
+    return getCanonicalURLWithJavaNet(href, context);
+  }
+
+  /**
+   * Canonicalizes the href by resolving it with {@link UrlResolver} and
+   * taking it apart with {@link URL} and {@link URI}. This handles every
+   * shape of URL and is what {@link FastURLCanonicalizer} is checked against.
+   */
+  public static String getCanonicalURLWithJavaNet(String href, String context) {
 
     try {
-      //õ׼ʽַʽľ·
+      //得到标准格式的字符串形式的绝对路径
       URL canonicalURL = new URL(UrlResolver.resolveUrl(context == null ? "" : context, href));
 
       String host = canonicalURL.getHost().toLowerCase();
@@ -58,7 +72,7 @@ public class URLCanonicalizer {
 
       path = path.trim();
       
-      // 淶Ĳְ
+      // 规范化的参数兼职对
       final SortedMap<String, String> params = createParameterMap(canonicalURL.getQuery());
       final String queryString;
       if (params != null && params.size() > 0) {
@@ -99,7 +113,7 @@ public class URLCanonicalizer {
     if (queryString == null || queryString.isEmpty()) {
       return null;
     }
-    // &зֳеĲֵ
+    // 按&切分出所有的参数键值对
     final String[] pairs = queryString.split("&");
     final Map<String, String> params = new HashMap<>(pairs.length);
 
@@ -108,7 +122,7 @@ public class URLCanonicalizer {
         continue;
       }
       
-      // õеkeyvalue
+      // 得到所有的key和value
       String[] tokens = pair.split("=", 2);
       switch (tokens.length) {
       case 1:
@@ -140,7 +154,7 @@ public class URLCanonicalizer {
 
     final StringBuffer sb = new StringBuffer(100);
     for (Map.Entry<String, String> pair : sortedParamMap.entrySet()) {
-      // sessionй淶	
+      // 对session不进行规范化	
       final String key = pair.getKey().toLowerCase();
       if (key.equals("jsessionid") || key.equals("phpsessid") || key.equals("aspsessionid")) {
         continue;
@@ -11,18 +11,20 @@ public class WebURL implements Serializable {
   private static final long serialVersionUID = 1L;
 
   @PrimaryKey
-  private String url;		// ǰҳurl
-
-  private int docid;		// ΪǰҳһdocId
-  private int parentDocid;	// ҳaҳҵָbӣabparentDocid
-  private String parentUrl;	// ҳaҳҵָbӣabparentUrl
-  private short depth;		// ȡȣ 0ʼ
-  private String domain;	// ǰҳ
-  private String subDomain;	// ǰҳ
-  private String path;		// ǰҳվеԴ·
-  private String anchor;	// ӱǩеı
-  private byte priority;	// ȡȼԽʹȼԽ
-  private String tag;		// ǩ
+  private String url;		// 当前页面的url
+
+  private int docid;		// 为当前网页分配的一个docId
+  private int parentDocid;	// 在网页a的页面上找到指向b的链接，则a是b的parentDocid
+  private String parentUrl;	// 在网页a的页面上找到指向b的链接，则a是b的parentUrl
+  private short depth;		// 爬取深度， 从0开始计数
+  private String domain;	// 当前网页的主域名，第一次调用getDomain()时计算
+  private String subDomain;	// 当前网页的子域名，第一次调用getSubDomain()时计算
+  private String path;		// 当前网页在网站中的资源路径，第一次调用getPath()时计算
+  private String anchor;	// 超链接标签中的文本
+  private byte priority;	// 爬取的优先级，越低代表优先级越高
+  private String tag;		// 标签
+  private int domainStartIdx;	// 域名在url中的起点
+  private int domainEndIdx;	// 域名在url中的终点，也是path的起点
 
 
   /**
@@ -46,39 +48,77 @@ public class WebURL implements Serializable {
   public void setURL(String url) {
     this.url = url;
 
-    // "http://"ʼΪdomain
-    int domainStartIdx = url.indexOf("//") + 2;	
-    // һбΪdomainյ㣬硱http://www.baidu.com/
-    int domainEndIdx = url.indexOf('/', domainStartIdx);
-    // еûбܣhttp://www.baidu.com
+    // 只记录域名在url中的位置，domain、subDomain和path在第一次被用到时才计算
+    // 从"http://"开始作为domain的起点
+    domainStartIdx = url.indexOf("//") + 2;
+    // 第一个斜杠作为domain的终点，例如”http://www.baidu.com/“
+    domainEndIdx = url.indexOf('/', domainStartIdx);
+    // 有点没有斜杠，如http://www.baidu.com
     domainEndIdx = domainEndIdx > domainStartIdx ? domainEndIdx : url.length();
-    domain = url.substring(domainStartIdx, domainEndIdx);
-    subDomain = "";
-    //ݵв
-    String[] parts = domain.split("\\.");	
-    if (parts.length > 2) {
-      // ĬϵdomainֶΣwww.baidu.comеbaidu.com
-      domain = parts[parts.length - 2] + "." + parts[parts.length - 1];
-      int limit = 2;
-      // еİ3ֶΣwww.sina.com.cnеsina.com.cn
-      if (TLDList.getInstance().contains(domain)) {
-        domain = parts[parts.length - 3] + "." + domain;
-        limit = 3;
-      }
-      for (int i = 0; i < parts.length - limit; i++) {
-    	// Ϸָ
-        if (subDomain.length() > 0) {
-          subDomain += ".";
+    domain = null;
+    subDomain = null;
+    path = null;
+  }
+
+  private void splitDomain() {
+    String host = url.substring(domainStartIdx, domainEndIdx);
+    // IPv6地址本身含有冒号，保留到右方括号为止，不查公共后缀
+    if (host.startsWith("[")) {
+      int close = host.indexOf(']');
+      domain = close > 0 ? host.substring(0, close + 1) : host;
+      subDomain = "";
+      return;
+    }
+    // 端口不属于域名，末尾的点也不算作一个字段
+    int end = host.indexOf(':');
+    if (end < 0) {
+      end = host.length();
+    }
+    while (end > 0 && host.charAt(end - 1) == '.') {
+      end--;
+    }
+    // IPv4地址没有公共后缀，整个地址就是域名
+    if (isIPv4Literal(host, end)) {
+      domain = host.substring(0, end);
+      subDomain = "";
+      return;
+    }
+    // 可注册域名即公共后缀再加一个字段，如www.baidu.com中的baidu.com、www.sina.com.cn中的sina.com.cn
+    int domainStart = PublicSuffixList.getInstance().registrableDomainStart(host, end);
+    if (domainStart < 0) {
+      // host本身就是一个公共后缀
+      domain = host.substring(0, end);
+      subDomain = "";
+      return;
+    }
+    domain = host.substring(domainStart, end);
+    // 子域名是domain之前的部分，开头的点被忽略
+    int subDomainStart = 0;
+    while (subDomainStart < domainStart - 1 && host.charAt(subDomainStart) == '.') {
+      subDomainStart++;
+    }
+    subDomain = domainStart > 0 ? host.substring(subDomainStart, domainStart - 1) : "";
+  }
+
+  // host的前end个字符是否为四段数字组成的IPv4地址
+  private static boolean isIPv4Literal(String host, int end) {
+    int dots = 0;
+    int digits = 0;
+    for (int i = 0; i < end; i++) {
+      char c = host.charAt(i);
+      if (c == '.') {
+        if (digits == 0) {
+          return false;
         }
-        subDomain += parts[i];
+        dots++;
+        digits = 0;
+      } else if (c >= '0' && c <= '9' && digits < 3) {
+        digits++;
+      } else {
+        return false;
       }
     }
-    path = url.substring(domainEndIdx);
-    // urlдв??֮Ĳpath
-    int pathEndIdx = path.indexOf('?');
-    if (pathEndIdx >= 0) {
-      path = path.substring(0, pathEndIdx);
-    }
+    return dots == 3 && digits > 0;
   }
 
   /**
@@ -125,18 +165,38 @@ public class WebURL implements Serializable {
    *      domain of this Url. For 'http://www.example.com/sample.htm', domain will be 'example.com'
    */
   public String getDomain() {
+    if (domain == null && url != null) {
+      splitDomain();
+    }
     return domain;
   }
 
   public String getSubDomain() {
+    if (subDomain == null && url != null) {
+      splitDomain();
+    }
     return subDomain;
   }
 
+  /**
+   * @return
+   *      host of this Url including the port. For 'http://www.example.com:8080/sample.htm', host will be
+   *      'www.example.com:8080'
+   */
+  public String getHost() {
+    return url == null ? null : url.substring(domainStartIdx, domainEndIdx);
+  }
+
   /**
    * @return
    *      path of this Url. For 'http://www.example.com/sample.htm', path will be 'sample.htm'
    */
   public String getPath() {
+    if (path == null && url != null) {
+      // 如果url中带有参数（即含有?），则?之后的不是path
+      int pathEndIdx = url.indexOf('?', domainEndIdx);
+      path = url.substring(domainEndIdx, pathEndIdx >= 0 ? pathEndIdx : url.length());
+    }
     return path;
   }
 
@@ -169,7 +229,7 @@ public class WebURL implements Serializable {
   }
 
   /**
-   * @return tag in which this URL is found, like 'a' , 'href' ,
+   * @return tag in which this URL is found, like 'a' , 'href' ,····
    * */
   public String getTag() {
     return tag;
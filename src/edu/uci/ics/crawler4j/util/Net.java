@@ -10,27 +10,48 @@ import java.util.regex.Pattern;
 public class Net {
   private static Pattern pattern = initializePattern();
 
-  // ʽȡеUrl
+  // 扫描输入文本，获取其中的Url链接
   public static Set<WebURL> extractUrls(String input) {
     Set<WebURL> extractedUrls = new HashSet<>();
 
+    if (input != null) {
+      UrlScanner scanner = new UrlScanner(input);
+      while (scanner.find()) {
+        addUrl(extractedUrls, scanner.group());
+      }
+    }
+    return extractedUrls;
+  }
+
+  /**
+   * Extracts the urls with the regular expression that was used before
+   * {@link UrlScanner}. It backtracks heavily on large inputs and is only
+   * kept for comparison.
+   */
+  @Deprecated
+  public static Set<WebURL> extractUrlsWithPattern(String input) {
+    Set<WebURL> extractedUrls = new HashSet<>();
+
     if (input != null) {
       Matcher matcher = pattern.matcher(input);
-      // λȡ
+      // 依次获取所有满足正则的子序列
       while (matcher.find()) {
-        WebURL webURL = new WebURL();
-        String urlStr = matcher.group();
-        // Э
-        if (!urlStr.startsWith("http"))
-          urlStr = "http://" + urlStr;
-
-        webURL.setURL(urlStr);
-        extractedUrls.add(webURL);
+        addUrl(extractedUrls, matcher.group());
       }
     }
     return extractedUrls;
   }
 
+  private static void addUrl(Set<WebURL> extractedUrls, String urlStr) {
+    WebURL webURL = new WebURL();
+    // 加上协议名，构成完整的链接
+    if (!urlStr.startsWith("http"))
+      urlStr = "http://" + urlStr;
+
+    webURL.setURL(urlStr);
+    extractedUrls.add(webURL);
+  }
+
   /** Singleton like one time call to initialize the Pattern */
   private static Pattern initializePattern() {
     return Pattern.compile(
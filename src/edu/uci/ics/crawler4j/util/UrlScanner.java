@@ -0,0 +1,337 @@
+package edu.uci.ics.crawler4j.util;
+
+/**
+ * A linear time scanner that finds URL candidates in plain text. It follows
+ * the heuristics of the regular expression that {@link Net} used before: a
+ * URL starts with "http://", "https://", "ftp://", "ftps://" or "www.", may
+ * carry a "user:password@" part, needs a host whose last label is a well
+ * known generic TLD or any two letter country code, and may be followed by a
+ * port, a path, a query and a fragment. Trailing punctuation is not part of
+ * a URL.
+ *
+ * Unlike {@link java.util.regex.Matcher} it never backtracks, so the time
+ * spent is bounded by the length of the input, and it does not allocate
+ * anything until {@link #group()} is called.
+ *
+ * <pre>
+ * UrlScanner scanner = new UrlScanner(text);
+ * while (scanner.find()) {
+ *   String url = scanner.group();
+ * }
+ * </pre>
+ */
+public class UrlScanner {
+
+  private static final String[] SCHEMES = {"http://", "https://", "ftp://", "ftps://", "www."};
+
+  // 除两个字母的国家代码外，被认可的顶级域名
+  private static final String[] GENERIC_TLDS = {"com", "org", "net", "gov", "mil", "biz", "info", "mobi",
+      "name", "aero", "jobs", "museum", "travel"};
+
+  private final CharSequence input;
+  private final int length;
+
+  private int searchFrom = 0;
+  private int start = -1;
+  private int end = -1;
+
+  // 缓存最近一次扫描的域名片段，使得同一片段内的多个候选起点不会被重复扫描
+  private int segmentStart = -1;
+  private int segmentEnd = -1;
+  private int lastTldLabelStart = -1;
+  private int lastTldEnd = -1;
+
+  public UrlScanner(CharSequence input) {
+    this.input = input;
+    this.length = input.length();
+  }
+
+  /**
+   * Finds the next URL candidate.
+   *
+   * @return true if a candidate was found, its bounds are then available
+   *         through {@link #start()} and {@link #end()}
+   */
+  public boolean find() {
+    for (int i = searchFrom; i < length; i++) {
+      char c = input.charAt(i);
+      if (c != 'h' && c != 'f' && c != 'w') {
+        continue;
+      }
+      if (i > 0 && isWordChar(input.charAt(i - 1))) {
+        continue;
+      }
+      int prefixEnd = matchScheme(i);
+      if (prefixEnd < 0) {
+        continue;
+      }
+      int matchEnd = matchAfterScheme(prefixEnd);
+      if (matchEnd > 0) {
+        start = i;
+        end = matchEnd;
+        searchFrom = matchEnd;
+        return true;
+      }
+    }
+    searchFrom = length;
+    start = -1;
+    end = -1;
+    return false;
+  }
+
+  public int start() {
+    return start;
+  }
+
+  public int end() {
+    return end;
+  }
+
+  /**
+   * @return the last URL candidate found by {@link #find()}
+   */
+  public String group() {
+    if (start < 0) {
+      throw new IllegalStateException("No match available");
+    }
+    return input.subSequence(start, end).toString();
+  }
+
+  private int matchScheme(int from) {
+    for (String scheme : SCHEMES) {
+      if (regionMatches(from, scheme)) {
+        return from + scheme.length();
+      }
+    }
+    return -1;
+  }
+
+  private int matchAfterScheme(int from) {
+    int hostEnd = -1;
+    int userInfoEnd = matchUserInfo(from);
+    if (userInfoEnd > 0) {
+      hostEnd = matchHost(userInfoEnd);
+    }
+    if (hostEnd < 0) {
+      hostEnd = matchHost(from);
+    }
+    if (hostEnd < 0) {
+      return -1;
+    }
+
+    int i = matchPort(hostEnd);
+
+    // path
+    if (i < length && input.charAt(i) == '/') {
+      while (i < length) {
+        char c = input.charAt(i);
+        if (c == '/' || isPathChar(c)) {
+          i++;
+        } else if (isEscape(i)) {
+          i += 3;
+        } else {
+          break;
+        }
+      }
+    }
+
+    // query, parameters are separated by '&' and each of them needs a name
+    if (i < length && input.charAt(i) == '?') {
+      int q = i + 1;
+      while (q < length) {
+        char c = input.charAt(q);
+        if (isQueryChar(c) || c == '=') {
+          q++;
+        } else if (isEscape(q)) {
+          q += 3;
+        } else if (c == '&' && q + 1 < length && (isQueryChar(input.charAt(q + 1)) || isEscape(q + 1))) {
+          q++;
+        } else {
+          break;
+        }
+      }
+      if (q > i + 1) {
+        i = q;
+      }
+    }
+
+    // fragment
+    if (i < length && input.charAt(i) == '#') {
+      i++;
+      while (i < length) {
+        char c = input.charAt(i);
+        if (isQueryChar(c) || c == '=') {
+          i++;
+        } else if (isEscape(i)) {
+          i += 3;
+        } else {
+          break;
+        }
+      }
+    }
+
+    // A URL ends at a word boundary, so trailing punctuation is dropped
+    while (i > hostEnd && !isWordChar(input.charAt(i - 1))) {
+      i--;
+    }
+    return i;
+  }
+
+  // user:password@
+  private int matchUserInfo(int from) {
+    int i = from;
+    while (i < length && isWordChar(input.charAt(i))) {
+      i++;
+    }
+    if (i == from || i >= length || input.charAt(i) != ':') {
+      return -1;
+    }
+    int passwordStart = ++i;
+    while (i < length && isWordChar(input.charAt(i))) {
+      i++;
+    }
+    if (i == passwordStart || i >= length || input.charAt(i) != '@') {
+      return -1;
+    }
+    return i + 1;
+  }
+
+  /**
+   * The host is a sequence of labels separated by dots whose last label is a
+   * known TLD. If several labels qualify, the last one wins.
+   *
+   * @return the end of the host or -1 if there is no valid host at this position
+   */
+  private int matchHost(int hostStart) {
+    if (hostStart < segmentStart || hostStart >= segmentEnd) {
+      scanSegment(hostStart);
+    }
+    // At least one label has to precede the TLD
+    if (lastTldLabelStart < hostStart + 2) {
+      return -1;
+    }
+    return lastTldEnd;
+  }
+
+  private void scanSegment(int from) {
+    segmentStart = from;
+    lastTldLabelStart = -1;
+    lastTldEnd = -1;
+
+    int labelStart = from;
+    while (true) {
+      int labelEnd = labelStart;
+      while (labelEnd < length && isLabelChar(input.charAt(labelEnd))) {
+        labelEnd++;
+      }
+      if (labelEnd == labelStart) {
+        segmentEnd = Math.max(labelStart, from + 1);
+        return;
+      }
+      int wordEnd = labelStart;
+      while (wordEnd < labelEnd && isWordChar(input.charAt(wordEnd))) {
+        wordEnd++;
+      }
+      if (labelStart > from && isTld(labelStart, wordEnd)) {
+        lastTldLabelStart = labelStart;
+        lastTldEnd = wordEnd;
+      }
+      if (labelEnd < length && input.charAt(labelEnd) == '.') {
+        labelStart = labelEnd + 1;
+      } else {
+        segmentEnd = labelEnd;
+        return;
+      }
+    }
+  }
+
+  private int matchPort(int from) {
+    if (from >= length || input.charAt(from) != ':') {
+      return from;
+    }
+    int i = from + 1;
+    while (i < length && i - from <= 5 && isDigit(input.charAt(i))) {
+      i++;
+    }
+    int digits = i - from - 1;
+    if (digits == 0 || digits > 5 || (i < length && isWordChar(input.charAt(i)))) {
+      return from;
+    }
+    return i;
+  }
+
+  private boolean isTld(int from, int to) {
+    int len = to - from;
+    if (len == 2) {
+      return isLowerCaseLetter(input.charAt(from)) && isLowerCaseLetter(input.charAt(from + 1));
+    }
+    for (String tld : GENERIC_TLDS) {
+      if (tld.length() == len && regionMatches(from, tld)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean regionMatches(int from, String str) {
+    if (from + str.length() > length) {
+      return false;
+    }
+    for (int i = 0; i < str.length(); i++) {
+      if (input.charAt(from + i) != str.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // %xx with lower case hex digits
+  private boolean isEscape(int i) {
+    return i + 2 < length && input.charAt(i) == '%' && isHexDigit(input.charAt(i + 1))
+        && isHexDigit(input.charAt(i + 2));
+  }
+
+  private static boolean isWordChar(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+  }
+
+  private static boolean isLabelChar(char c) {
+    return isWordChar(c) || c == '-';
+  }
+
+  private static boolean isPathChar(char c) {
+    if (isWordChar(c)) {
+      return true;
+    }
+    switch (c) {
+      case '-': case '~': case '!': case '$': case '+': case '|': case '.': case ',': case '=':
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isQueryChar(char c) {
+    if (isWordChar(c)) {
+      return true;
+    }
+    switch (c) {
+      case '-': case '~': case '!': case '$': case '+': case '|': case '.': case ',': case '*': case ':':
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isLowerCaseLetter(char c) {
+    return c >= 'a' && c <= 'z';
+  }
+
+  private static boolean isHexDigit(char c) {
+    return isDigit(c) || (c >= 'a' && c <= 'f');
+  }
+}
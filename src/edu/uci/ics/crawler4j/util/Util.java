@@ -22,7 +22,7 @@ package edu.uci.ics.crawler4j.util;
  */
 public class Util {
 
-	// longͣ64λ8ֽڣתΪΪ8byte顣λbyteǰ
+	// 将long类型（64位8字节）变量，转化为长度为8的byte数组。高位在byte数组的前面
 	public static byte[] long2ByteArray(long l) {
 		byte[] array = new byte[8];
 		int i, shift;
@@ -32,17 +32,17 @@ public class Util {
 		return array;
 	}
 
-	// intͣ32λ4ֽڣתΪΪ4byte
+	// 将int类型（32位4字节）变量，转化为长度为4的byte数组
 	public static byte[] int2ByteArray(int value) {
 		byte[] b = new byte[4];
 		for (int i = 0; i < 4; i++) {
 			int offset = (3 - i) * 8;
-			b[i] = (byte) ((value >>> offset) & 0xFF);	//ע˴Ϊ޷ƣ߲0
+			b[i] = (byte) ((value >>> offset) & 0xFF);	//注意此处为无符号右移（左边补充0）
 		}
 		return b;
 	}
 
-	// int2ByteArray,byte[]offset
+	// 类似与int2ByteArray,增加了byte[]和offset参数
 	public static void putIntInByteArray(int value, byte[] buf, int offset) {
 		for (int i = 0; i < 4; i++) {
 			int valueOffset = (3 - i) * 8;
@@ -50,7 +50,7 @@ public class Util {
 		}
 	}
 
-	//byteתΪInt
+	//byte数组转化为Int
 	public static int byteArray2Int(byte[] b) {
 		int value = 0;
 		for (int i = 0; i < 4; i++) {
@@ -60,9 +60,9 @@ public class Util {
 		return value;
 	}
 
-	//byteתΪlong
+	//byte数组转化为long
 	public static long byteArray2Long(byte[] b) {
-		long value = 0; // ǷӦ long value = 0;
+		long value = 0; // 是否应该是 long value = 0;
 		for (int i = 0; i < 8; i++) {
 			int shift = (8 - 1 - i) * 8;
 			value += ((long)b[i] & 0x000000FF) << shift;
@@ -70,7 +70,7 @@ public class Util {
 		return value;
 	}
 
-	// ֤HttpЭͷеcontentTypeǷΪݣimage,audio
+	// 验证Http协议头中的contentType，是否为二进制数据，如image,audio等
 	public static boolean hasBinaryContent(String contentType) {
 		String typeStr = contentType != null ? contentType.toLowerCase() : "";
 
@@ -78,7 +78,7 @@ public class Util {
 				|| typeStr.contains("application");
 	}
 
-	// ֤HttpЭͷеcontentTypeǷΪı
+	// 验证Http协议头中的contentType，是否为文本制数据
 	public static boolean hasPlainTextContent(String contentType) {
 		String typeStr = contentType != null ? contentType.toLowerCase() : "";
 
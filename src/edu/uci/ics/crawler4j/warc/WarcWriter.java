@@ -0,0 +1,466 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.warc;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.crawler.Configurable;
+import edu.uci.ics.crawler4j.crawler.Page;
+import edu.uci.ics.crawler4j.fetcher.PageFetchResult;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.StatusLine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the request and response of downloaded pages as WARC 1.0 records.
+ * Every record is compressed as its own gzip member, so the files can be
+ * read by any WARC tool and records can be read from their offset without
+ * decompressing the file before them.
+ *
+ * One writer belongs to one crawler thread and is not thread safe; giving
+ * every crawler its own files avoids any locking between crawlers. Files
+ * are named prefix-timestamp-serial-name.warc.gz, carry the suffix .open
+ * while they are written and are started anew once they reach the maximum
+ * file size. With asynchronous writes the crawler thread only builds and
+ * compresses the records, and a background thread writes them to the file.
+ */
+// 把下载的页面写成WARC记录，每条记录单独gzip压缩，按大小切分文件，可以由后台线程写盘
+public class WarcWriter extends Configurable {
+
+  private static final Logger logger = LoggerFactory.getLogger(WarcWriter.class);
+
+  public static final String FILE_PREFIX = "crawler4j";
+  public static final String OPEN_SUFFIX = ".open";
+
+  private static final byte[] CRLF = {'\r', '\n'};
+  // 内容解码后这些头部与记录中的内容不再一致，改名保留原值
+  private static final String[] REWRITTEN_HEADERS = {"Content-Length", "Content-Encoding", "Transfer-Encoding"};
+  private static final String REWRITTEN_PREFIX = "X-Crawler-";
+  // 结束标记，后台线程收到后退出
+  private static final byte[] END = new byte[0];
+
+  private final File folder;
+  private final String name;
+  private final long maxFileSize;
+
+  // 爬虫线程复用的缓冲区
+  private final Buffer responseHeader = new Buffer(512);
+  private final Buffer responseBlock = new Buffer(64 * 1024);
+  private final Buffer requestHeader = new Buffer(512);
+  private final Buffer requestBlock = new Buffer(1024);
+  private final Buffer compressed = new Buffer(32 * 1024);
+  private final Deflater deflater;
+  private final CRC32 crc = new CRC32();
+
+  // 以下字段只由写文件的线程访问
+  private OutputStream out;
+  private File openFile;
+  private long fileSize;
+  private int serial;
+
+  private final BlockingQueue<byte[]> queue;
+  private final Thread writerThread;
+
+  private long records;
+  private volatile long bytesWritten;
+  private boolean closed;
+
+  /**
+   * @param name the name of the files of this writer, unique among the writers of the crawl
+   */
+  public WarcWriter(CrawlConfig config, String name) {
+    super(config);
+    this.folder = new File(config.getWarcFolder());
+    this.name = name;
+    this.maxFileSize = config.getWarcMaxFileSize();
+    this.deflater = new Deflater(config.getWarcCompressionLevel(), true);
+    if (config.isWarcAsyncWrite()) {
+      queue = new ArrayBlockingQueue<>(config.getWarcWriteQueueSize());
+      writerThread = new Thread(this::writeQueued, "WARC writer " + name);
+      writerThread.setDaemon(true);
+      writerThread.start();
+    } else {
+      queue = null;
+      writerThread = null;
+    }
+  }
+
+  /**
+   * Writes a request record and a response record for a downloaded page.
+   * Errors are logged and do not stop the crawl.
+   */
+  public void write(Page page, PageFetchResult fetchResult) {
+    if (closed) {
+      return;
+    }
+    String url = page.getWebURL().getURL();
+    long time = fetchResult.getFetchTimeMillis() > 0 ? fetchResult.getFetchTimeMillis() : System.currentTimeMillis();
+    String date = Instant.ofEpochMilli(time).truncatedTo(ChronoUnit.SECONDS).toString();
+    String responseId = newRecordId();
+    byte[] content = page.getContentData() == null ? new byte[0] : page.getContentData();
+
+    try {
+      responseHeader.reset();
+      responseBlock.reset();
+      writeHttpResponseHead(responseBlock, fetchResult.getStatusLine(), page.getStatusCode(),
+          page.getFetchResponseHeaders(), content.length);
+      responseBlock.write(content, 0, content.length);
+      writeRecordHeader(responseHeader, "response", responseId, date, url, null,
+          "application/http; msgtype=response", responseBlock.size);
+
+      compressed.reset();
+      deflateMember(compressed, responseHeader, responseBlock);
+      HttpRequest request = fetchResult.getRequest();
+      if (request != null) {
+        requestHeader.reset();
+        requestBlock.reset();
+        writeHttpRequest(requestBlock, request);
+        writeRecordHeader(requestHeader, "request", newRecordId(), date, url, responseId,
+            "application/http; msgtype=request", requestBlock.size);
+        deflateMember(compressed, requestHeader, requestBlock);
+      }
+      submit(Arrays.copyOf(compressed.bytes, compressed.size));
+      records++;
+    } catch (IOException e) {
+      logger.error("Could not write the WARC records of {}: {}", url, e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.warn("Interrupted while queueing the WARC records of {}", url);
+    }
+  }
+
+  /**
+   * @return number of pages written, or queued to be written
+   */
+  public long getRecords() {
+    return records;
+  }
+
+  /**
+   * @return number of compressed bytes written to the files
+   */
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * Writes all queued records and closes the current file.
+   */
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (writerThread != null) {
+      try {
+        queue.put(END);
+        writerThread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.warn("Interrupted while waiting for the WARC writer {} to finish", name);
+        return;
+      }
+    } else {
+      closeFile();
+    }
+    deflater.end();
+  }
+
+  private void submit(byte[] members) throws IOException, InterruptedException {
+    if (queue == null) {
+      writeToFile(members);
+    } else {
+      queue.put(members);
+    }
+  }
+
+  // 后台线程：写入队列中的记录，队列空时刷新文件
+  private void writeQueued() {
+    try {
+      while (true) {
+        byte[] members = queue.poll();
+        if (members == null) {
+          flushFile();
+          members = queue.take();
+        }
+        if (members == END) {
+          break;
+        }
+        try {
+          writeToFile(members);
+        } catch (IOException e) {
+          logger.error("Could not write to the WARC file {}: {}", openFile, e.getMessage());
+        }
+      }
+    } catch (InterruptedException e) {
+      logger.warn("WARC writer {} was interrupted, queued records are lost", name);
+    } finally {
+      closeFile();
+    }
+  }
+
+  private void writeToFile(byte[] members) throws IOException {
+    if (out == null) {
+      openFile();
+    }
+    try {
+      out.write(members);
+    } catch (IOException e) {
+      // 写失败的文件不再继续写，下一条记录写到新文件
+      closeFile();
+      throw e;
+    }
+    fileSize += members.length;
+    bytesWritten += members.length;
+    if (fileSize >= maxFileSize) {
+      closeFile();
+    }
+  }
+
+  private void openFile() throws IOException {
+    if (!folder.exists() && !folder.mkdirs()) {
+      throw new IOException("Could not create the WARC folder " + folder);
+    }
+    SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmssSSS");
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    String fileName = String.format("%s-%s-%05d-%s.warc.gz", FILE_PREFIX, format.format(new Date()), serial++, name);
+    openFile = new File(folder, fileName + OPEN_SUFFIX);
+    out = new BufferedOutputStream(new FileOutputStream(openFile), 64 * 1024);
+    fileSize = 0;
+    byte[] info = warcInfo(fileName);
+    out.write(info);
+    fileSize += info.length;
+    bytesWritten += info.length;
+  }
+
+  private void flushFile() {
+    if (out != null) {
+      try {
+        out.flush();
+      } catch (IOException e) {
+        logger.error("Could not flush the WARC file {}: {}", openFile, e.getMessage());
+      }
+    }
+  }
+
+  private void closeFile() {
+    if (out == null) {
+      return;
+    }
+    try {
+      out.close();
+    } catch (IOException e) {
+      logger.error("Could not close the WARC file {}: {}", openFile, e.getMessage());
+    }
+    String path = openFile.getPath();
+    File done = new File(path.substring(0, path.length() - OPEN_SUFFIX.length()));
+    if (!openFile.renameTo(done)) {
+      logger.warn("Could not rename the WARC file {}", openFile);
+    }
+    out = null;
+    openFile = null;
+  }
+
+  // 每个文件开头的warcinfo记录，由写文件的线程生成，所以使用自己的Deflater
+  private byte[] warcInfo(String fileName) throws IOException {
+    Buffer body = new Buffer(256);
+    body.writeAscii("software: crawler4j\r\n");
+    body.writeAscii("format: WARC File Format 1.0\r\n");
+    body.writeUtf8("http-header-user-agent: " + config.getUserAgentString() + "\r\n");
+    Buffer header = new Buffer(256);
+    String date = Instant.now().truncatedTo(ChronoUnit.SECONDS).toString();
+    writeRecordHeader(header, "warcinfo", newRecordId(), date, null, null, "application/warc-fields", body.size);
+    header.writeUtf8("WARC-Filename: " + fileName + "\r\n");
+    Buffer member = new Buffer(512);
+    Deflater infoDeflater = new Deflater(config.getWarcCompressionLevel(), true);
+    try {
+      deflateMember(member, header, body, infoDeflater, new CRC32());
+    } finally {
+      infoDeflater.end();
+    }
+    return Arrays.copyOf(member.bytes, member.size);
+  }
+
+  private static void writeRecordHeader(Buffer out, String type, String id, String date, String targetUri,
+      String concurrentTo, String contentType, long contentLength) {
+    out.writeAscii("WARC/1.0\r\n");
+    out.writeAscii("WARC-Type: " + type + "\r\n");
+    out.writeAscii("WARC-Record-ID: " + id + "\r\n");
+    out.writeAscii("WARC-Date: " + date + "\r\n");
+    if (targetUri != null) {
+      out.writeUtf8("WARC-Target-URI: " + targetUri + "\r\n");
+    }
+    if (concurrentTo != null) {
+      out.writeAscii("WARC-Concurrent-To: " + concurrentTo + "\r\n");
+    }
+    out.writeAscii("Content-Type: " + contentType + "\r\n");
+    out.writeAscii("Content-Length: " + contentLength + "\r\n");
+  }
+
+  private static void writeHttpResponseHead(Buffer out, StatusLine statusLine, int statusCode, Header[] headers,
+      int contentLength) {
+    if (statusLine != null) {
+      out.writeLatin1(statusLine.toString());
+    } else {
+      out.writeAscii("HTTP/1.1 " + statusCode);
+    }
+    out.write(CRLF, 0, CRLF.length);
+    if (headers != null) {
+      for (Header header : headers) {
+        out.writeLatin1(isRewritten(header.getName()) ? REWRITTEN_PREFIX + header.getName() : header.getName());
+        out.writeAscii(": ");
+        out.writeLatin1(header.getValue());
+        out.write(CRLF, 0, CRLF.length);
+      }
+    }
+    out.writeAscii("Content-Length: " + contentLength + "\r\n\r\n");
+  }
+
+  private static boolean isRewritten(String headerName) {
+    for (String rewritten : REWRITTEN_HEADERS) {
+      if (rewritten.equalsIgnoreCase(headerName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void writeHttpRequest(Buffer out, HttpRequest request) {
+    out.writeLatin1(request.getRequestLine().toString());
+    out.write(CRLF, 0, CRLF.length);
+    for (Header header : request.getAllHeaders()) {
+      out.writeLatin1(header.getName());
+      out.writeAscii(": ");
+      out.writeLatin1(header.getValue());
+      out.write(CRLF, 0, CRLF.length);
+    }
+    out.write(CRLF, 0, CRLF.length);
+  }
+
+  private void deflateMember(Buffer out, Buffer header, Buffer block) {
+    deflateMember(out, header, block, deflater, crc);
+  }
+
+  /**
+   * Appends one gzip member holding the record header, the blank line after
+   * it, the block and the two line breaks which end a record.
+   */
+  private static void deflateMember(Buffer out, Buffer header, Buffer block, Deflater deflater, CRC32 crc) {
+    deflater.reset();
+    crc.reset();
+    // gzip头：魔数、deflate、无标志、无修改时间、未知操作系统
+    out.write(new byte[] {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff}, 0, 10);
+    long length = 0;
+    byte[][] parts = {header.bytes, CRLF, block.bytes, CRLF, CRLF};
+    int[] sizes = {header.size, CRLF.length, block.size, CRLF.length, CRLF.length};
+    for (int i = 0; i < parts.length; i++) {
+      crc.update(parts[i], 0, sizes[i]);
+      length += sizes[i];
+      deflater.setInput(parts[i], 0, sizes[i]);
+      while (!deflater.needsInput()) {
+        deflate(out, deflater, Deflater.NO_FLUSH);
+      }
+    }
+    deflater.finish();
+    while (!deflater.finished()) {
+      deflate(out, deflater, Deflater.NO_FLUSH);
+    }
+    writeIntLE(out, (int) crc.getValue());
+    writeIntLE(out, (int) length);
+  }
+
+  private static void deflate(Buffer out, Deflater deflater, int flush) {
+    out.ensureCapacity(out.size + 8192);
+    out.size += deflater.deflate(out.bytes, out.size, out.bytes.length - out.size, flush);
+  }
+
+  private static void writeIntLE(Buffer out, int value) {
+    out.write(new byte[] {(byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24)}, 0, 4);
+  }
+
+  // 不使用UUID.randomUUID，避免所有爬虫线程争用同一个SecureRandom
+  private static String newRecordId() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long msb = (random.nextLong() & ~0xf000L) | 0x4000L;
+    long lsb = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+    return "<urn:uuid:" + new UUID(msb, lsb) + ">";
+  }
+
+  /**
+   * A growable byte array which, unlike ByteArrayOutputStream, exposes its
+   * bytes so they can be compressed without copying.
+   */
+  private static class Buffer {
+    byte[] bytes;
+    int size;
+
+    Buffer(int capacity) {
+      bytes = new byte[Math.max(capacity, 16)];
+    }
+
+    void reset() {
+      size = 0;
+    }
+
+    void ensureCapacity(int capacity) {
+      if (capacity > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+      }
+    }
+
+    void write(byte[] b, int off, int len) {
+      ensureCapacity(size + len);
+      System.arraycopy(b, off, bytes, size, len);
+      size += len;
+    }
+
+    void writeAscii(String s) {
+      writeLatin1(s);
+    }
+
+    void writeLatin1(String s) {
+      byte[] b = s.getBytes(StandardCharsets.ISO_8859_1);
+      write(b, 0, b.length);
+    }
+
+    void writeUtf8(String s) {
+      byte[] b = s.getBytes(StandardCharsets.UTF_8);
+      write(b, 0, b.length);
+    }
+  }
+}